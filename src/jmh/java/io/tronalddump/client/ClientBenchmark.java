@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+
+/**
+ * End-to-end benchmarks of {@link TronaldClient} calls against a local {@link TronaldStubServer}, measuring the
+ * overhead of the client and the http stack rather than the network.
+ *
+ * @author Marcel Overdijk
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientBenchmark {
+
+    private TronaldStubServer server;
+    private TronaldClient client;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new TronaldStubServer(1000).start();
+        client = aTronaldClient().withBaseUrl(server.getBaseUrl()).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public List<String> getTags() {
+        return client.getTags();
+    }
+
+    @Benchmark
+    public Quote getQuote() {
+        return client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+    }
+
+    @Benchmark
+    public Quote getRandomQuote() {
+        return client.getRandomQuote();
+    }
+
+    @Benchmark
+    public Page<Quote> search() {
+        return client.search("great");
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.tronalddump.client.Pageable.PageableBuilder.aPageable;
+
+/**
+ * Benchmarks of decoding the responses of the api, on payloads captured from the {@link TronaldStubServer}, and of
+ * decoding a quote stored with {@link QuoteWriter} or with Java serialization.
+ *
+ * @author Marcel Overdijk
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodingBenchmark {
+
+    @Param({"25", "100"})
+    public int pageSize;
+
+    private byte[] quote;
+    private byte[] page;
+    private byte[] tags;
+    private byte[] binaryQuote;
+    private byte[] serializedQuote;
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() throws IOException {
+        TronaldStubServer server = new TronaldStubServer(1000).start();
+        try {
+            quote = get(server.getBaseUrl() + "/quote/" + TronaldStubServer.KNOWN_QUOTE_ID);
+            page = get(server.getBaseUrl() + "/search/quote?query=great&page=1&size=" + pageSize);
+            tags = get(server.getBaseUrl() + "/tags");
+        } finally {
+            server.stop();
+        }
+        pageable = aPageable().withSize(pageSize).build();
+        Quote decoded = ResponseDecoder.decodeQuote(new ByteArrayInputStream(quote));
+        binaryQuote = QuoteWriter.encode(decoded);
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(decoded);
+        }
+        serializedQuote = serialized.toByteArray();
+    }
+
+    @Benchmark
+    public Quote parseQuote() throws IOException {
+        return ResponseDecoder.decodeQuote(new ByteArrayInputStream(quote));
+    }
+
+    @Benchmark
+    public Page<Quote> decodeSearchPage() throws IOException {
+        return ResponseDecoder.decodePage(new ByteArrayInputStream(page), pageable);
+    }
+
+    @Benchmark
+    public List<String> decodeTags() throws IOException {
+        return ResponseDecoder.decodeTags(new ByteArrayInputStream(tags));
+    }
+
+    @Benchmark
+    public Quote decodeBinaryQuote() throws IOException {
+        return QuoteReader.decode(binaryQuote);
+    }
+
+    @Benchmark
+    public Object deserializeQuote() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serializedQuote))) {
+            return in.readObject();
+        }
+    }
+
+    private static byte[] get(String url) throws IOException {
+        try (HttpResponse response = new UrlConnectionTransport()
+                .execute(new HttpRequest(url, Collections.<String, String>emptyMap()))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            InputStream in = response.getBody();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
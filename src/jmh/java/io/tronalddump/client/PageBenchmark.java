@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.tronalddump.client.Pageable.PageableBuilder.aPageable;
+
+/**
+ * Benchmarks of the {@link Page} navigation methods.
+ *
+ * @author Marcel Overdijk
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageBenchmark {
+
+    private Page<Quote> page;
+
+    @Setup
+    public void setUp() {
+        List<Quote> content = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Quote quote = new Quote();
+            quote.setId("quote-" + i);
+            content.add(quote);
+        }
+        page = new Page<>(content, aPageable().withPage(3).withSize(25).build(), 1234);
+    }
+
+    @Benchmark
+    public void navigate(Blackhole blackhole) {
+        blackhole.consume(page.hasNext());
+        blackhole.consume(page.hasPrevious());
+        blackhole.consume(page.isFirst());
+        blackhole.consume(page.isLast());
+        blackhole.consume(page.getTotalPages());
+        blackhole.consume(page.nextPageable());
+        blackhole.consume(page.previousPageable());
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        for (Quote quote : page) {
+            blackhole.consume(quote);
+        }
+    }
+
+    @Benchmark
+    public List<Quote> getContent() {
+        return page.getContent();
+    }
+}
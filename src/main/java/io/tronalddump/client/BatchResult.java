@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The class representing the outcome of a batch of requests, with the results and failures by key.
+ *
+ * @param <T> the type of the results
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class BatchResult<T> implements Serializable {
+
+    private static final long serialVersionUID = -1733493957409624052L;
+
+    private Map<String, T> results;
+    private Map<String, TronaldException> failures;
+
+    /**
+     * Creates a new {@code BatchResult} with the given results and failures.
+     *
+     * @param results the results by key, not null
+     * @param failures the failures by key, not null
+     */
+    public BatchResult(Map<String, T> results, Map<String, TronaldException> failures) {
+        this.results = requireNonNull(results, "'results' must not be null");
+        this.failures = requireNonNull(failures, "'failures' must not be null");
+    }
+
+    /**
+     * Returns the results of the successful requests by key, in the order the keys were requested.
+     *
+     * @return the results
+     */
+    public Map<String, T> getResults() {
+        return Collections.unmodifiableMap(results);
+    }
+
+    /**
+     * Returns the failures of the unsuccessful requests by key, in the order the keys were requested.
+     *
+     * @return the failures
+     */
+    public Map<String, TronaldException> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * Returns whether any of the requests failed.
+     */
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BatchResult<?> other = (BatchResult<?>) o;
+        if (!results.equals(other.results)) {
+            return false;
+        }
+        return failures.equals(other.failures);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = results.hashCode();
+        result = 31 * result + failures.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "results=" + results +
+                ", failures=" + failures +
+                '}';
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of non-negative ints, stored as a sorted array when sparse and as a bitset when dense, whichever is
+ * smaller.
+ *
+ * A dense bitmap keeps the number of set bits before each word, so {@link #select(int)} takes a binary search and a
+ * scan of one word instead of a scan of the whole bitset.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+final class Bitmap {
+
+    static final Bitmap EMPTY = new Bitmap(new int[0], null, null, 0);
+
+    private final int[] values;
+    private final long[] words;
+    private final int[] ranks;
+    private final int cardinality;
+
+    private Bitmap(int[] values, long[] words, int[] ranks, int cardinality) {
+        this.values = values;
+        this.words = words;
+        this.ranks = ranks;
+        this.cardinality = cardinality;
+    }
+
+    /**
+     * Returns the bitmap of the first {@code count} values of the given array, which must be sorted and distinct.
+     */
+    static Bitmap of(int[] sorted, int count) {
+        if (count == 0) {
+            return EMPTY;
+        }
+        int wordCount = (sorted[count - 1] >>> 6) + 1;
+        if ((long) count * Integer.BYTES <= (long) wordCount * Long.BYTES) {
+            return new Bitmap(Arrays.copyOf(sorted, count), null, null, count);
+        }
+        long[] words = new long[wordCount];
+        for (int i = 0; i < count; i++) {
+            words[sorted[i] >>> 6] |= 1L << sorted[i];
+        }
+        return ofWords(words);
+    }
+
+    private static Bitmap ofWords(long[] words) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) {
+            length--;
+        }
+        int[] ranks = new int[length];
+        int cardinality = 0;
+        for (int i = 0; i < length; i++) {
+            ranks[i] = cardinality;
+            cardinality += Long.bitCount(words[i]);
+        }
+        if (cardinality == 0) {
+            return EMPTY;
+        }
+        if ((long) cardinality * Integer.BYTES <= (long) length * Long.BYTES) {
+            return new Bitmap(toArray(words, length, cardinality), null, null, cardinality);
+        }
+        return new Bitmap(null, length == words.length ? words : Arrays.copyOf(words, length), ranks, cardinality);
+    }
+
+    int cardinality() {
+        return cardinality;
+    }
+
+    boolean contains(int value) {
+        if (values != null) {
+            return Arrays.binarySearch(values, value) >= 0;
+        }
+        int index = value >>> 6;
+        return value >= 0 && index < words.length && (words[index] & (1L << value)) != 0;
+    }
+
+    /**
+     * Returns the value with the given rank, the {@code rank}-th smallest value counting from 0.
+     */
+    int select(int rank) {
+        if (rank < 0 || rank >= cardinality) {
+            throw new IndexOutOfBoundsException("Rank: " + rank + ", Cardinality: " + cardinality);
+        }
+        if (values != null) {
+            return values[rank];
+        }
+        int low = 0;
+        int high = ranks.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (ranks[mid] <= rank) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        long word = words[low];
+        for (int i = rank - ranks[low]; i > 0; i--) {
+            word &= word - 1;
+        }
+        return (low << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    int[] toArray() {
+        return values != null ? values.clone() : toArray(words, words.length, cardinality);
+    }
+
+    Bitmap and(Bitmap other) {
+        if (values != null || other.values != null) {
+            Bitmap sparse = values != null ? this : other;
+            Bitmap probe = sparse == this ? other : this;
+            int[] result = new int[sparse.cardinality];
+            int count = 0;
+            for (int value : sparse.values) {
+                if (probe.contains(value)) {
+                    result[count++] = value;
+                }
+            }
+            return of(result, count);
+        }
+        long[] result = new long[Math.min(words.length, other.words.length)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = words[i] & other.words[i];
+        }
+        return ofWords(result);
+    }
+
+    Bitmap or(Bitmap other) {
+        long[] a = words();
+        long[] b = other.words();
+        long[] result = Arrays.copyOf(a.length >= b.length ? a : b, Math.max(a.length, b.length));
+        long[] smaller = a.length >= b.length ? b : a;
+        for (int i = 0; i < smaller.length; i++) {
+            result[i] |= smaller[i];
+        }
+        return ofWords(result);
+    }
+
+    private long[] words() {
+        if (words != null) {
+            return words;
+        }
+        if (cardinality == 0) {
+            return new long[0];
+        }
+        long[] result = new long[(values[cardinality - 1] >>> 6) + 1];
+        for (int value : values) {
+            result[value >>> 6] |= 1L << value;
+        }
+        return result;
+    }
+
+    private static int[] toArray(long[] words, int length, int cardinality) {
+        int[] result = new int[cardinality];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                result[count++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.Serializable;
+
+/**
+ * Point-in-time statistics of a cache.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class CacheStats implements Serializable {
+
+    private static final long serialVersionUID = 7414273630452085176L;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long size;
+
+    /**
+     * Creates a new {@code CacheStats} with the given counts.
+     *
+     * @param hitCount the number of lookups that found an entry
+     * @param missCount the number of lookups that found no (fresh) entry
+     * @param evictionCount the number of entries removed because of the size bound or expiration
+     * @param size the current number of entries
+     */
+    public CacheStats(long hitCount, long missCount, long evictionCount, long size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of lookups that found an entry.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups that found no (fresh) entry.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of entries removed because of the size bound or expiration.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the current number of entries.
+     *
+     * @return the size
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the ratio of lookups that found an entry, or {@code 1.0} if there were no lookups.
+     *
+     * @return the hit rate
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CacheStats other = (CacheStats) o;
+        if (hitCount != other.hitCount) {
+            return false;
+        }
+        if (missCount != other.missCount) {
+            return false;
+        }
+        if (evictionCount != other.evictionCount) {
+            return false;
+        }
+        return size == other.size;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (hitCount ^ (hitCount >>> 32));
+        result = 31 * result + (int) (missCount ^ (missCount >>> 32));
+        result = 31 * result + (int) (evictionCount ^ (evictionCount >>> 32));
+        result = 31 * result + (int) (size ^ (size >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link HttpTransport} decorator keeping the successful responses in a directory on disk, to revalidate them on
+ * later requests, even after a restart.
+ *
+ * A stored response is revalidated by sending its {@code ETag} as {@code If-None-Match} and its {@code Last-Modified}
+ * as {@code If-Modified-Since}; when the server answers {@code 304 Not Modified} the stored body is served. Only
+ * {@code 200 OK} responses carrying at least one of these validators are stored. Each response is stored in its own
+ * file, written to a temporary file first and moved in place, so concurrent writers and crashes never leave a
+ * partially written entry behind.
+ *
+ * @author Marcel Overdijk
+ * @see TronaldClient.TronaldClientBuilder#withResponseCache(File)
+ * @since 1.1.0
+ */
+public class CachingTransport implements HttpTransport {
+
+    private static final int MAGIC = 0x54524331; // "TRC1"
+    private static final String SUFFIX = ".cache";
+    private static final String[] STORED_HEADERS = {"Content-Type", "Content-Encoding", "ETag", "Last-Modified"};
+
+    private final HttpTransport delegate;
+    private final Path directory;
+    private final Predicate<HttpRequest> cacheable;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a new {@code CachingTransport} storing the responses of all requests in the given directory.
+     *
+     * @param delegate the transport executing the requests, not null
+     * @param directory the directory to store the responses in; created if it does not exist, not null
+     * @throws IOException in case the directory cannot be created
+     */
+    public CachingTransport(HttpTransport delegate, File directory) throws IOException {
+        this(delegate, directory, request -> true);
+    }
+
+    /**
+     * Creates a new {@code CachingTransport} storing the responses of the requests matching the given predicate in
+     * the given directory.
+     *
+     * @param delegate the transport executing the requests, not null
+     * @param directory the directory to store the responses in; created if it does not exist, not null
+     * @param cacheable the predicate selecting the requests of which the responses are stored, not null
+     * @throws IOException in case the directory cannot be created
+     */
+    public CachingTransport(HttpTransport delegate, File directory, Predicate<HttpRequest> cacheable) throws IOException {
+        this.delegate = requireNonNull(delegate, "'delegate' must not be null");
+        this.directory = requireNonNull(directory, "'directory' must not be null").toPath();
+        this.cacheable = requireNonNull(cacheable, "'cacheable' must not be null");
+        Files.createDirectories(this.directory);
+    }
+
+    /**
+     * Returns the transport executing the requests.
+     *
+     * @return the delegate transport
+     */
+    public HttpTransport getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        if (!cacheable.test(request)) {
+            return delegate.execute(request);
+        }
+        Path file = directory.resolve(fileName(request.getUrl()));
+        StoredResponse stored = read(file, request.getUrl());
+        HttpRequest revalidation = request;
+        if (stored != null) {
+            Map<String, String> headers = new LinkedHashMap<>(request.getHeaders());
+            String etag = stored.headers.get("ETag");
+            if (etag != null) {
+                headers.put("If-None-Match", etag);
+            }
+            String lastModified = stored.headers.get("Last-Modified");
+            if (lastModified != null) {
+                headers.put("If-Modified-Since", lastModified);
+            }
+            revalidation = new HttpRequest(request.getUrl(), headers, request.getTimeout());
+        }
+        HttpResponse response = delegate.execute(revalidation);
+        int status;
+        Map<String, String> headers = new LinkedHashMap<>();
+        byte[] body;
+        try {
+            status = response.getStatus();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && stored != null) {
+                response.close();
+                hits.increment();
+                return new BufferedHttpResponse(HttpURLConnection.HTTP_OK, stored.headers, stored.body);
+            }
+            misses.increment();
+            if (status != HttpURLConnection.HTTP_OK
+                    || (response.getHeader("ETag") == null && response.getHeader("Last-Modified") == null)) {
+                return response;
+            }
+            for (String name : STORED_HEADERS) {
+                String value = response.getHeader(name);
+                if (value != null) {
+                    headers.put(name, value);
+                }
+            }
+            body = readFully(response.getBody());
+        } catch (IOException | RuntimeException | Error e) {
+            // the response holds a connection until closed
+            closeQuietly(response);
+            throw e;
+        }
+        response.close();
+        try {
+            write(file, request.getUrl(), headers, body);
+        } catch (IOException ignore) {
+            // storing is best effort; the response itself is fine
+        }
+        return new BufferedHttpResponse(status, headers, body);
+    }
+
+    /**
+     * Returns the statistics of this cache; a hit is a response served from disk after revalidation, a miss any
+     * other response of a cacheable request.
+     *
+     * @return the cache statistics
+     */
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), 0, size());
+    }
+
+    /**
+     * Removes all stored responses.
+     *
+     * @throws IOException in case a stored response cannot be removed
+     */
+    public void clear() throws IOException {
+        File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+    }
+
+    private long size() {
+        String[] names = directory.toFile().list((dir, name) -> name.endsWith(SUFFIX));
+        return names != null ? names.length : 0;
+    }
+
+    /**
+     * Reads the response stored for the given url; returns {@code null} if there is none or it cannot be read.
+     */
+    private StoredResponse read(Path file, String url) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || !in.readUTF().equals(url)) {
+                return null;
+            }
+            Map<String, String> headers = new LinkedHashMap<>();
+            int headerCount = in.readUnsignedByte();
+            for (int i = 0; i < headerCount; i++) {
+                headers.put(in.readUTF(), in.readUTF());
+            }
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new StoredResponse(headers, body);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // unreadable or truncated by a foreign process; it will be overwritten by the next response
+            return null;
+        }
+    }
+
+    private void write(Path file, String url, Map<String, String> headers, byte[] body) throws IOException {
+        Path temp = Files.createTempFile(directory, "tmp-", ".part");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeUTF(url);
+                out.writeByte(headers.size());
+                for (Map.Entry<String, String> header : headers.entrySet()) {
+                    out.writeUTF(header.getKey());
+                    out.writeUTF(header.getValue());
+                }
+                out.writeInt(body.length);
+                out.write(body);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void closeQuietly(HttpResponse response) {
+        try {
+            response.close();
+        } catch (IOException ignore) {
+            // the failure reading the response is reported instead
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns the file name for the given url; the hex encoded SHA-256 hash of the url.
+     */
+    private static String fileName(String url) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2 + SUFFIX.length());
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.append(SUFFIX).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM supports SHA-256
+        }
+    }
+
+    private static final class StoredResponse {
+
+        private final Map<String, String> headers;
+        private final byte[] body;
+
+        StoredResponse(Map<String, String> headers, byte[] body) {
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Circuit breaker per {@link Endpoint} of a {@link TronaldClient}, rejecting the requests to an endpoint while it is
+ * failing instead of adding to its load.
+ *
+ * The circuit of an endpoint is closed as long as its requests succeed. After {@code failureThreshold} consecutive
+ * failures, i.e. requests failed with a http status of 500 or above or with an i/o error, it opens: requests are
+ * rejected with a {@link TronaldCircuitOpenException} without being sent. After the open duration it is half-open: up
+ * to {@code halfOpenProbes} requests are sent as probes, while others are still rejected. A succeeding probe closes
+ * the circuit again, a failing probe opens it for another open duration. Other http errors, like 404, count as
+ * success as the endpoint is responding.
+ *
+ * <pre>
+ * CircuitBreaker circuitBreaker = aCircuitBreaker()
+ *         .withFailureThreshold(5)
+ *         .withOpenDuration(30, TimeUnit.SECONDS)
+ *         .build();
+ * TronaldClient client = aTronaldClient().withCircuitBreaker(circuitBreaker).build();
+ * </pre>
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class CircuitBreaker {
+
+    /**
+     * State of the circuit of an endpoint.
+     */
+    public enum State {
+
+        /**
+         * Requests are sent.
+         */
+        CLOSED,
+
+        /**
+         * Requests are rejected.
+         */
+        OPEN,
+
+        /**
+         * A limited number of probe requests is sent, others are rejected.
+         */
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier ticker;
+    private final Map<Endpoint, AtomicReference<Circuit>> circuits = new EnumMap<>(Endpoint.class);
+    private final LongAdder rejected = new LongAdder();
+
+    private CircuitBreaker(CircuitBreakerBuilder builder) {
+        if (builder.failureThreshold < 1) {
+            throw new IllegalArgumentException("'failureThreshold' must not be less than 1");
+        }
+        if (builder.openDurationNanos < 0) {
+            throw new IllegalArgumentException("'openDuration' must not be less than 0");
+        }
+        if (builder.halfOpenProbes < 1) {
+            throw new IllegalArgumentException("'halfOpenProbes' must not be less than 1");
+        }
+        this.failureThreshold = builder.failureThreshold;
+        this.openDurationNanos = builder.openDurationNanos;
+        this.halfOpenProbes = builder.halfOpenProbes;
+        this.ticker = builder.ticker;
+        for (Endpoint endpoint : Endpoint.values()) {
+            circuits.put(endpoint, new AtomicReference<>(Circuit.CLOSED));
+        }
+    }
+
+    /**
+     * Returns the state of the circuit of the given endpoint.
+     *
+     * @param endpoint the endpoint, not null
+     * @return the state; an open circuit of which the open duration has passed is half-open
+     */
+    public State getState(Endpoint endpoint) {
+        Circuit circuit = circuits.get(requireNonNull(endpoint, "'endpoint' must not be null")).get();
+        if (circuit.state == State.OPEN && ticker.getAsLong() - circuit.openedAt >= openDurationNanos) {
+            return State.HALF_OPEN;
+        }
+        return circuit.state;
+    }
+
+    /**
+     * Returns the number of requests rejected because their circuit was open.
+     *
+     * @return the rejected count
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Permits a request to the given endpoint, or rejects it if the circuit is open.
+     *
+     * @throws TronaldCircuitOpenException if the circuit is open, or half-open with all probes in flight
+     */
+    void acquire(Endpoint endpoint) {
+        AtomicReference<Circuit> ref = circuits.get(endpoint);
+        while (true) {
+            Circuit circuit = ref.get();
+            Circuit next;
+            if (circuit.state == State.CLOSED) {
+                return;
+            } else if (circuit.state == State.OPEN) {
+                if (ticker.getAsLong() - circuit.openedAt < openDurationNanos) {
+                    throw reject(endpoint);
+                }
+                next = new Circuit(State.HALF_OPEN, 0, circuit.openedAt, 1);
+            } else {
+                if (circuit.probes >= halfOpenProbes) {
+                    throw reject(endpoint);
+                }
+                next = new Circuit(State.HALF_OPEN, 0, circuit.openedAt, circuit.probes + 1);
+            }
+            if (ref.compareAndSet(circuit, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Releases a permit of the given endpoint of which no request was sent, so a half-open circuit can send another
+     * probe.
+     */
+    void release(Endpoint endpoint) {
+        AtomicReference<Circuit> ref = circuits.get(endpoint);
+        while (true) {
+            Circuit circuit = ref.get();
+            if (circuit.state != State.HALF_OPEN || circuit.probes == 0) {
+                return;
+            }
+            if (ref.compareAndSet(circuit, new Circuit(State.HALF_OPEN, 0, circuit.openedAt, circuit.probes - 1))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Records a successful request to the given endpoint, closing its circuit.
+     */
+    void onSuccess(Endpoint endpoint) {
+        AtomicReference<Circuit> ref = circuits.get(endpoint);
+        while (true) {
+            Circuit circuit = ref.get();
+            if (circuit == Circuit.CLOSED || circuit.state == State.OPEN || ref.compareAndSet(circuit, Circuit.CLOSED)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Records a request to the given endpoint failed with the given exception, opening the circuit when the failure
+     * threshold is reached or the request was a probe.
+     */
+    void onFailure(Endpoint endpoint, TronaldException e) {
+        if (!isFailure(e)) {
+            onSuccess(endpoint);
+            return;
+        }
+        AtomicReference<Circuit> ref = circuits.get(endpoint);
+        while (true) {
+            Circuit circuit = ref.get();
+            Circuit next;
+            if (circuit.state == State.OPEN) {
+                return;
+            } else if (circuit.state == State.CLOSED && circuit.failures + 1 < failureThreshold) {
+                next = new Circuit(State.CLOSED, circuit.failures + 1, 0L, 0);
+            } else {
+                next = new Circuit(State.OPEN, 0, ticker.getAsLong(), 0);
+            }
+            if (ref.compareAndSet(circuit, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the given exception indicates the endpoint is failing, rather than responding with an error.
+     */
+    static boolean isFailure(TronaldException e) {
+        if (e instanceof TronaldHttpException) {
+            return ((TronaldHttpException) e).getHttpStatus() >= 500;
+        }
+        return !(e instanceof TronaldCircuitOpenException);
+    }
+
+    private TronaldCircuitOpenException reject(Endpoint endpoint) {
+        rejected.increment();
+        return new TronaldCircuitOpenException(endpoint, "Circuit breaker of " + endpoint.getPath() + " is open");
+    }
+
+    /**
+     * Immutable state of the circuit of an endpoint, replaced atomically.
+     */
+    private static final class Circuit {
+
+        private static final Circuit CLOSED = new Circuit(State.CLOSED, 0, 0L, 0);
+
+        private final State state;
+        private final int failures;
+        private final long openedAt;
+        private final int probes;
+
+        Circuit(State state, int failures, long openedAt, int probes) {
+            this.state = state;
+            this.failures = failures;
+            this.openedAt = openedAt;
+            this.probes = probes;
+        }
+    }
+
+    public static final class CircuitBreakerBuilder {
+
+        private int failureThreshold = 5;
+        private long openDurationNanos = TimeUnit.SECONDS.toNanos(30);
+        private int halfOpenProbes = 1;
+        private LongSupplier ticker = System::nanoTime;
+
+        private CircuitBreakerBuilder() {
+        }
+
+        public static CircuitBreakerBuilder aCircuitBreaker() {
+            return new CircuitBreakerBuilder();
+        }
+
+        /**
+         * Sets the number of consecutive failures opening the circuit of an endpoint; defaults to 5.
+         */
+        public CircuitBreakerBuilder withFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the time the circuit of an endpoint stays open before probing it; defaults to 30 seconds.
+         */
+        public CircuitBreakerBuilder withOpenDuration(long openDuration, TimeUnit unit) {
+            this.openDurationNanos = requireNonNull(unit, "'unit' must not be null").toNanos(openDuration);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of concurrent probe requests of a half-open circuit; defaults to 1.
+         */
+        public CircuitBreakerBuilder withHalfOpenProbes(int halfOpenProbes) {
+            this.halfOpenProbes = halfOpenProbes;
+            return this;
+        }
+
+        CircuitBreakerBuilder withTicker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public CircuitBreaker build() {
+            CircuitBreaker circuitBreaker = new CircuitBreaker(this);
+            return circuitBreaker;
+        }
+    }
+}
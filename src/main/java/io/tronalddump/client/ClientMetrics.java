@@ -0,0 +1,254 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Registry of the latencies and outcomes of the calls of a {@link TronaldClient}, by {@link Endpoint}.
+ *
+ * The latency of each call of {@code getTags}, {@code getQuote}, {@code getRandomQuote} and {@code search} is
+ * recorded in a histogram of its endpoint and {@link Outcome}, from the start of the call until the result is decoded
+ * or the error is thrown; calls answered locally, e.g. from a cache or index, are included. Failed calls are also
+ * counted by http status. Recording uses atomic counters only, so it does not block the calling threads.
+ *
+ * <pre>
+ * ClientMetrics metrics = new ClientMetrics();
+ * TronaldClient client = aTronaldClient().withMetrics(metrics).build();
+ * ...
+ * long p99 = metrics.getStats(Endpoint.SEARCH).getLatency().getValueAtPercentile(99.0);
+ * metrics.export(stats -&gt; System.out.println(stats), 1, TimeUnit.MINUTES);
+ * </pre>
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class ClientMetrics implements Closeable {
+
+    /**
+     * Outcome of a call.
+     */
+    public enum Outcome {
+
+        /**
+         * The call returned a result.
+         */
+        SUCCESS,
+
+        /**
+         * The call failed with a {@link TronaldHttpException} with a http status below 500.
+         */
+        CLIENT_ERROR,
+
+        /**
+         * The call failed with a {@link TronaldHttpException} with a http status of 500 or above.
+         */
+        SERVER_ERROR,
+
+        /**
+         * The call failed with a {@link TronaldTimeoutException}.
+         */
+        TIMEOUT,
+
+        /**
+         * The call failed without http status, e.g. with an i/o error.
+         */
+        ERROR
+    }
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final LongSupplier ticker;
+    private final long created;
+    private final Map<Endpoint, Recorder> recorders = new EnumMap<>(Endpoint.class);
+    private final List<MetricsExporter> exporters = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+    private boolean closed;
+
+    /**
+     * Creates a new {@code ClientMetrics}.
+     */
+    public ClientMetrics() {
+        this(System::nanoTime);
+    }
+
+    ClientMetrics(LongSupplier ticker) {
+        this.ticker = requireNonNull(ticker, "'ticker' must not be null");
+        this.created = ticker.getAsLong();
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.put(endpoint, new Recorder());
+        }
+    }
+
+    /**
+     * Returns the statistics of all endpoints.
+     *
+     * @return the statistics
+     */
+    public ClientStats getStats() {
+        long uptime = ticker.getAsLong() - created;
+        Map<Endpoint, EndpointStats> endpointStats = new EnumMap<>(Endpoint.class);
+        for (Map.Entry<Endpoint, Recorder> entry : recorders.entrySet()) {
+            endpointStats.put(entry.getKey(), entry.getValue().snapshot(entry.getKey(), uptime));
+        }
+        return new ClientStats(uptime, endpointStats);
+    }
+
+    /**
+     * Returns the statistics of the given endpoint.
+     *
+     * @param endpoint the endpoint, not null
+     * @return the endpoint statistics
+     */
+    public EndpointStats getStats(Endpoint endpoint) {
+        requireNonNull(endpoint, "'endpoint' must not be null");
+        return recorders.get(endpoint).snapshot(endpoint, ticker.getAsLong() - created);
+    }
+
+    /**
+     * Exports the statistics with the given exporter at a fixed rate, on a background thread, and once more when the
+     * metrics are closed. An exception thrown by the exporter does not stop the following exports.
+     *
+     * @param exporter the exporter, not null
+     * @param period the time between exports, must be positive
+     * @param unit the time unit of the period, not null
+     */
+    public synchronized void export(MetricsExporter exporter, long period, TimeUnit unit) {
+        requireNonNull(exporter, "'exporter' must not be null");
+        requireNonNull(unit, "'unit' must not be null");
+        if (period <= 0) {
+            throw new IllegalArgumentException("'period' must be positive");
+        }
+        if (closed) {
+            throw new IllegalStateException("Metrics are closed");
+        }
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("tronald-client-metrics"));
+        }
+        exporters.add(exporter);
+        scheduler.scheduleAtFixedRate(() -> export(exporter), period, period, unit);
+    }
+
+    /**
+     * Stops the scheduled exports, after exporting the final statistics with each exporter.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+            }
+        }
+        for (MetricsExporter exporter : exporters) {
+            export(exporter);
+        }
+    }
+
+    /**
+     * Returns the current time of the ticker, to measure the latency of a call.
+     */
+    long tick() {
+        return ticker.getAsLong();
+    }
+
+    /**
+     * Records a successful call of the given endpoint that started at the given tick.
+     */
+    void recordSuccess(Endpoint endpoint, long started) {
+        recorders.get(endpoint).record(Outcome.SUCCESS, 0, ticker.getAsLong() - started);
+    }
+
+    /**
+     * Records a call of the given endpoint that started at the given tick and failed with the given exception.
+     */
+    void recordFailure(Endpoint endpoint, long started, TronaldException e) {
+        long nanos = ticker.getAsLong() - started;
+        if (e instanceof TronaldHttpException) {
+            int status = ((TronaldHttpException) e).getHttpStatus();
+            recorders.get(endpoint).record(status < 500 ? Outcome.CLIENT_ERROR : Outcome.SERVER_ERROR, status, nanos);
+        } else if (e instanceof TronaldTimeoutException) {
+            recorders.get(endpoint).record(Outcome.TIMEOUT, 0, nanos);
+        } else {
+            recorders.get(endpoint).record(Outcome.ERROR, 0, nanos);
+        }
+    }
+
+    private void export(MetricsExporter exporter) {
+        try {
+            exporter.export(getStats());
+        } catch (RuntimeException e) {
+            // a failing exporter must not cancel its schedule; it is retried at the next period
+        }
+    }
+
+    /**
+     * The histograms and status counts of one endpoint. The histograms are created on first use, as most endpoints
+     * never see most outcomes.
+     */
+    private static final class Recorder {
+
+        private final AtomicReferenceArray<LatencyHistogram> histograms =
+                new AtomicReferenceArray<>(OUTCOMES.length);
+        private final ConcurrentMap<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+
+        void record(Outcome outcome, int status, long nanos) {
+            LatencyHistogram histogram = histograms.get(outcome.ordinal());
+            if (histogram == null) {
+                histograms.compareAndSet(outcome.ordinal(), null, new LatencyHistogram());
+                histogram = histograms.get(outcome.ordinal());
+            }
+            histogram.record(nanos);
+            if (status != 0) {
+                statusCounts.computeIfAbsent(status, key -> new LongAdder()).increment();
+            }
+        }
+
+        EndpointStats snapshot(Endpoint endpoint, long uptime) {
+            Map<Outcome, LatencyStats> latencies = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : OUTCOMES) {
+                LatencyHistogram histogram = histograms.get(outcome.ordinal());
+                if (histogram != null) {
+                    latencies.put(outcome, histogram.snapshot());
+                }
+            }
+            Map<Integer, Long> counts = new TreeMap<>();
+            for (Map.Entry<Integer, LongAdder> entry : statusCounts.entrySet()) {
+                counts.put(entry.getKey(), entry.getValue().sum());
+            }
+            return new EndpointStats(endpoint, uptime, latencies, counts);
+        }
+    }
+}
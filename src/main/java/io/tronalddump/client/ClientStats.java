@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Point-in-time statistics of the calls of a {@link TronaldClient} by {@link Endpoint}, as recorded by the
+ * {@link ClientMetrics}.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class ClientStats implements Serializable {
+
+    private static final long serialVersionUID = -1580512834275981190L;
+
+    private long uptime;
+    private Map<Endpoint, EndpointStats> endpointStats;
+
+    /**
+     * Creates a new {@code ClientStats} with the given statistics.
+     *
+     * @param uptime the nanoseconds the statistics were recorded for
+     * @param endpointStats the statistics by endpoint, not null
+     */
+    ClientStats(long uptime, Map<Endpoint, EndpointStats> endpointStats) {
+        this.uptime = uptime;
+        this.endpointStats = new EnumMap<>(requireNonNull(endpointStats, "'endpointStats' must not be null"));
+    }
+
+    /**
+     * Returns the time since the metrics were created.
+     *
+     * @return the uptime in nanoseconds
+     */
+    public long getUptime() {
+        return uptime;
+    }
+
+    /**
+     * Returns the statistics of the given endpoint.
+     *
+     * @param endpoint the endpoint, not null
+     * @return the endpoint statistics
+     */
+    public EndpointStats getEndpointStats(Endpoint endpoint) {
+        return endpointStats.get(requireNonNull(endpoint, "'endpoint' must not be null"));
+    }
+
+    /**
+     * Returns the statistics of all endpoints.
+     *
+     * @return the endpoint statistics by endpoint
+     */
+    public Map<Endpoint, EndpointStats> getEndpointStats() {
+        return Collections.unmodifiableMap(endpointStats);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ClientStats other = (ClientStats) o;
+        if (uptime != other.uptime) {
+            return false;
+        }
+        return endpointStats.equals(other.endpointStats);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (uptime ^ (uptime >>> 32));
+        result = 31 * result + endpointStats.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ClientStats{" +
+                "uptime=" + uptime +
+                ", endpointStats=" + endpointStats.values() +
+                '}';
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.Serializable;
+
+/**
+ * Point-in-time statistics of a {@link CoalescingTransport}.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class CoalescingStats implements Serializable {
+
+    private static final long serialVersionUID = 2236431585209474213L;
+
+    private long executedCount;
+    private long coalescedCount;
+
+    /**
+     * Creates a new {@code CoalescingStats} with the given counts.
+     *
+     * @param executedCount the number of requests executed by the delegate transport
+     * @param coalescedCount the number of requests served by the response of an identical in-flight request
+     */
+    public CoalescingStats(long executedCount, long coalescedCount) {
+        this.executedCount = executedCount;
+        this.coalescedCount = coalescedCount;
+    }
+
+    /**
+     * Returns the number of requests executed by the delegate transport.
+     *
+     * @return the executed count
+     */
+    public long getExecutedCount() {
+        return executedCount;
+    }
+
+    /**
+     * Returns the number of requests served by the response of an identical in-flight request.
+     *
+     * @return the coalesced count
+     */
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Returns the ratio of requests served by the response of an identical in-flight request, or {@code 0.0} if
+     * there were no requests.
+     *
+     * @return the coalesced rate
+     */
+    public double getCoalescedRate() {
+        long requestCount = executedCount + coalescedCount;
+        return requestCount == 0 ? 0.0 : (double) coalescedCount / requestCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CoalescingStats other = (CoalescingStats) o;
+        if (executedCount != other.executedCount) {
+            return false;
+        }
+        return coalescedCount == other.coalescedCount;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (executedCount ^ (executedCount >>> 32));
+        result = 31 * result + (int) (coalescedCount ^ (coalescedCount >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CoalescingStats{" +
+                "executedCount=" + executedCount +
+                ", coalescedCount=" + coalescedCount +
+                '}';
+    }
+}
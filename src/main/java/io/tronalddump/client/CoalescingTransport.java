@@ -0,0 +1,222 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link HttpTransport} decorator coalescing identical in-flight requests, so only one of them is executed and the
+ * others wait for and share its response or exception.
+ *
+ * Requests are identical when they have the same method and url; as all requests are {@code GET} requests, that is
+ * the same url. The headers of the executed request are used. Requests arriving before the response of the identical
+ * request is received wait for it. Only when requests are waiting is the response buffered in memory, so each caller
+ * receives its own {@link HttpResponse} to read; only the {@code Content-Type}, {@code Content-Encoding},
+ * {@code ETag}, {@code Last-Modified} and {@code Retry-After} headers are shared. Otherwise the response is returned
+ * as is. A request arriving after the response of the identical request was received is executed again; nothing is
+ * cached.
+ *
+ * The executed request has its own timeout. When it times out, the waiting requests with time left are executed
+ * again, or coalesced with another identical request, rather than failing with the timeout of another caller.
+ *
+ * @author Marcel Overdijk
+ * @see TronaldClient.TronaldClientBuilder#withRequestCoalescing(boolean)
+ * @since 1.1.0
+ */
+public class CoalescingTransport implements HttpTransport {
+
+    private static final String[] SHARED_HEADERS = {"Content-Type", "Content-Encoding", "ETag", "Last-Modified",
+            "Retry-After"};
+
+    private final HttpTransport delegate;
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Creates a new {@code CoalescingTransport}.
+     *
+     * @param delegate the transport executing the requests, not null
+     */
+    public CoalescingTransport(HttpTransport delegate) {
+        this.delegate = requireNonNull(delegate, "'delegate' must not be null");
+    }
+
+    /**
+     * Returns the transport executing the requests.
+     *
+     * @return the delegate transport
+     */
+    public HttpTransport getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        String key = "GET " + request.getUrl();
+        long timeout = request.getTimeout();
+        Deadline deadline = timeout > 0 ? Deadline.after(TimeUnit.MILLISECONDS.toNanos(timeout)) : null;
+        boolean retried = false;
+        while (true) {
+            InFlight entry = new InFlight();
+            InFlight existing = inFlight.putIfAbsent(key, entry);
+            if (existing == null) {
+                return lead(key, entry, retried ? withRemainingTimeout(request, deadline) : request);
+            }
+            if (!existing.join()) {
+                // the identical request received its response meanwhile
+                continue;
+            }
+            coalesced.increment();
+            try {
+                return await(existing.response, deadline);
+            } catch (SocketTimeoutException e) {
+                // the identical request may have timed out sooner; try again while time is left
+                if (deadline != null && deadline.isExpired()) {
+                    throw e;
+                }
+                coalesced.decrement();
+                retried = true;
+            }
+        }
+    }
+
+    private HttpResponse lead(String key, InFlight entry, HttpRequest request) throws IOException {
+        executed.increment();
+        try {
+            HttpResponse response = delegate.execute(request);
+            inFlight.remove(key, entry);
+            if (!entry.seal()) {
+                return response;
+            }
+            BufferedHttpResponse buffered = buffer(response);
+            entry.response.complete(buffered);
+            return buffered;
+        } catch (IOException | RuntimeException | Error e) {
+            inFlight.remove(key, entry);
+            entry.seal();
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the statistics of this transport.
+     *
+     * @return the coalescing statistics
+     */
+    public CoalescingStats getStats() {
+        return new CoalescingStats(executed.sum(), coalesced.sum());
+    }
+
+    private static HttpRequest withRemainingTimeout(HttpRequest request, Deadline deadline) {
+        if (deadline == null) {
+            return request;
+        }
+        return new HttpRequest(request.getUrl(), request.getHeaders(), Math.max(1L, deadline.remainingMillis()));
+    }
+
+    private static HttpResponse await(CompletableFuture<BufferedHttpResponse> future, Deadline deadline)
+            throws IOException {
+        try {
+            return deadline != null ? future.get(deadline.remaining(), TimeUnit.NANOSECONDS) : future.get();
+        } catch (TimeoutException e) {
+            throw new SocketTimeoutException("Timed out waiting for identical in-flight request");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for identical in-flight request");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    private static BufferedHttpResponse buffer(HttpResponse response) throws IOException {
+        try {
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (String name : SHARED_HEADERS) {
+                String value = response.getHeader(name);
+                if (value != null) {
+                    headers.put(name, value);
+                }
+            }
+            return new BufferedHttpResponse(response.getStatus(), headers, readFully(response.getBody()));
+        } finally {
+            response.close();
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * An executed request, which identical requests join to wait for its response until the response is received.
+     */
+    private static final class InFlight {
+
+        private final CompletableFuture<BufferedHttpResponse> response = new CompletableFuture<>();
+        private int waiting;
+        private boolean sealed;
+
+        /**
+         * Registers a waiting request, unless the response was received already.
+         */
+        synchronized boolean join() {
+            if (sealed) {
+                return false;
+            }
+            waiting++;
+            return true;
+        }
+
+        /**
+         * Prevents further requests from joining and returns whether any request is waiting.
+         */
+        synchronized boolean seal() {
+            sealed = true;
+            return waiting > 0;
+        }
+    }
+}
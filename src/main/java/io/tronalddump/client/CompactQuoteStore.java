@@ -0,0 +1,298 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Immutable list of quotes stored in columns, taking a fraction of the heap of the same {@link Quote} instances.
+ *
+ * The ids and values are held as UTF-8 in one shared byte array, the dates as primitive longs, the tags as ints
+ * referring to a dictionary of distinct tags, and the source urls as ints referring to a dictionary of distinct urls.
+ * Each {@link #get(int)} materializes a new {@link Quote}, so the store can be passed wherever a list or collection of
+ * quotes is expected, like {@link SearchIndex} or {@link TagIndex}; keep the returned quote only as long as needed.
+ *
+ * <pre>
+ * CompactQuoteStore store = aCompactQuoteStore().addAll(quotes).build();
+ * Quote quote = store.getQuote("wAgIgzV1S9OARKhfun3f0A");
+ * </pre>
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class CompactQuoteStore extends AbstractList<Quote> implements RandomAccess {
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int NO_SOURCE_URL = -1;
+
+    private final int size;
+    private final byte[] text;
+    private final int[] textOffsets;
+    private final long[] nullValues;
+    private final long[] epochMillis;
+    private final int[] sourceUrlIds;
+    private final String[] sourceUrls;
+    private final int[] tagOffsets;
+    private final int[] tagIds;
+    private final String[] tags;
+    private final int[] idTable;
+
+    private CompactQuoteStore(CompactQuoteStoreBuilder builder) {
+        this.size = builder.size;
+        this.text = Arrays.copyOf(builder.text, builder.textLength);
+        this.textOffsets = Arrays.copyOf(builder.textOffsets, size * 2 + 1);
+        this.nullValues = Arrays.copyOf(builder.nullValues, (size + 63) >>> 6);
+        this.epochMillis = Arrays.copyOf(builder.epochMillis, size);
+        this.sourceUrlIds = Arrays.copyOf(builder.sourceUrlIds, size);
+        this.sourceUrls = builder.sourceUrls.toArray(new String[0]);
+        this.tagOffsets = Arrays.copyOf(builder.tagOffsets, size + 1);
+        this.tagIds = Arrays.copyOf(builder.tagIds, builder.tagIdCount);
+        this.tags = builder.tags.toArray(new String[0]);
+        int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+        this.idTable = new int[capacity];
+        for (int i = 0; i < size; i++) {
+            int slot = hash(text, textOffsets[i * 2], textOffsets[i * 2 + 1]) & (capacity - 1);
+            while (idTable[slot] != 0) {
+                if (equalIds(idTable[slot] - 1, i)) {
+                    break; // duplicate id; the first one is found
+                }
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (idTable[slot] == 0) {
+                idTable[slot] = i + 1;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a new quote with the contents of the quote at the given position.
+     *
+     * @param index the position
+     * @return the quote
+     */
+    @Override
+    public Quote get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Quote quote = new Quote();
+        quote.setId(string(textOffsets[index * 2], textOffsets[index * 2 + 1]));
+        if ((nullValues[index >>> 6] & (1L << index)) == 0) {
+            quote.setValue(string(textOffsets[index * 2 + 1], textOffsets[index * 2 + 2]));
+        }
+        if (sourceUrlIds[index] != NO_SOURCE_URL) {
+            quote.setSourceUrl(sourceUrls[sourceUrlIds[index]]);
+        }
+        if (epochMillis[index] != NO_DATE) {
+            quote.setDate(new Date(epochMillis[index]));
+        }
+        for (int i = tagOffsets[index]; i < tagOffsets[index + 1]; i++) {
+            quote.addTag(tags[tagIds[i]]);
+        }
+        return quote;
+    }
+
+    /**
+     * Returns a new quote with the contents of the quote with the given id.
+     *
+     * @param id the unique quote id, not null
+     * @return the quote, or {@code null} if not in the store
+     */
+    public Quote getQuote(String id) {
+        int index = indexOf(id);
+        return index >= 0 ? get(index) : null;
+    }
+
+    /**
+     * Returns the position of the quote with the given id.
+     *
+     * @param id the unique quote id, not null
+     * @return the position, or {@code -1} if not in the store
+     */
+    public int indexOf(String id) {
+        byte[] key = requireNonNull(id, "'id' must not be null").getBytes(StandardCharsets.UTF_8);
+        int slot = hash(key, 0, key.length) & (idTable.length - 1);
+        while (idTable[slot] != 0) {
+            int index = idTable[slot] - 1;
+            int start = textOffsets[index * 2];
+            int end = textOffsets[index * 2 + 1];
+            if (end - start == key.length && regionMatches(start, key)) {
+                return index;
+            }
+            slot = (slot + 1) & (idTable.length - 1);
+        }
+        return -1;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Quote) || ((Quote) o).getId() == null) {
+            return -1;
+        }
+        int index = indexOf(((Quote) o).getId());
+        return index >= 0 && get(index).equals(o) ? index : super.indexOf(o);
+    }
+
+    /**
+     * Returns the distinct tags of the quotes.
+     *
+     * @return the unmodifiable list of tags
+     */
+    public List<String> getTags() {
+        return Collections.unmodifiableList(Arrays.asList(tags));
+    }
+
+    private String string(int start, int end) {
+        return new String(text, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private boolean regionMatches(int start, byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            if (text[start + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean equalIds(int a, int b) {
+        int start = textOffsets[b * 2];
+        int length = textOffsets[b * 2 + 1] - start;
+        return textOffsets[a * 2 + 1] - textOffsets[a * 2] == length
+                && regionMatches(textOffsets[a * 2], Arrays.copyOfRange(text, start, start + length));
+    }
+
+    private static int hash(byte[] bytes, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    public static final class CompactQuoteStoreBuilder {
+
+        private int size;
+        private byte[] text = new byte[1024];
+        private int textLength;
+        private int[] textOffsets = new int[33];
+        private long[] nullValues = new long[1];
+        private long[] epochMillis = new long[16];
+        private int[] sourceUrlIds = new int[16];
+        private final List<String> sourceUrls = new ArrayList<>();
+        private final Map<String, Integer> sourceUrlIndexes = new HashMap<>();
+        private int[] tagOffsets = new int[17];
+        private int[] tagIds = new int[16];
+        private int tagIdCount;
+        private final List<String> tags = new ArrayList<>();
+        private final Map<String, Integer> tagIndexes = new HashMap<>();
+
+        private CompactQuoteStoreBuilder() {
+        }
+
+        public static CompactQuoteStoreBuilder aCompactQuoteStore() {
+            return new CompactQuoteStoreBuilder();
+        }
+
+        /**
+         * Adds the given quote; only its contents are kept, not the instance.
+         */
+        public CompactQuoteStoreBuilder add(Quote quote) {
+            requireNonNull(quote, "'quote' must not be null");
+            requireNonNull(quote.getId(), "'id' of quote must not be null");
+            if (size == epochMillis.length) {
+                int capacity = size * 2;
+                textOffsets = Arrays.copyOf(textOffsets, capacity * 2 + 1);
+                nullValues = Arrays.copyOf(nullValues, (capacity + 63) >>> 6);
+                epochMillis = Arrays.copyOf(epochMillis, capacity);
+                sourceUrlIds = Arrays.copyOf(sourceUrlIds, capacity);
+                tagOffsets = Arrays.copyOf(tagOffsets, capacity + 1);
+            }
+            appendText(quote.getId());
+            textOffsets[size * 2 + 1] = textLength;
+            if (quote.getValue() != null) {
+                appendText(quote.getValue());
+            } else {
+                nullValues[size >>> 6] |= 1L << size;
+            }
+            textOffsets[size * 2 + 2] = textLength;
+            epochMillis[size] = quote.getDate() != null ? quote.getDate().getTime() : NO_DATE;
+            sourceUrlIds[size] = quote.getSourceUrl() != null
+                    ? intern(quote.getSourceUrl(), sourceUrls, sourceUrlIndexes) : NO_SOURCE_URL;
+            List<String> quoteTags = quote.getTags() != null ? quote.getTags() : Collections.<String>emptyList();
+            if (tagIdCount + quoteTags.size() > tagIds.length) {
+                tagIds = Arrays.copyOf(tagIds, Math.max(tagIds.length * 2, tagIdCount + quoteTags.size()));
+            }
+            for (String tag : quoteTags) {
+                tagIds[tagIdCount++] = intern(tag, tags, tagIndexes);
+            }
+            tagOffsets[size + 1] = tagIdCount;
+            size++;
+            return this;
+        }
+
+        /**
+         * Adds the given quotes; only their contents are kept, not the instances.
+         */
+        public CompactQuoteStoreBuilder addAll(Iterable<Quote> quotes) {
+            for (Quote quote : requireNonNull(quotes, "'quotes' must not be null")) {
+                add(quote);
+            }
+            return this;
+        }
+
+        public CompactQuoteStore build() {
+            CompactQuoteStore store = new CompactQuoteStore(this);
+            return store;
+        }
+
+        private void appendText(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (textLength + bytes.length > text.length) {
+                text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + bytes.length));
+            }
+            System.arraycopy(bytes, 0, text, textLength, bytes.length);
+            textLength += bytes.length;
+        }
+
+        private static int intern(String value, List<String> values, Map<String, Integer> indexes) {
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = values.size();
+                values.add(value);
+                indexes.put(value, index);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.Serializable;
+
+/**
+ * Point-in-time statistics of a {@link CompressionTransport}.
+ *
+ * The byte counts are the bytes read from the response bodies: the compressed bytes as received, the uncompressed
+ * bytes as decoded. Bodies without content encoding count the same in both.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class CompressionStats implements Serializable {
+
+    private static final long serialVersionUID = -3170544245731867317L;
+
+    private long responseCount;
+    private long compressedResponseCount;
+    private long compressedBytes;
+    private long uncompressedBytes;
+
+    /**
+     * Creates a new {@code CompressionStats} with the given counts.
+     *
+     * @param responseCount the number of responses
+     * @param compressedResponseCount the number of responses with a gzip or deflate encoded body
+     * @param compressedBytes the number of body bytes read as received
+     * @param uncompressedBytes the number of body bytes read after decoding
+     */
+    public CompressionStats(long responseCount, long compressedResponseCount, long compressedBytes,
+            long uncompressedBytes) {
+        this.responseCount = responseCount;
+        this.compressedResponseCount = compressedResponseCount;
+        this.compressedBytes = compressedBytes;
+        this.uncompressedBytes = uncompressedBytes;
+    }
+
+    /**
+     * Returns the number of responses.
+     *
+     * @return the response count
+     */
+    public long getResponseCount() {
+        return responseCount;
+    }
+
+    /**
+     * Returns the number of responses with a gzip or deflate encoded body.
+     *
+     * @return the compressed response count
+     */
+    public long getCompressedResponseCount() {
+        return compressedResponseCount;
+    }
+
+    /**
+     * Returns the number of body bytes read as received.
+     *
+     * @return the compressed bytes
+     */
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    /**
+     * Returns the number of body bytes read after decoding.
+     *
+     * @return the uncompressed bytes
+     */
+    public long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    /**
+     * Returns the ratio of uncompressed to compressed bytes, or {@code 1.0} if no bytes were read.
+     *
+     * @return the compression ratio
+     */
+    public double getCompressionRatio() {
+        return compressedBytes == 0 ? 1.0 : (double) uncompressedBytes / compressedBytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CompressionStats other = (CompressionStats) o;
+        if (responseCount != other.responseCount) {
+            return false;
+        }
+        if (compressedResponseCount != other.compressedResponseCount) {
+            return false;
+        }
+        if (compressedBytes != other.compressedBytes) {
+            return false;
+        }
+        return uncompressedBytes == other.uncompressedBytes;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (responseCount ^ (responseCount >>> 32));
+        result = 31 * result + (int) (compressedResponseCount ^ (compressedResponseCount >>> 32));
+        result = 31 * result + (int) (compressedBytes ^ (compressedBytes >>> 32));
+        result = 31 * result + (int) (uncompressedBytes ^ (uncompressedBytes >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionStats{" +
+                "responseCount=" + responseCount +
+                ", compressedResponseCount=" + compressedResponseCount +
+                ", compressedBytes=" + compressedBytes +
+                ", uncompressedBytes=" + uncompressedBytes +
+                '}';
+    }
+}
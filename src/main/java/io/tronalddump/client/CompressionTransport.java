@@ -0,0 +1,238 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link HttpTransport} decorator requesting compressed responses with {@code Accept-Encoding: gzip, deflate} and
+ * decompressing gzip and deflate encoded bodies while they are read, so they stream straight into the decoder
+ * without being buffered.
+ *
+ * The {@code Content-Encoding} header of a decompressed response is removed; bodies with another content encoding are
+ * passed through unchanged. An {@code Accept-Encoding} header of the request is kept. A {@link CachingTransport} or
+ * {@link CoalescingTransport} should decorate this transport rather than the other way around: they key responses
+ * by url only, so they must hold the decompressed bodies to serve requests with and without
+ * {@code Accept-Encoding} alike.
+ *
+ * @author Marcel Overdijk
+ * @see TronaldClient.TronaldClientBuilder#withCompression(boolean)
+ * @since 1.1.0
+ */
+public class CompressionTransport implements HttpTransport {
+
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private final HttpTransport delegate;
+    private final LongAdder responses = new LongAdder();
+    private final LongAdder compressedResponses = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder uncompressedBytes = new LongAdder();
+
+    /**
+     * Creates a new {@code CompressionTransport}.
+     *
+     * @param delegate the transport executing the requests, not null
+     */
+    public CompressionTransport(HttpTransport delegate) {
+        this.delegate = requireNonNull(delegate, "'delegate' must not be null");
+    }
+
+    /**
+     * Returns the transport executing the requests.
+     *
+     * @return the delegate transport
+     */
+    public HttpTransport getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>(request.getHeaders());
+        headers.putIfAbsent("Accept-Encoding", ACCEPT_ENCODING);
+        HttpResponse response = delegate.execute(new HttpRequest(request.getUrl(), headers, request.getTimeout()));
+        responses.increment();
+        String encoding = response.getHeader("Content-Encoding");
+        if (encoding != null) {
+            encoding = encoding.trim().toLowerCase(Locale.ROOT);
+            if (encoding.equals("gzip") || encoding.equals("x-gzip") || encoding.equals("deflate")) {
+                compressedResponses.increment();
+                return new DecompressingResponse(response, encoding);
+            }
+        }
+        return new DecompressingResponse(response, null);
+    }
+
+    /**
+     * Returns the statistics of this transport.
+     *
+     * @return the compression statistics
+     */
+    public CompressionStats getStats() {
+        return new CompressionStats(responses.sum(), compressedResponses.sum(), compressedBytes.sum(),
+                uncompressedBytes.sum());
+    }
+
+    private final class DecompressingResponse implements HttpResponse {
+
+        private final HttpResponse response;
+        private final String encoding;
+        private InputStream body;
+        private InputStream decoded;
+        private Inflater inflater;
+
+        private DecompressingResponse(HttpResponse response, String encoding) {
+            this.response = response;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public int getStatus() throws IOException {
+            return response.getStatus();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (encoding != null && name.equalsIgnoreCase("Content-Encoding")) {
+                return null;
+            }
+            return response.getHeader(name);
+        }
+
+        @Override
+        public synchronized InputStream getBody() throws IOException {
+            if (body == null) {
+                InputStream raw = new CountingInputStream(response.getBody(), compressedBytes, encoding == null);
+                if (encoding == null) {
+                    body = new CountingInputStream(raw, uncompressedBytes, true);
+                } else {
+                    decoded = inflate(raw);
+                    body = new CountingInputStream(decoded, uncompressedBytes, true);
+                }
+            }
+            return body;
+        }
+
+        private InputStream inflate(InputStream raw) throws IOException {
+            if (!encoding.equals("deflate")) {
+                return new GZIPInputStream(raw);
+            }
+            // deflate should be zlib wrapped, but some servers send raw deflate data
+            PushbackInputStream in = new PushbackInputStream(raw, 2);
+            byte[] header = new byte[2];
+            int n = 0;
+            while (n < 2) {
+                int read = in.read(header, n, 2 - n);
+                if (read < 0) {
+                    break;
+                }
+                n += read;
+            }
+            in.unread(header, 0, n);
+            int cmf = header[0] & 0xff;
+            int flg = header[1] & 0xff;
+            boolean zlib = n == 2 && (cmf & 0x0f) == 8 && (cmf << 8 | flg) % 31 == 0;
+            inflater = new Inflater(!zlib);
+            return new InflaterInputStream(in, inflater);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                synchronized (this) {
+                    // the raw body is not closed by the decoded body, but drained and closed by the response
+                    if (decoded != null) {
+                        decoded.close();
+                    }
+                    if (inflater != null) {
+                        inflater.end();
+                    }
+                }
+            } finally {
+                response.close();
+            }
+        }
+
+        @Override
+        public void abort() {
+            // the inflater may be in use by the reading thread, and is released when that closes the response
+            response.abort();
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final LongAdder count;
+        private final boolean closeable;
+
+        private CountingInputStream(InputStream in, LongAdder count, boolean closeable) {
+            super(in);
+            this.count = count;
+            this.closeable = closeable;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                count.increment();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                count.add(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count.add(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closeable) {
+                in.close();
+            }
+        }
+    }
+}
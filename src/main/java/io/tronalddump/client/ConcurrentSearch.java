@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Retrieves all pages of a search by requesting the first page and then, using its total, all remaining pages
+ * concurrently with at most {@code parallelism} requests in flight; the quotes are reassembled in page order.
+ *
+ * Each completed page request starts the next one, so no thread waits for a permit. Page requests completing while
+ * being started, like cached or coalesced responses, are trampolined, so the stack does not grow with them. The first
+ * failure completes the result exceptionally and stops starting new requests.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+final class ConcurrentSearch {
+
+    private final TronaldClient client;
+    private final String query;
+    private final int size;
+    private final int parallelism;
+    private final CompletableFuture<List<Quote>> result = new CompletableFuture<>();
+    private final AtomicInteger nextPage = new AtomicInteger(2);
+    private final AtomicInteger requests = new AtomicInteger();
+    private AtomicReferenceArray<Page<Quote>> pages;
+    private AtomicInteger remaining;
+
+    ConcurrentSearch(TronaldClient client, String query, int size, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("'parallelism' must not be less than 1");
+        }
+        this.client = client;
+        this.query = query;
+        this.size = size;
+        this.parallelism = parallelism;
+    }
+
+    CompletableFuture<List<Quote>> execute() {
+        search(1).whenComplete((first, e) -> {
+            try {
+                if (e != null) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+                int totalPages = first.getTotalPages();
+                pages = new AtomicReferenceArray<>(totalPages);
+                pages.set(0, first);
+                remaining = new AtomicInteger(totalPages - 1);
+                if (totalPages == 1) {
+                    complete();
+                    return;
+                }
+                for (int i = 0; i < Math.min(parallelism, totalPages - 1); i++) {
+                    requestNext();
+                }
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Starts the next page request, or has the thread already starting page requests start it, which is the case when
+     * the page request completing before started the next one from its completion callback.
+     */
+    private void requestNext() {
+        if (requests.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            int number = nextPage.getAndIncrement();
+            if (number <= pages.length() && !result.isDone()) {
+                request(number);
+            }
+        } while (requests.decrementAndGet() != 0);
+    }
+
+    private void request(int number) {
+        search(number).whenComplete((page, e) -> {
+            try {
+                if (e != null) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+                pages.set(number - 1, page);
+                if (remaining.decrementAndGet() == 0) {
+                    complete();
+                } else {
+                    requestNext();
+                }
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+    }
+
+    private CompletableFuture<Page<Quote>> search(int number) {
+        try {
+            return client.searchAsync(query, new Pageable(number, size));
+        } catch (Throwable e) {
+            CompletableFuture<Page<Quote>> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    private void complete() {
+        List<Quote> quotes = new ArrayList<>();
+        for (int i = 0; i < pages.length(); i++) {
+            quotes.addAll(pages.get(i).getContent());
+        }
+        result.complete(quotes);
+    }
+}
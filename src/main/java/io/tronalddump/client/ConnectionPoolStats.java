@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.Serializable;
+
+/**
+ * Point-in-time statistics of the connections of a {@link UrlConnectionTransport}.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class ConnectionPoolStats implements Serializable {
+
+    private static final long serialVersionUID = -3117842962170357211L;
+
+    private int active;
+    private int idle;
+    private long created;
+    private long reused;
+
+    /**
+     * Creates a new {@code ConnectionPoolStats} with the given counts.
+     *
+     * @param active the number of connections currently in use
+     * @param idle the number of connections currently kept alive for reuse
+     * @param created the total number of connections created
+     * @param reused the total number of times a kept alive connection was reused
+     */
+    public ConnectionPoolStats(int active, int idle, long created, long reused) {
+        this.active = active;
+        this.idle = idle;
+        this.created = created;
+        this.reused = reused;
+    }
+
+    /**
+     * Returns the number of connections currently in use.
+     *
+     * @return the number of active connections
+     */
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * Returns the number of connections currently kept alive for reuse.
+     *
+     * @return the number of idle connections
+     */
+    public int getIdle() {
+        return idle;
+    }
+
+    /**
+     * Returns the total number of connections created.
+     *
+     * @return the number of created connections
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * Returns the total number of times a kept alive connection was reused.
+     *
+     * @return the number of reused connections
+     */
+    public long getReused() {
+        return reused;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ConnectionPoolStats other = (ConnectionPoolStats) o;
+        if (active != other.active) {
+            return false;
+        }
+        if (idle != other.idle) {
+            return false;
+        }
+        if (created != other.created) {
+            return false;
+        }
+        return reused == other.reused;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = active;
+        result = 31 * result + idle;
+        result = 31 * result + (int) (created ^ (created >>> 32));
+        result = 31 * result + (int) (reused ^ (reused >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolStats{" +
+                "active=" + active +
+                ", idle=" + idle +
+                ", created=" + created +
+                ", reused=" + reused +
+                '}';
+    }
+}
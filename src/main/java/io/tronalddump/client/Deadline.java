@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time by which a call of the {@link TronaldClient} must complete, measured with {@link System#nanoTime()}.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+final class Deadline {
+
+    private final long expiresAt;
+
+    private Deadline(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Returns the deadline the given nanoseconds from now.
+     */
+    static Deadline after(long nanos) {
+        return new Deadline(System.nanoTime() + nanos);
+    }
+
+    /**
+     * Returns the nanoseconds until the deadline; zero or negative once it has passed.
+     */
+    long remaining() {
+        return expiresAt - System.nanoTime();
+    }
+
+    /**
+     * Returns the milliseconds until the deadline rounded up, so a timeout of this length does not elapse before the
+     * deadline; zero or negative once it has passed.
+     */
+    long remainingMillis() {
+        long remaining = remaining();
+        return remaining <= 0 ? 0 : (remaining + 999_999) / 1_000_000;
+    }
+
+    boolean isExpired() {
+        return remaining() <= 0;
+    }
+
+    /**
+     * Runs the given action on a background thread when the deadline passes, unless the returned future is cancelled
+     * first.
+     */
+    ScheduledFuture<?> onExpiry(Runnable action) {
+        return SchedulerHolder.SCHEDULER.schedule(action, Math.max(0L, remaining()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Lazily creates the scheduler of the expiry actions, shared by all clients.
+     */
+    private static final class SchedulerHolder {
+
+        private static final ScheduledExecutorService SCHEDULER = createScheduler();
+
+        private static ScheduledExecutorService createScheduler() {
+            ScheduledThreadPoolExecutor scheduler =
+                    new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("tronald-client-deadline"));
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+/**
+ * Endpoints of the Tronald Dump api called by the {@link TronaldClient}.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public enum Endpoint {
+
+    /**
+     * {@code /tags}, called by {@link TronaldClient#getTags()}.
+     */
+    TAGS("/tags"),
+
+    /**
+     * {@code /quote/{id}}, called by {@link TronaldClient#getQuote(String)}.
+     */
+    QUOTE("/quote"),
+
+    /**
+     * {@code /random/quote}, called by {@link TronaldClient#getRandomQuote(String)}.
+     */
+    RANDOM_QUOTE("/random/quote"),
+
+    /**
+     * {@code /search/quote}, called by {@link TronaldClient#search(String, Pageable)}.
+     */
+    SEARCH("/search/quote");
+
+    private final String path;
+
+    Endpoint(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Returns the path of the endpoint, relative to the base url and without path variables or query string.
+     *
+     * @return the path
+     */
+    public String getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import io.tronalddump.client.ClientMetrics.Outcome;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Point-in-time statistics of the calls of one {@link Endpoint}, as recorded by the {@link ClientMetrics}.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class EndpointStats implements Serializable {
+
+    private static final long serialVersionUID = 7413925023169824410L;
+
+    private Endpoint endpoint;
+    private long uptime;
+    private Map<Outcome, LatencyStats> latencies;
+    private Map<Integer, Long> statusCounts;
+
+    /**
+     * Creates a new {@code EndpointStats} with the given statistics.
+     *
+     * @param endpoint the endpoint, not null
+     * @param uptime the nanoseconds the statistics were recorded for
+     * @param latencies the latencies by outcome, not null
+     * @param statusCounts the number of failed calls by http status, not null
+     */
+    EndpointStats(Endpoint endpoint, long uptime, Map<Outcome, LatencyStats> latencies,
+                  Map<Integer, Long> statusCounts) {
+        this.endpoint = requireNonNull(endpoint, "'endpoint' must not be null");
+        this.uptime = uptime;
+        this.latencies = new EnumMap<>(Outcome.class);
+        for (Outcome outcome : Outcome.values()) {
+            LatencyStats latency = latencies.get(outcome);
+            this.latencies.put(outcome, latency != null ? latency : LatencyStats.EMPTY);
+        }
+        this.statusCounts = new TreeMap<>(statusCounts);
+    }
+
+    /**
+     * Returns the endpoint.
+     *
+     * @return the endpoint
+     */
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Returns the number of calls.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return getLatency().getCount();
+    }
+
+    /**
+     * Returns the number of calls with the given outcome.
+     *
+     * @param outcome the outcome, not null
+     * @return the count
+     */
+    public long getCount(Outcome outcome) {
+        return getLatency(outcome).getCount();
+    }
+
+    /**
+     * Returns the ratio of calls not succeeding, or {@code 0.0} if there were no calls.
+     *
+     * @return the error rate
+     */
+    public double getErrorRate() {
+        long count = getCount();
+        return count == 0L ? 0.0 : (double) (count - getCount(Outcome.SUCCESS)) / count;
+    }
+
+    /**
+     * Returns the average number of calls per second since the metrics were created.
+     *
+     * @return the throughput in calls per second
+     */
+    public double getThroughput() {
+        return uptime <= 0L ? 0.0 : getCount() * 1e9 / uptime;
+    }
+
+    /**
+     * Returns the latencies of all calls.
+     *
+     * @return the latencies
+     */
+    public LatencyStats getLatency() {
+        LatencyStats latency = LatencyStats.EMPTY;
+        for (LatencyStats outcomeLatency : latencies.values()) {
+            latency = latency.merge(outcomeLatency);
+        }
+        return latency;
+    }
+
+    /**
+     * Returns the latencies of the calls with the given outcome.
+     *
+     * @param outcome the outcome, not null
+     * @return the latencies
+     */
+    public LatencyStats getLatency(Outcome outcome) {
+        return latencies.get(requireNonNull(outcome, "'outcome' must not be null"));
+    }
+
+    /**
+     * Returns the number of calls failed with a {@link TronaldHttpException}, by http status.
+     *
+     * @return the counts by http status, ordered by status
+     */
+    public Map<Integer, Long> getStatusCounts() {
+        return Collections.unmodifiableMap(statusCounts);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        EndpointStats other = (EndpointStats) o;
+        if (endpoint != other.endpoint) {
+            return false;
+        }
+        if (uptime != other.uptime) {
+            return false;
+        }
+        if (!latencies.equals(other.latencies)) {
+            return false;
+        }
+        return statusCounts.equals(other.statusCounts);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = endpoint.hashCode();
+        result = 31 * result + (int) (uptime ^ (uptime >>> 32));
+        result = 31 * result + latencies.hashCode();
+        result = 31 * result + statusCounts.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointStats{" +
+                "endpoint=" + endpoint +
+                ", count=" + getCount() +
+                ", throughput=" + getThroughput() +
+                ", errorRate=" + getErrorRate() +
+                ", latency=" + getLatency() +
+                ", statusCounts=" + statusCounts +
+                '}';
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+/**
+ * The interfaces of a reactive stream with non-blocking backpressure, mirroring {@code java.util.concurrent.Flow} of
+ * Java 9 and the Reactive Streams specification, which the client can implement while supporting Java 8. They have the
+ * same methods and contract, so adapting them to either takes a one-line delegate per method.
+ *
+ * @author Marcel Overdijk
+ * @see TronaldClient#searchPublisher(String, Pageable, int)
+ * @since 1.1.0
+ */
+public final class Flow {
+
+    private Flow() {
+    }
+
+    /**
+     * A producer of items received by subscribers as they request them.
+     *
+     * @param <T> the item type
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+
+        /**
+         * Adds the given subscriber, which receives {@link Subscriber#onSubscribe(Subscription)} first.
+         *
+         * @param subscriber the subscriber, not null
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of items, signalled in order and never concurrently: {@code onSubscribe}, followed by at most the
+     * requested number of {@code onNext}, optionally followed by either {@code onError} or {@code onComplete}.
+     *
+     * @param <T> the item type
+     */
+    public interface Subscriber<T> {
+
+        /**
+         * Invoked before any other method, with the subscription to request items or cancel.
+         *
+         * @param subscription the subscription
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Invoked with the next item.
+         *
+         * @param item the item
+         */
+        void onNext(T item);
+
+        /**
+         * Invoked when the publisher failed; no other methods are invoked afterwards.
+         *
+         * @param throwable the failure
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Invoked when there are no more items; no other methods are invoked afterwards.
+         */
+        void onComplete();
+    }
+
+    /**
+     * The link between a publisher and a subscriber, used by the subscriber to signal demand or to cancel.
+     */
+    public interface Subscription {
+
+        /**
+         * Adds the given number of items to the demand; a non-positive number fails the subscription with an
+         * {@link IllegalArgumentException}.
+         *
+         * @param n the number of items, {@link Long#MAX_VALUE} for unbounded demand
+         */
+        void request(long n);
+
+        /**
+         * Stops the subscriber from receiving further items, possibly after some already in progress.
+         */
+        void cancel();
+    }
+}
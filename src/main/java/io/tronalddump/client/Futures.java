@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Helpers for the {@link CompletableFuture}s of the asynchronous client methods.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Waits for the given future and returns its result, rethrowing a failure as the {@link TronaldException} it
+     * completed with.
+     */
+    static <T> T join(CompletableFuture<T> future) throws TronaldException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TronaldException) {
+                throw (TronaldException) e.getCause();
+            }
+            throw new TronaldException("Error executing asynchronous request", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The class representing a {@code GET} request executed by a {@link HttpTransport}.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class HttpRequest implements Serializable {
+
+    private static final long serialVersionUID = 4862518309712564395L;
+
+    private String url;
+    private Map<String, String> headers;
+    private long timeout;
+
+    /**
+     * Creates a new {@code HttpRequest} with the given url and headers, without timeout of its own.
+     *
+     * @param url the absolute url, not null
+     * @param headers the request headers, not null
+     */
+    public HttpRequest(String url, Map<String, String> headers) {
+        this(url, headers, 0);
+    }
+
+    /**
+     * Creates a new {@code HttpRequest} with the given url, headers and timeout.
+     *
+     * @param url the absolute url, not null
+     * @param headers the request headers, not null
+     * @param timeout the maximum milliseconds to connect and to wait for the response, or {@code 0} for the timeouts
+     * of the transport only
+     * @since 1.1.0
+     */
+    public HttpRequest(String url, Map<String, String> headers, long timeout) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("'timeout' must not be less than 0");
+        }
+        this.url = requireNonNull(url, "'url' must not be null");
+        this.headers = new LinkedHashMap<>(requireNonNull(headers, "'headers' must not be null"));
+        this.timeout = timeout;
+    }
+
+    /**
+     * Returns the absolute url.
+     *
+     * @return the url
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the request headers.
+     *
+     * @return the headers, not null
+     */
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * Returns the maximum milliseconds to connect and to wait for the response, in addition to the timeouts of the
+     * transport; typically the time left until the deadline of the call.
+     *
+     * @return the timeout in milliseconds, or {@code 0} if the request has no timeout of its own
+     * @since 1.1.0
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HttpRequest other = (HttpRequest) o;
+        if (timeout != other.timeout) {
+            return false;
+        }
+        if (!url.equals(other.url)) {
+            return false;
+        }
+        return headers.equals(other.headers);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = url.hashCode();
+        result = 31 * result + headers.hashCode();
+        result = 31 * result + (int) (timeout ^ (timeout >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpRequest{" +
+                "url='" + url + '\'' +
+                ", headers=" + headers +
+                ", timeout=" + timeout +
+                '}';
+    }
+}
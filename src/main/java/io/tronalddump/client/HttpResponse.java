@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The response of a request executed by a {@link HttpTransport}.
+ *
+ * Closing the response drains and closes the body, which releases the connection for reuse.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public interface HttpResponse extends Closeable {
+
+    /**
+     * Returns the http status code.
+     *
+     * @return the http status code
+     * @throws IOException in case of an i/o error
+     */
+    int getStatus() throws IOException;
+
+    /**
+     * Returns the value of the given response header.
+     *
+     * @param name the header name, not null
+     * @return the header value, or {@code null} if the header is not present
+     */
+    String getHeader(String name);
+
+    /**
+     * Returns the response body, for successful as well as error responses.
+     *
+     * @return the response body, never null
+     * @throws IOException in case of an i/o error
+     */
+    InputStream getBody() throws IOException;
+
+    /**
+     * Aborts the response, possibly from another thread while its body is being read: releases it without reading
+     * the remainder of the body, making pending and further reads of the body fail. By default it is closed, which
+     * suits responses buffered in memory; implementations backed by a connection should close the connection.
+     *
+     * @since 1.1.0
+     */
+    default void abort() {
+        try {
+            close();
+        } catch (IOException ignore) {
+            // aborting is best effort
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.IOException;
+
+/**
+ * Strategy interface for executing the http requests of the {@link TronaldClient}.
+ *
+ * Implementations must be thread-safe. The {@link HttpResponse} returned is owned by the caller, who must close it
+ * so the underlying connection can be released or reused.
+ *
+ * @author Marcel Overdijk
+ * @see UrlConnectionTransport
+ * @since 1.1.0
+ */
+public interface HttpTransport {
+
+    /**
+     * Executes the given {@code GET} request.
+     *
+     * @param request the request, not null
+     * @return the response, never null
+     * @throws IOException in case of an i/o error
+     */
+    HttpResponse execute(HttpRequest request) throws IOException;
+}
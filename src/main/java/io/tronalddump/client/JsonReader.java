@@ -0,0 +1,453 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal pull-based JSON reader, reading tokens straight off a stream without building an intermediate tree.
+ *
+ * Modelled after Gson's {@code JsonReader}: values are consumed in document order with {@link #beginObject()},
+ * {@link #nextName()}, {@link #nextString()}, {@link #skipValue()}, etc. Not thread-safe.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+final class JsonReader implements Closeable {
+
+    enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private final Reader in;
+    private final char[] buffer = new char[4096];
+    private int pos;
+    private int limit;
+    private final StringBuilder sb = new StringBuilder();
+
+    private int[] stack = new int[16];
+    private int stackSize;
+    private Token peeked;
+
+    /**
+     * Creates a new {@code JsonReader} reading UTF-8 encoded JSON from the given stream.
+     */
+    JsonReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a new {@code JsonReader} reading JSON from the given reader.
+     */
+    JsonReader(Reader in) {
+        this.in = in;
+        push(EMPTY_DOCUMENT);
+    }
+
+    /**
+     * Returns the type of the next token without consuming it.
+     */
+    Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+        int c;
+        switch (stack[stackSize - 1]) {
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                return peeked = peekValue(nextNonWhitespace());
+            case NONEMPTY_DOCUMENT:
+                c = nextNonWhitespace();
+                if (c != -1) {
+                    throw syntaxError("Expected end of document");
+                }
+                return peeked = Token.END_DOCUMENT;
+            case EMPTY_ARRAY:
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                return peeked = c == ']' ? Token.END_ARRAY : peekValue(c);
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return peeked = Token.END_ARRAY;
+                }
+                if (c != ',') {
+                    throw syntaxError("Expected ',' or ']'");
+                }
+                return peeked = peekValue(nextNonWhitespace());
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}') {
+                    return peeked = Token.END_OBJECT;
+                }
+                if (stack[stackSize - 1] == NONEMPTY_OBJECT) {
+                    if (c != ',') {
+                        throw syntaxError("Expected ',' or '}'");
+                    }
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') {
+                    throw syntaxError("Expected name");
+                }
+                stack[stackSize - 1] = DANGLING_NAME;
+                return peeked = Token.NAME;
+            case DANGLING_NAME:
+                if (nextNonWhitespace() != ':') {
+                    throw syntaxError("Expected ':'");
+                }
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                return peeked = peekValue(nextNonWhitespace());
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Returns whether the current array or object has another element.
+     */
+    boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        stackSize--;
+    }
+
+    void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        stackSize--;
+    }
+
+    String nextName() throws IOException {
+        expect(Token.NAME);
+        return readString();
+    }
+
+    /**
+     * Returns the next string or number value as string, or {@code null} for a {@code null} value.
+     */
+    String nextString() throws IOException {
+        Token token = peek();
+        peeked = null;
+        switch (token) {
+            case STRING:
+                return readString();
+            case NUMBER:
+                return readNumber();
+            case NULL:
+                readLiteral("null");
+                return null;
+            default:
+                throw syntaxError("Expected string but was " + token);
+        }
+    }
+
+    /**
+     * Returns the next number value as {@code long}, truncating fractions.
+     */
+    long nextLong() throws IOException {
+        String value = nextString();
+        if (value == null) {
+            throw syntaxError("Expected number but was null");
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            try {
+                return (long) Double.parseDouble(value);
+            } catch (NumberFormatException e2) {
+                throw syntaxError("Expected number but was '" + value + "'");
+            }
+        }
+    }
+
+    int nextInt() throws IOException {
+        return (int) nextLong();
+    }
+
+    boolean nextBoolean() throws IOException {
+        Token token = peek();
+        if (token != Token.BOOLEAN) {
+            throw syntaxError("Expected boolean but was " + token);
+        }
+        peeked = null;
+        if (buffer[pos] == 't') {
+            readLiteral("true");
+            return true;
+        }
+        readLiteral("false");
+        return false;
+    }
+
+    /**
+     * Consumes the next value, including all nested values of arrays and objects.
+     */
+    void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            Token token = peek();
+            peeked = null;
+            switch (token) {
+                case BEGIN_OBJECT:
+                    push(EMPTY_OBJECT);
+                    depth++;
+                    break;
+                case BEGIN_ARRAY:
+                    push(EMPTY_ARRAY);
+                    depth++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    stackSize--;
+                    depth--;
+                    break;
+                case NAME:
+                    skipString();
+                    break;
+                case STRING:
+                    skipString();
+                    break;
+                case NUMBER:
+                    readNumber();
+                    break;
+                case BOOLEAN:
+                    readLiteral(buffer[pos] == 't' ? "true" : "false");
+                    break;
+                case NULL:
+                    readLiteral("null");
+                    break;
+                default:
+                    throw syntaxError("Unexpected " + token);
+            }
+        } while (depth > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void expect(Token expected) throws IOException {
+        Token token = peek();
+        if (token != expected) {
+            throw syntaxError("Expected " + expected + " but was " + token);
+        }
+        peeked = null;
+    }
+
+    private void push(int context) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = context;
+    }
+
+    /**
+     * Determines the value token starting with the given character. The character is left in the buffer, except for
+     * the opening quote of a string and the opening bracket of an array or object.
+     */
+    private Token peekValue(int c) throws IOException {
+        switch (c) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                pos--;
+                return Token.BOOLEAN;
+            case 'n':
+                pos--;
+                return Token.NULL;
+            case -1:
+                throw syntaxError("Unexpected end of input");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    pos--;
+                    return Token.NUMBER;
+                }
+                throw syntaxError("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    /**
+     * Reads the remainder of a string whose opening quote has been consumed. Strings without escapes that fit in the
+     * buffer are created straight from it.
+     */
+    private String readString() throws IOException {
+        for (int i = pos; i < limit; i++) {
+            char c = buffer[i];
+            if (c == '"') {
+                String s = new String(buffer, pos, i - pos);
+                pos = i + 1;
+                return s;
+            }
+            if (c == '\\') {
+                break;
+            }
+        }
+        sb.setLength(0);
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw syntaxError("Unterminated string");
+            }
+            char c = buffer[pos++];
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c == '\\') {
+                sb.append(readEscape());
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw syntaxError("Unterminated string");
+            }
+            char c = buffer[pos++];
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                readEscape();
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        if (pos == limit && !fill()) {
+            throw syntaxError("Unterminated escape sequence");
+        }
+        char c = buffer[pos++];
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    if (pos == limit && !fill()) {
+                        throw syntaxError("Unterminated escape sequence");
+                    }
+                    int digit = Character.digit(buffer[pos++], 16);
+                    if (digit == -1) {
+                        throw syntaxError("Invalid unicode escape sequence");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default:
+                return c; // '"', '\\' and '/'
+        }
+    }
+
+    private String readNumber() throws IOException {
+        sb.setLength(0);
+        while (pos < limit || fill()) {
+            char c = buffer[pos];
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                sb.append(c);
+                pos++;
+            } else {
+                break;
+            }
+        }
+        return sb.toString();
+    }
+
+    private void readLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if ((pos == limit && !fill()) || buffer[pos++] != literal.charAt(i)) {
+                throw syntaxError("Expected '" + literal + "'");
+            }
+        }
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        while (pos < limit || fill()) {
+            char c = buffer[pos++];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Refills the buffer, keeping the unread characters; returns whether characters are available.
+     */
+    private boolean fill() throws IOException {
+        if (pos < limit) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+        }
+        limit -= pos;
+        pos = 0;
+        int n;
+        while ((n = in.read(buffer, limit, buffer.length - limit)) == 0) {
+            // read until at least one character is available or the end is reached
+        }
+        if (n == -1) {
+            return limit > 0;
+        }
+        limit += n;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed JSON: " + message);
+    }
+}
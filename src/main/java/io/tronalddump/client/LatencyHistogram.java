@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds, with a relative precision of about 3% from 1 nanosecond up to
+ * {@link #MAX_VALUE}.
+ *
+ * The values are counted in buckets of exponentially growing width: values below {@code 2 * SUB_BUCKET_COUNT} have
+ * a bucket of their own, and each following power of 2 is split into {@link #SUB_BUCKET_COUNT} buckets of equal
+ * width. Recording a value is a single atomic increment of its bucket, so it is cheap enough for every request and
+ * does not block concurrent recorders. Larger values are counted as {@code MAX_VALUE}.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+class LatencyHistogram {
+
+    /**
+     * The largest distinguishable value, in nanoseconds.
+     */
+    static final long MAX_VALUE = TimeUnit.HOURS.toNanos(1);
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT << 1;
+
+    static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * Records the given latency.
+     *
+     * @param nanos the latency in nanoseconds; negative values are recorded as 0
+     */
+    void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0L), MAX_VALUE);
+        counts.incrementAndGet(indexOf(value));
+        sum.add(value);
+        min.accumulate(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Returns a snapshot of the recorded latencies. Values recorded concurrently may or may not be included.
+     *
+     * @return the snapshot
+     */
+    LatencyStats snapshot() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0L) {
+            return LatencyStats.EMPTY;
+        }
+        return new LatencyStats(snapshot, count, sum.sum(), min.get(), max.get());
+    }
+
+    /**
+     * Returns the index of the bucket counting the given value.
+     */
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+    }
+
+    /**
+     * Returns the highest value counted by the bucket with the given index.
+     */
+    static long highestValueOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) (SUB_BUCKET_COUNT + (index & (SUB_BUCKET_COUNT - 1))) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
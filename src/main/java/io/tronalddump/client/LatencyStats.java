@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Point-in-time distribution of latencies in nanoseconds, as recorded by the {@link ClientMetrics}.
+ *
+ * The percentiles are accurate to about 3%; the minimum, maximum and mean are exact.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class LatencyStats implements Serializable {
+
+    private static final long serialVersionUID = -3905842291532086671L;
+
+    static final LatencyStats EMPTY = new LatencyStats(new long[0], 0L, 0L, 0L, 0L);
+
+    private long[] counts;
+    private long count;
+    private long total;
+    private long min;
+    private long max;
+
+    LatencyStats(long[] counts, long count, long total, long min, long max) {
+        int length = counts.length;
+        while (length > 0 && counts[length - 1] == 0L) {
+            length--;
+        }
+        this.counts = Arrays.copyOf(counts, length);
+        this.count = count;
+        this.total = total;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the sum of the recorded latencies.
+     *
+     * @return the total in nanoseconds
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the lowest recorded latency, or {@code 0} if there are none.
+     *
+     * @return the minimum in nanoseconds
+     */
+    public long getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the highest recorded latency, or {@code 0} if there are none.
+     *
+     * @return the maximum in nanoseconds
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the mean of the recorded latencies, or {@code 0.0} if there are none.
+     *
+     * @return the mean in nanoseconds
+     */
+    public double getMean() {
+        return count == 0L ? 0.0 : (double) total / count;
+    }
+
+    /**
+     * Returns the latency at the given percentile, i.e. the lowest latency not exceeded by {@code percentile}
+     * percent of the recorded latencies, or {@code 0} if there are none.
+     *
+     * <pre>
+     * long p99 = stats.getValueAtPercentile(99.0);
+     * </pre>
+     *
+     * @param percentile the percentile, from 0.0 to 100.0
+     * @return the latency in nanoseconds
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0.0 || percentile > 100.0) {
+            throw new IllegalArgumentException("'percentile' must not be less than 0.0 or greater than 100.0");
+        }
+        if (count == 0L) {
+            return 0L;
+        }
+        if (percentile == 0.0) {
+            return min;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * count));
+        long cumulative = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return Math.max(min, Math.min(max, LatencyHistogram.highestValueOf(i)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the distribution of the latencies of both this and the given stats.
+     */
+    LatencyStats merge(LatencyStats other) {
+        if (other.count == 0L) {
+            return this;
+        }
+        if (count == 0L) {
+            return other;
+        }
+        long[] merged = Arrays.copyOf(counts, Math.max(counts.length, other.counts.length));
+        for (int i = 0; i < other.counts.length; i++) {
+            merged[i] += other.counts[i];
+        }
+        return new LatencyStats(merged, count + other.count, total + other.total,
+                Math.min(min, other.min), Math.max(max, other.max));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        LatencyStats other = (LatencyStats) o;
+        if (count != other.count) {
+            return false;
+        }
+        if (total != other.total) {
+            return false;
+        }
+        if (min != other.min) {
+            return false;
+        }
+        if (max != other.max) {
+            return false;
+        }
+        return Arrays.equals(counts, other.counts);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Arrays.hashCode(counts);
+        result = 31 * result + (int) (count ^ (count >>> 32));
+        result = 31 * result + (int) (total ^ (total >>> 32));
+        result = 31 * result + (int) (min ^ (min >>> 32));
+        result = 31 * result + (int) (max ^ (max >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyStats{" +
+                "count=" + count +
+                ", mean=" + getMean() +
+                ", min=" + min +
+                ", p50=" + getValueAtPercentile(50.0) +
+                ", p99=" + getValueAtPercentile(99.0) +
+                ", max=" + max +
+                '}';
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+/**
+ * Strategy interface for exporting the {@link ClientStats} of the {@link ClientMetrics}, e.g. to a monitoring system.
+ *
+ * @author Marcel Overdijk
+ * @see ClientMetrics#export(MetricsExporter, long, java.util.concurrent.TimeUnit)
+ * @since 1.1.0
+ */
+public interface MetricsExporter {
+
+    /**
+     * Exports the given statistics.
+     *
+     * @param stats the statistics, not null
+     */
+    void export(ClientStats stats);
+}
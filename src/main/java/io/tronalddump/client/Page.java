@@ -129,7 +129,7 @@ public class Page<T> implements Iterable<T>, Serializable {
      * Returns whether there is a next {@link Page}.
      */
     public boolean hasNext() {
-        return getNumber() + 1 < getTotalPages();
+        return getNumber() < getTotalPages();
     }
 
     /**
@@ -17,6 +17,7 @@
 package io.tronalddump.client;
 
 import java.io.Serializable;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -109,6 +110,26 @@ public class Quote implements Serializable {
         this.date = date;
     }
 
+    /**
+     * Returns the date of the quote as {@link Instant}.
+     *
+     * @return the instant, or {@code null} if the quote has no date
+     * @since 1.1.0
+     */
+    public Instant getInstant() {
+        return date != null ? Instant.ofEpochMilli(date.getTime()) : null;
+    }
+
+    /**
+     * Returns the date of the quote as milliseconds since the epoch.
+     *
+     * @return the milliseconds since the epoch, or {@link Long#MIN_VALUE} if the quote has no date
+     * @since 1.1.0
+     */
+    public long getEpochMillis() {
+        return date != null ? date.getTime() : Long.MIN_VALUE;
+    }
+
     /**
      * Returns the tags associated with the quote.
      *
@@ -148,6 +169,19 @@ public class Quote implements Serializable {
         getTags().addAll(tags);
     }
 
+    /**
+     * Returns a deep copy of this quote.
+     */
+    Quote copy() {
+        Quote copy = new Quote();
+        copy.id = id;
+        copy.value = value;
+        copy.sourceUrl = sourceUrl;
+        copy.date = date != null ? new Date(date.getTime()) : null;
+        copy.tags = tags != null ? new ArrayList<>(tags) : null;
+        return copy;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Retrieves the quotes for a collection of ids concurrently, with at most {@code maxConcurrency} requests in flight.
+ *
+ * The ids are deduplicated. Each completed request starts the next one, so no thread waits for a permit. Requests
+ * completing while being started, like quote cache hits, are trampolined, so the stack does not grow with them. A
+ * failing id is recorded in the result instead of failing the batch.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+final class QuoteBatch {
+
+    private final TronaldClient client;
+    private final List<String> ids;
+    private final int maxConcurrency;
+    private final CompletableFuture<BatchResult<Quote>> result = new CompletableFuture<>();
+    private final Map<String, Quote> quotes = new ConcurrentHashMap<>();
+    private final Map<String, TronaldException> failures = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger remaining;
+
+    QuoteBatch(TronaldClient client, Collection<String> ids, int maxConcurrency) {
+        requireNonNull(ids, "'ids' must not be null");
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("'maxConcurrency' must not be less than 1");
+        }
+        for (String id : ids) {
+            requireNonNull(id, "'ids' must not contain null");
+        }
+        this.client = client;
+        this.ids = new ArrayList<>(new LinkedHashSet<>(ids));
+        this.maxConcurrency = maxConcurrency;
+        this.remaining = new AtomicInteger(this.ids.size());
+    }
+
+    CompletableFuture<BatchResult<Quote>> execute() {
+        if (ids.isEmpty()) {
+            complete();
+        }
+        for (int i = 0; i < Math.min(maxConcurrency, ids.size()); i++) {
+            requestNext();
+        }
+        return result;
+    }
+
+    /**
+     * Starts the next request, or has the thread already starting requests start it, which is the case when the
+     * request completing before started the next one from its completion callback.
+     */
+    private void requestNext() {
+        if (requests.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            int index = next.getAndIncrement();
+            if (index < ids.size()) {
+                request(ids.get(index));
+            }
+        } while (requests.decrementAndGet() != 0);
+    }
+
+    private void request(String id) {
+        CompletableFuture<Quote> future;
+        try {
+            future = client.getQuoteAsync(id);
+        } catch (Throwable e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((quote, e) -> {
+            try {
+                if (e == null) {
+                    quotes.put(id, quote);
+                } else {
+                    failures.put(id, asTronaldException(e));
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    complete();
+                } else {
+                    requestNext();
+                }
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+    }
+
+    private void complete() {
+        Map<String, Quote> orderedQuotes = new LinkedHashMap<>();
+        Map<String, TronaldException> orderedFailures = new LinkedHashMap<>();
+        for (String id : ids) {
+            if (quotes.containsKey(id)) {
+                orderedQuotes.put(id, quotes.get(id));
+            } else {
+                orderedFailures.put(id, failures.get(id));
+            }
+        }
+        result.complete(new BatchResult<>(orderedQuotes, orderedFailures));
+    }
+
+    private static TronaldException asTronaldException(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof TronaldException) {
+            return (TronaldException) cause;
+        }
+        return new TronaldException("Error retrieving quote", cause);
+    }
+}
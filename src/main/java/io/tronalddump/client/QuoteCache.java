@@ -0,0 +1,237 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Concurrent, size bounded in-memory cache of {@link Quote}s by id, with least recently used eviction and an optional
+ * time to live.
+ *
+ * The entries are spread over independently locked segments, each evicting its own least recently used entry, so
+ * lookups of different ids rarely contend. Quotes are copied going in and out, so callers modifying a returned quote
+ * do not affect the cache.
+ *
+ * @author Marcel Overdijk
+ * @see TronaldClient.TronaldClientBuilder#withQuoteCache(QuoteCache)
+ * @since 1.1.0
+ */
+public class QuoteCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a new {@code QuoteCache} holding at most the given number of quotes, without expiration.
+     *
+     * @param maxEntries the maximum number of quotes, must not be less than 1
+     */
+    public QuoteCache(int maxEntries) {
+        this(maxEntries, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates a new {@code QuoteCache} holding at most the given number of quotes, each for at most the given time.
+     *
+     * @param maxEntries the maximum number of quotes, must not be less than 1
+     * @param ttl the time to live of an entry, or {@code 0} to never expire entries
+     * @param unit the time unit of the time to live, not null
+     */
+    public QuoteCache(int maxEntries, long ttl, TimeUnit unit) {
+        this(maxEntries, ttl, unit, System::nanoTime);
+    }
+
+    QuoteCache(int maxEntries, long ttl, TimeUnit unit, LongSupplier ticker) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("'maxEntries' must not be less than 1");
+        }
+        if (ttl < 0) {
+            throw new IllegalArgumentException("'ttl' must not be less than 0");
+        }
+        requireNonNull(unit, "'unit' must not be null");
+        this.maxEntries = maxEntries;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.ticker = ticker;
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && segmentCount * 2 <= maxEntries) {
+            segmentCount *= 2;
+        }
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(maxEntries / segmentCount + (i < maxEntries % segmentCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * Returns the maximum number of quotes held.
+     *
+     * @return the maximum number of quotes
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the cached quote for the given id.
+     *
+     * @param id the unique quote id, not null
+     * @return a copy of the cached quote, or {@code null} if not cached or expired
+     */
+    public Quote get(String id) {
+        requireNonNull(id, "'id' must not be null");
+        Segment segment = segmentFor(id);
+        CacheEntry entry;
+        synchronized (segment) {
+            entry = segment.get(id);
+            if (entry != null && isExpired(entry)) {
+                segment.remove(id);
+                evictions.increment();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.quote.copy();
+    }
+
+    /**
+     * Caches the given quote by its id; quotes without id are ignored.
+     *
+     * @param quote the quote, not null
+     */
+    public void put(Quote quote) {
+        requireNonNull(quote, "'quote' must not be null");
+        String id = quote.getId();
+        if (id == null) {
+            return;
+        }
+        CacheEntry entry = new CacheEntry(quote.copy(), ticker.getAsLong());
+        Segment segment = segmentFor(id);
+        synchronized (segment) {
+            segment.put(id, entry);
+        }
+    }
+
+    /**
+     * Removes the quote with the given id from the cache.
+     *
+     * @param id the unique quote id, not null
+     */
+    public void invalidate(String id) {
+        requireNonNull(id, "'id' must not be null");
+        Segment segment = segmentFor(id);
+        synchronized (segment) {
+            segment.remove(id);
+        }
+    }
+
+    /**
+     * Removes all quotes from the cache.
+     */
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the current number of cached quotes, including expired ones not removed yet.
+     *
+     * @return the number of cached quotes
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the statistics of this cache.
+     *
+     * @return the cache statistics
+     */
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size());
+    }
+
+    private boolean isExpired(CacheEntry entry) {
+        return ttlNanos > 0 && ticker.getAsLong() - entry.createdAt >= ttlNanos;
+    }
+
+    private Segment segmentFor(String id) {
+        int h = id.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (segments.length - 1)];
+    }
+
+    private static final class CacheEntry {
+
+        private final Quote quote;
+        private final long createdAt;
+
+        CacheEntry(Quote quote, long createdAt) {
+            this.quote = quote;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * Access ordered map evicting its least recently used entry beyond its capacity; guarded by its own monitor.
+     */
+    private final class Segment extends LinkedHashMap<String, CacheEntry> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
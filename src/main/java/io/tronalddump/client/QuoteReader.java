@@ -0,0 +1,312 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static io.tronalddump.client.QuoteWriter.HAS_DATE;
+import static io.tronalddump.client.QuoteWriter.HAS_ID;
+import static io.tronalddump.client.QuoteWriter.HAS_SOURCE_URL;
+import static io.tronalddump.client.QuoteWriter.HAS_VALUE;
+import static io.tronalddump.client.QuoteWriter.MAGIC;
+import static io.tronalddump.client.QuoteWriter.NEW_TAG;
+import static io.tronalddump.client.QuoteWriter.PAGE;
+import static io.tronalddump.client.QuoteWriter.QUOTE;
+import static io.tronalddump.client.QuoteWriter.VERSION;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the quotes and pages of quotes written by a {@link QuoteWriter}.
+ *
+ * The header is read and verified on construction; a stream of a newer format version is rejected. Records are read
+ * in the order written, with {@link #peek()} telling the type of the next one. Not thread-safe.
+ *
+ * <pre>
+ * try (QuoteReader reader = new QuoteReader(in)) {
+ *     while (reader.hasNext()) {
+ *         Quote quote = reader.readQuote();
+ *     }
+ * }
+ * </pre>
+ *
+ * @author Marcel Overdijk
+ * @see QuoteWriter
+ * @since 1.1.0
+ */
+public class QuoteReader implements Closeable {
+
+    /**
+     * The type of a record.
+     */
+    public enum RecordType {
+        QUOTE, PAGE
+    }
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private int pos;
+    private int limit;
+    private final List<String> tags = new ArrayList<>();
+
+    /**
+     * Creates a new {@code QuoteReader} reading from the given stream, starting with the header.
+     *
+     * @param in the stream, not null
+     * @throws IOException in case the header cannot be read or is not a supported quote stream
+     */
+    public QuoteReader(InputStream in) throws IOException {
+        this(requireNonNull(in, "'in' must not be null"), new byte[8192], 0, 0);
+    }
+
+    /**
+     * Creates a new {@code QuoteReader} reading the remaining bytes of the given buffer, starting with the header.
+     * The position of the buffer is not changed.
+     *
+     * @param buffer the buffer, not null
+     * @throws IOException in case the header is not a supported quote stream
+     */
+    public QuoteReader(ByteBuffer buffer) throws IOException {
+        this(null, array(requireNonNull(buffer, "'buffer' must not be null")),
+                buffer.hasArray() ? buffer.arrayOffset() + buffer.position() : 0,
+                buffer.hasArray() ? buffer.arrayOffset() + buffer.limit() : buffer.remaining());
+    }
+
+    private QuoteReader(InputStream in, byte[] buffer, int pos, int limit) throws IOException {
+        this.in = in;
+        this.buffer = buffer;
+        this.pos = pos;
+        this.limit = limit;
+        byte[] magic = new byte[MAGIC.length];
+        for (int i = 0; i < magic.length; i++) {
+            magic[i] = (byte) readByte();
+        }
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a quote stream");
+        }
+        int version = readByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported quote stream version " + version);
+        }
+    }
+
+    /**
+     * Returns the given bytes, encoded as a stream of one quote record, decoded.
+     *
+     * @param bytes the encoded bytes, not null
+     * @return the quote
+     * @throws IOException in case the bytes are not a quote stream
+     * @see QuoteWriter#encode(Quote)
+     */
+    public static Quote decode(byte[] bytes) throws IOException {
+        try (QuoteReader reader = new QuoteReader(new ByteArrayInputStream(bytes))) {
+            return reader.readQuote();
+        }
+    }
+
+    /**
+     * Returns whether there is another record.
+     *
+     * @return whether there is another record
+     * @throws IOException in case the stream cannot be read
+     */
+    public boolean hasNext() throws IOException {
+        return pos < limit || fill();
+    }
+
+    /**
+     * Returns the type of the next record without consuming it.
+     *
+     * @return the record type, or {@code null} at the end of the stream
+     * @throws IOException in case the stream cannot be read or the record type is unknown
+     */
+    public RecordType peek() throws IOException {
+        if (!hasNext()) {
+            return null;
+        }
+        switch (buffer[pos]) {
+            case QUOTE:
+                return RecordType.QUOTE;
+            case PAGE:
+                return RecordType.PAGE;
+            default:
+                throw new IOException("Unknown record type " + buffer[pos]);
+        }
+    }
+
+    /**
+     * Reads a quote record.
+     *
+     * @return the quote
+     * @throws IOException in case the stream cannot be read or the next record is not a quote
+     */
+    public Quote readQuote() throws IOException {
+        expect(RecordType.QUOTE);
+        pos++;
+        return read();
+    }
+
+    /**
+     * Reads a page record.
+     *
+     * @return the page
+     * @throws IOException in case the stream cannot be read or the next record is not a page
+     */
+    public Page<Quote> readPage() throws IOException {
+        expect(RecordType.PAGE);
+        pos++;
+        Pageable pageable = new Pageable(readVarInt(), readVarInt());
+        long total = readVarLong();
+        int count = readVarInt();
+        List<Quote> content = new ArrayList<>(Math.min(count, pageable.getSize()));
+        for (int i = 0; i < count; i++) {
+            content.add(read());
+        }
+        return new Page<>(content, pageable, total);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    private void expect(RecordType type) throws IOException {
+        RecordType next = peek();
+        if (next == null) {
+            throw new EOFException("End of quote stream");
+        }
+        if (next != type) {
+            throw new IOException("Expected " + type + " record but was " + next);
+        }
+    }
+
+    private Quote read() throws IOException {
+        Quote quote = new Quote();
+        int flags = readByte();
+        if ((flags & HAS_ID) != 0) {
+            quote.setId(readString());
+        }
+        if ((flags & HAS_VALUE) != 0) {
+            quote.setValue(readString());
+        }
+        if ((flags & HAS_SOURCE_URL) != 0) {
+            quote.setSourceUrl(readString());
+        }
+        if ((flags & HAS_DATE) != 0) {
+            long zigzag = readVarLong();
+            quote.setDate(new Date((zigzag >>> 1) ^ -(zigzag & 1)));
+        }
+        int count = readVarInt();
+        for (int i = 0; i < count; i++) {
+            int ref = readVarInt();
+            if (ref == NEW_TAG) {
+                String tag = readString();
+                tags.add(tag);
+                quote.addTag(tag);
+            } else if (ref <= tags.size()) {
+                quote.addTag(tags.get(ref - 1));
+            } else {
+                throw new IOException("Unknown tag reference " + ref);
+            }
+        }
+        return quote;
+    }
+
+    private String readString() throws IOException {
+        int length = readVarInt();
+        if (length <= limit - pos) {
+            String value = new String(buffer, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+        byte[] bytes = new byte[length];
+        int n = 0;
+        while (n < length) {
+            if (pos == limit && !fill()) {
+                throw new EOFException("End of quote stream");
+            }
+            int chunk = Math.min(length - n, limit - pos);
+            System.arraycopy(buffer, pos, bytes, n, chunk);
+            pos += chunk;
+            n += chunk;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readVarInt() throws IOException {
+        long value = readVarLong();
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Malformed quote stream: " + value + " out of range");
+        }
+        return (int) value;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed quote stream: varint too long");
+    }
+
+    private int readByte() throws IOException {
+        if (pos == limit && !fill()) {
+            throw new EOFException("End of quote stream");
+        }
+        return buffer[pos++] & 0xff;
+    }
+
+    private boolean fill() throws IOException {
+        if (in == null) {
+            return false;
+        }
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    /**
+     * Returns the backing array of the given buffer, or a copy of its remaining bytes if it has none.
+     */
+    private static byte[] array(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return buffer.array();
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
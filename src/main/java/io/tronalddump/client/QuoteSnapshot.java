@@ -0,0 +1,449 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Local copy of the quotes and tags in a memory-mapped file, to serve them without any request.
+ *
+ * The file holds the quotes as records sorted by id, an index of the record offsets for a binary search by id, and
+ * for each tag the offsets of the records of its quotes. Only the tags are held on the heap; a quote is decoded from
+ * the mapped file each time it is returned, so every caller receives its own instance. The file is written to a
+ * temporary file first and moved in place, so it is never read partially written.
+ *
+ * <pre>
+ * QuoteSnapshot snapshot = QuoteSnapshot.download(client, new File("quotes.snapshot"), Arrays.asList("a", "e"));
+ * TronaldClient offline = aTronaldClient().withSnapshot(snapshot).build();
+ * </pre>
+ *
+ * @author Marcel Overdijk
+ * @see TronaldClient.TronaldClientBuilder#withSnapshot(QuoteSnapshot)
+ * @since 1.1.0
+ */
+public class QuoteSnapshot implements Closeable {
+
+    private static final int MAGIC = 0x54525331; // "TRS1"
+    private static final int HEADER_SIZE = 28;
+    private static final int NULL_LENGTH = -1;
+
+    private final File file;
+    private final long created;
+    private final int size;
+    private final int indexOffset;
+    private final List<String> tags;
+    private final Map<String, Integer> tagIndexes;
+    private final int[] postingOffsets;
+    private final int[] postingCounts;
+    private volatile MappedByteBuffer buffer;
+
+    private QuoteSnapshot(File file, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a quote snapshot: " + file);
+        }
+        this.size = buffer.getInt(4);
+        int tagCount = buffer.getInt(8);
+        this.created = buffer.getLong(12);
+        this.indexOffset = buffer.getInt(20);
+        int tagsOffset = buffer.getInt(24);
+        List<String> tags = new ArrayList<>(tagCount);
+        this.tagIndexes = new HashMap<>();
+        this.postingOffsets = new int[tagCount];
+        this.postingCounts = new int[tagCount];
+        int offset = tagsOffset;
+        for (int i = 0; i < tagCount; i++) {
+            int length = buffer.getShort(offset) & 0xffff;
+            String tag = readString(offset + 2, length);
+            tags.add(tag);
+            tagIndexes.put(tag, i);
+            offset += 2 + length;
+            postingCounts[i] = buffer.getInt(offset);
+            postingOffsets[i] = offset + 4;
+            offset += 4 + postingCounts[i] * 4;
+        }
+        this.tags = Collections.unmodifiableList(tags);
+    }
+
+    /**
+     * Opens the snapshot in the given file.
+     *
+     * @param file the snapshot file, not null
+     * @return the snapshot
+     * @throws IOException in case the file cannot be read or is not a snapshot
+     */
+    public static QuoteSnapshot open(File file) throws IOException {
+        requireNonNull(file, "'file' must not be null");
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Quote snapshot too large: " + file);
+            }
+            return new QuoteSnapshot(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Downloads the quotes found by the given search queries and all tags into the given file, and opens it.
+     *
+     * The api has no request listing all quotes, so the snapshot holds the quotes found by at least one of the
+     * queries; each is searched page by page with {@link TronaldClient#searchAll(String)}.
+     *
+     * @param client the client to retrieve the quotes and tags with, not null
+     * @param file the snapshot file; replaced if it exists, not null
+     * @param queries the free text queries of which the results make up the snapshot, not null
+     * @return the snapshot
+     * @throws IOException in case the file cannot be written
+     * @throws TronaldException in case an error occurs while retrieving the quotes or tags
+     */
+    public static QuoteSnapshot download(TronaldClient client, File file, Collection<String> queries) throws IOException {
+        requireNonNull(client, "'client' must not be null");
+        requireNonNull(queries, "'queries' must not be null");
+        Map<String, Quote> quotes = new LinkedHashMap<>();
+        for (String query : queries) {
+            try (Stream<Quote> results = client.searchAll(query)) {
+                results.forEach(quote -> quotes.putIfAbsent(quote.getId(), quote));
+            }
+        }
+        write(file, quotes.values(), client.getTags());
+        return open(file);
+    }
+
+    /**
+     * Writes the given quotes and tags to the given file. Tags of the quotes missing from the given tags are added.
+     *
+     * @param file the snapshot file; replaced if it exists, not null
+     * @param quotes the quotes, not null
+     * @param tags the tags, not null
+     * @throws IOException in case the file cannot be written
+     */
+    public static void write(File file, Collection<Quote> quotes, List<String> tags) throws IOException {
+        requireNonNull(file, "'file' must not be null");
+        requireNonNull(quotes, "'quotes' must not be null");
+        requireNonNull(tags, "'tags' must not be null");
+        Map<String, Integer> tagIndexes = new LinkedHashMap<>();
+        for (String tag : tags) {
+            tagIndexes.putIfAbsent(tag, tagIndexes.size());
+        }
+        List<EncodedQuote> encoded = new ArrayList<>(quotes.size());
+        for (Quote quote : quotes) {
+            for (String tag : quote.getTags()) {
+                tagIndexes.putIfAbsent(tag, tagIndexes.size());
+            }
+            encoded.add(new EncodedQuote(quote, tagIndexes));
+        }
+        for (String tag : tagIndexes.keySet()) {
+            if (tag.getBytes(StandardCharsets.UTF_8).length > 0xffff) {
+                throw new IOException("Tag cannot be stored in a snapshot: " + tag);
+            }
+        }
+        encoded.sort((a, b) -> compare(a.id, b.id));
+        List<List<Integer>> postings = new ArrayList<>();
+        for (int i = 0; i < tagIndexes.size(); i++) {
+            postings.add(new ArrayList<>());
+        }
+        long offset = HEADER_SIZE;
+        for (EncodedQuote quote : encoded) {
+            quote.offset = (int) offset;
+            for (int tagIndex : quote.tagIndexes) {
+                postings.get(tagIndex).add(quote.offset);
+            }
+            offset += quote.record.length;
+        }
+        long indexOffset = offset;
+        long tagsOffset = indexOffset + 4L * encoded.size();
+        if (tagsOffset > Integer.MAX_VALUE) {
+            throw new IOException("Too many quotes for a snapshot: " + encoded.size());
+        }
+
+        Path target = file.getAbsoluteFile().toPath();
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "tmp-", ".part");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(encoded.size());
+                out.writeInt(tagIndexes.size());
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt((int) indexOffset);
+                out.writeInt((int) tagsOffset);
+                for (EncodedQuote quote : encoded) {
+                    out.write(quote.record);
+                }
+                for (EncodedQuote quote : encoded) {
+                    out.writeInt(quote.offset);
+                }
+                int i = 0;
+                for (String tag : tagIndexes.keySet()) {
+                    byte[] bytes = tag.getBytes(StandardCharsets.UTF_8);
+                    out.writeShort(bytes.length);
+                    out.write(bytes);
+                    List<Integer> offsets = postings.get(i++);
+                    out.writeInt(offsets.size());
+                    for (int recordOffset : offsets) {
+                        out.writeInt(recordOffset);
+                    }
+                }
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Returns the snapshot file.
+     *
+     * @return the file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the time the snapshot was written.
+     *
+     * @return the milliseconds since the epoch
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * Returns the number of quotes.
+     *
+     * @return the number of quotes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the tags.
+     *
+     * @return the unmodifiable list of tags
+     */
+    public List<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Returns the quote for the given id.
+     *
+     * @param id the unique quote id, not null
+     * @return the quote, or {@code null} if not in the snapshot
+     */
+    public Quote getQuote(String id) {
+        byte[] key = requireNonNull(id, "'id' must not be null").getBytes(StandardCharsets.UTF_8);
+        MappedByteBuffer buffer = buffer();
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = buffer.getInt(indexOffset + mid * 4);
+            int cmp = compare(buffer, offset + 2, buffer.getShort(offset) & 0xffff, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return readQuote(offset);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a random quote.
+     *
+     * @return the quote, or {@code null} if the snapshot holds no quotes
+     */
+    public Quote getRandomQuote() {
+        if (size == 0) {
+            return null;
+        }
+        return getQuote(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    /**
+     * Returns a random quote with the given tag.
+     *
+     * @param tag the tag, not null
+     * @return the quote, or {@code null} if the snapshot holds no quotes with the tag
+     */
+    public Quote getRandomQuote(String tag) {
+        Integer tagIndex = tagIndexes.get(requireNonNull(tag, "'tag' must not be null"));
+        if (tagIndex == null || postingCounts[tagIndex] == 0) {
+            return null;
+        }
+        int posting = ThreadLocalRandom.current().nextInt(postingCounts[tagIndex]);
+        return readQuote(buffer().getInt(postingOffsets[tagIndex] + posting * 4));
+    }
+
+    /**
+     * Returns the quote at the given position in id order.
+     */
+    Quote getQuote(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return readQuote(buffer().getInt(indexOffset + index * 4));
+    }
+
+    /**
+     * Releases the snapshot; the mapping itself is released once garbage collected.
+     */
+    @Override
+    public void close() {
+        buffer = null;
+    }
+
+    private MappedByteBuffer buffer() {
+        MappedByteBuffer buffer = this.buffer;
+        if (buffer == null) {
+            throw new IllegalStateException("Quote snapshot is closed: " + file);
+        }
+        return buffer;
+    }
+
+    private Quote readQuote(int offset) {
+        MappedByteBuffer buffer = buffer();
+        Quote quote = new Quote();
+        int idLength = buffer.getShort(offset) & 0xffff;
+        quote.setId(readString(offset + 2, idLength));
+        offset += 2 + idLength;
+        int valueLength = buffer.getInt(offset);
+        offset += 4;
+        if (valueLength != NULL_LENGTH) {
+            quote.setValue(readString(offset, valueLength));
+            offset += valueLength;
+        }
+        int sourceUrlLength = buffer.getInt(offset);
+        offset += 4;
+        if (sourceUrlLength != NULL_LENGTH) {
+            quote.setSourceUrl(readString(offset, sourceUrlLength));
+            offset += sourceUrlLength;
+        }
+        long epochMillis = buffer.getLong(offset);
+        if (epochMillis != Long.MIN_VALUE) {
+            quote.setDate(new Date(epochMillis));
+        }
+        offset += 8;
+        int tagCount = buffer.get(offset) & 0xff;
+        offset += 1;
+        for (int i = 0; i < tagCount; i++) {
+            quote.addTag(tags.get(buffer.getShort(offset + i * 2) & 0xffff));
+        }
+        return quote;
+    }
+
+    private String readString(int offset, int length) {
+        ByteBuffer slice = buffer().duplicate();
+        slice.position(offset);
+        byte[] bytes = new byte[length];
+        slice.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares the UTF-8 bytes at the given offset in the buffer with the given key, unsigned and lexicographically.
+     */
+    private static int compare(ByteBuffer buffer, int offset, int length, byte[] key) {
+        int n = Math.min(length, key.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = (buffer.get(offset + i) & 0xff) - (key[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - key.length;
+    }
+
+    private static int compare(byte[] a, byte[] b) {
+        return compare(ByteBuffer.wrap(a), 0, a.length, b);
+    }
+
+    private static final class EncodedQuote {
+
+        private final byte[] id;
+        private final int[] tagIndexes;
+        private final byte[] record;
+        private int offset;
+
+        EncodedQuote(Quote quote, Map<String, Integer> tagIndexes) throws IOException {
+            this.id = requireNonNull(quote.getId(), "'id' of quote must not be null").getBytes(StandardCharsets.UTF_8);
+            List<String> tags = quote.getTags();
+            if (id.length > 0xffff || tags.size() > 0xff || tagIndexes.size() > 0xffff) {
+                throw new IOException("Quote cannot be stored in a snapshot: " + quote.getId());
+            }
+            this.tagIndexes = new int[tags.size()];
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + id.length * 2);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeShort(id.length);
+            out.write(id);
+            writeNullableString(out, quote.getValue());
+            writeNullableString(out, quote.getSourceUrl());
+            out.writeLong(quote.getEpochMillis());
+            out.writeByte(tags.size());
+            for (int i = 0; i < tags.size(); i++) {
+                this.tagIndexes[i] = tagIndexes.get(tags.get(i));
+                out.writeShort(this.tagIndexes[i]);
+            }
+            this.record = bytes.toByteArray();
+        }
+
+        private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+            if (value != null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            } else {
+                out.writeInt(NULL_LENGTH);
+            }
+        }
+    }
+}
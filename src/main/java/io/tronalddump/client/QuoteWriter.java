@@ -0,0 +1,259 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes quotes and pages of quotes in a compact, versioned binary format, to be read back with {@link QuoteReader}.
+ *
+ * The stream starts with a header of the magic bytes {@code TQB} and the format version, followed by any number of
+ * quote and page records. Lengths and counts are written as unsigned varints and dates as zigzag varints of the
+ * milliseconds since the epoch. A tag is written as a string the first time it occurs and as a reference into the
+ * dictionary of the tags written before from then on, so a stream of many quotes holds each tag once. The writer
+ * buffers internally; {@link #flush()} or {@link #close()} when done. Not thread-safe.
+ *
+ * <pre>
+ * try (QuoteWriter writer = new QuoteWriter(out)) {
+ *     for (Quote quote : quotes) {
+ *         writer.writeQuote(quote);
+ *     }
+ * }
+ * </pre>
+ *
+ * @author Marcel Overdijk
+ * @see QuoteReader
+ * @since 1.1.0
+ */
+public class QuoteWriter implements Closeable, Flushable {
+
+    static final byte[] MAGIC = {'T', 'Q', 'B'};
+    static final int VERSION = 1;
+
+    static final int QUOTE = 1;
+    static final int PAGE = 2;
+
+    static final int HAS_ID = 1;
+    static final int HAS_VALUE = 1 << 1;
+    static final int HAS_SOURCE_URL = 1 << 2;
+    static final int HAS_DATE = 1 << 3;
+
+    static final int NEW_TAG = 0;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int pos;
+    private final Map<String, Integer> tags = new HashMap<>();
+
+    /**
+     * Creates a new {@code QuoteWriter} writing to the given stream, starting with the header.
+     *
+     * @param out the stream, not null
+     * @throws IOException in case the header cannot be written
+     */
+    public QuoteWriter(OutputStream out) throws IOException {
+        this.out = requireNonNull(out, "'out' must not be null");
+        writeBytes(MAGIC, 0, MAGIC.length);
+        writeByte(VERSION);
+    }
+
+    /**
+     * Creates a new {@code QuoteWriter} writing to the given buffer from its position, starting with the header.
+     * Writing more than the remaining bytes of the buffer throws a {@link BufferOverflowException}.
+     *
+     * @param buffer the buffer, not null
+     * @throws IOException never
+     */
+    public QuoteWriter(ByteBuffer buffer) throws IOException {
+        this(new ByteBufferOutputStream(requireNonNull(buffer, "'buffer' must not be null")));
+    }
+
+    /**
+     * Returns the given quote encoded as a stream of one record.
+     *
+     * @param quote the quote, not null
+     * @return the encoded bytes
+     */
+    public static byte[] encode(Quote quote) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (QuoteWriter writer = new QuoteWriter(bytes)) {
+            writer.writeQuote(quote);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // cannot happen writing to memory
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a quote record.
+     *
+     * @param quote the quote, not null
+     * @throws IOException in case the record cannot be written
+     */
+    public void writeQuote(Quote quote) throws IOException {
+        requireNonNull(quote, "'quote' must not be null");
+        writeByte(QUOTE);
+        write(quote);
+    }
+
+    /**
+     * Writes a page record with its pagination information, total and quotes.
+     *
+     * @param page the page, not null
+     * @throws IOException in case the record cannot be written
+     */
+    public void writePage(Page<Quote> page) throws IOException {
+        requireNonNull(page, "'page' must not be null");
+        writeByte(PAGE);
+        writeVarInt(page.getNumber());
+        writeVarInt(page.getSize());
+        writeVarLong(page.getTotalElements());
+        writeVarInt(page.getNumberOfElements());
+        for (Quote quote : page) {
+            write(quote);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (pos > 0) {
+            out.write(buffer, 0, pos);
+            pos = 0;
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void write(Quote quote) throws IOException {
+        int flags = (quote.getId() != null ? HAS_ID : 0)
+                | (quote.getValue() != null ? HAS_VALUE : 0)
+                | (quote.getSourceUrl() != null ? HAS_SOURCE_URL : 0)
+                | (quote.getDate() != null ? HAS_DATE : 0);
+        writeByte(flags);
+        if (quote.getId() != null) {
+            writeString(quote.getId());
+        }
+        if (quote.getValue() != null) {
+            writeString(quote.getValue());
+        }
+        if (quote.getSourceUrl() != null) {
+            writeString(quote.getSourceUrl());
+        }
+        if (quote.getDate() != null) {
+            long millis = quote.getDate().getTime();
+            writeVarLong((millis << 1) ^ (millis >> 63));
+        }
+        List<String> quoteTags = quote.getTags();
+        int count = quoteTags != null ? quoteTags.size() : 0;
+        writeVarInt(count);
+        for (int i = 0; i < count; i++) {
+            String tag = quoteTags.get(i);
+            Integer index = tags.get(tag);
+            if (index != null) {
+                writeVarInt(index + 1);
+            } else {
+                writeVarInt(NEW_TAG);
+                writeString(tag);
+                tags.put(tag, tags.size());
+            }
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        writeVarLong(value & 0xffffffffL);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        if (buffer.length - pos < 10) {
+            drain();
+        }
+        while ((value & ~0x7fL) != 0) {
+            buffer[pos++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        buffer[pos++] = (byte) value;
+    }
+
+    private void writeByte(int value) throws IOException {
+        if (pos == buffer.length) {
+            drain();
+        }
+        buffer[pos++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        if (length > buffer.length - pos) {
+            drain();
+            if (length > buffer.length) {
+                out.write(bytes, offset, length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, offset, buffer, pos, length);
+        pos += length;
+    }
+
+    private void drain() throws IOException {
+        out.write(buffer, 0, pos);
+        pos = 0;
+    }
+
+    private static final class ByteBufferOutputStream extends OutputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferOutputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            buffer.put(bytes, offset, length);
+        }
+    }
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Buffer of prefetched random quotes, so a random quote is taken from memory instead of retrieved with a request.
+ *
+ * There is a pool of quotes for random quotes without tag and one for each requested tag. Taking a quote from a pool
+ * that dropped below its low-water mark refills it in the background, on the executor of the client, until it holds
+ * {@code depth} quotes again; at most {@code refillConcurrency} requests per pool are in flight. Quotes older than the
+ * maximum age are discarded instead of returned. When a pool is empty, the quote is retrieved with a request as if
+ * there were no buffer. A failed refill request stops refilling the pool until the next quote is taken from it, so an
+ * unavailable server is not hammered.
+ *
+ * A pool for a tag not given to the builder is created once a random quote with the tag is retrieved, so unknown tags
+ * and typos never get one, and only up to {@code maxTagPools} of them; quotes with other tags are retrieved with a
+ * request. After the buffer is closed, every quote is retrieved with a request.
+ *
+ * <pre>
+ * RandomQuoteBuffer buffer = aRandomQuoteBuffer(client)
+ *         .withDepth(20)
+ *         .withMaxAge(10, TimeUnit.MINUTES)
+ *         .withTags("Hillary Clinton")
+ *         .build();
+ * Quote quote = buffer.getRandomQuote("Hillary Clinton");
+ * </pre>
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class RandomQuoteBuffer implements Closeable {
+
+    private static final String NO_TAG = "";
+
+    private final TronaldClient client;
+    private final int depth;
+    private final int lowWaterMark;
+    private final int refillConcurrency;
+    private final long maxAgeNanos;
+    private final LongSupplier ticker;
+    private final int maxTagPools;
+    private final ConcurrentMap<String, Pool> pools = new ConcurrentHashMap<>();
+    private final AtomicInteger tagPools = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile boolean closed;
+
+    private RandomQuoteBuffer(RandomQuoteBufferBuilder builder) {
+        if (builder.depth < 1) {
+            throw new IllegalArgumentException("'depth' must not be less than 1");
+        }
+        int lowWaterMark = builder.lowWaterMark != null ? builder.lowWaterMark : builder.depth / 2;
+        if (lowWaterMark < 0 || lowWaterMark >= builder.depth) {
+            throw new IllegalArgumentException("'lowWaterMark' must not be less than 0 or not less than 'depth'");
+        }
+        if (builder.refillConcurrency < 1) {
+            throw new IllegalArgumentException("'refillConcurrency' must not be less than 1");
+        }
+        if (builder.maxAgeNanos < 0) {
+            throw new IllegalArgumentException("'maxAge' must not be less than 0");
+        }
+        if (builder.maxTagPools < 0) {
+            throw new IllegalArgumentException("'maxTagPools' must not be less than 0");
+        }
+        this.client = requireNonNull(builder.client, "'client' must not be null");
+        this.depth = builder.depth;
+        this.lowWaterMark = lowWaterMark;
+        this.refillConcurrency = builder.refillConcurrency;
+        this.maxAgeNanos = builder.maxAgeNanos;
+        this.ticker = builder.ticker;
+        this.maxTagPools = builder.maxTagPools;
+        addPool(NO_TAG, false).refill();
+        for (String tag : builder.tags) {
+            addPool(tag, false).refill();
+        }
+    }
+
+    /**
+     * Returns a random quote, taken from the buffer if available.
+     *
+     * @return the quote
+     * @throws TronaldException in case the buffer is empty and an error occurs while retrieving the random quote
+     * @see TronaldClient#getRandomQuote()
+     */
+    public Quote getRandomQuote() throws TronaldException {
+        return take(NO_TAG);
+    }
+
+    /**
+     * Returns a random quote with the given tag, taken from the buffer if available.
+     *
+     * @param tag the tag, not null
+     * @return the quote
+     * @throws TronaldException in case the buffer is empty and an error occurs while retrieving the random quote
+     * @see TronaldClient#getRandomQuote(String)
+     */
+    public Quote getRandomQuote(String tag) throws TronaldException {
+        return take(requireNonNull(tag, "'tag' must not be null"));
+    }
+
+    /**
+     * Returns the number of buffered quotes for random quotes without tag, including stale quotes not discarded yet.
+     *
+     * @return the number of buffered quotes
+     */
+    public int size() {
+        return size(NO_TAG);
+    }
+
+    /**
+     * Returns the number of buffered quotes for the given tag, including stale quotes not discarded yet.
+     *
+     * @param tag the tag, not null
+     * @return the number of buffered quotes
+     */
+    public int size(String tag) {
+        Pool pool = pools.get(requireNonNull(tag, "'tag' must not be null"));
+        return pool != null ? pool.size.get() : 0;
+    }
+
+    /**
+     * Returns the statistics of this buffer; a hit is a quote taken from the buffer, a miss a quote retrieved with a
+     * request and an eviction a stale quote discarded.
+     *
+     * @return the buffer statistics
+     */
+    public CacheStats getStats() {
+        long size = 0;
+        for (Pool pool : pools.values()) {
+            size += pool.size.get();
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    /**
+     * Stops refilling and discards the buffered quotes.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        pools.clear();
+    }
+
+    private Quote take(String tag) {
+        Pool pool = closed ? null : pools.get(tag);
+        if (pool != null) {
+            pool.takes.incrementAndGet();
+            Quote quote = pool.poll();
+            pool.refill();
+            if (quote != null) {
+                hits.increment();
+                return quote;
+            }
+        }
+        misses.increment();
+        Quote quote = tag.equals(NO_TAG) ? client.getRandomQuote() : client.getRandomQuote(tag);
+        if (pool == null && !closed) {
+            addPoolOnDemand(tag);
+        }
+        return quote;
+    }
+
+    private void addPoolOnDemand(String tag) {
+        if (tagPools.incrementAndGet() > maxTagPools) {
+            tagPools.decrementAndGet();
+            return;
+        }
+        Pool pool = addPool(tag, true);
+        if (pool != null) {
+            pool.refill();
+        }
+    }
+
+    /**
+     * Adds a pool for the given tag, returning the existing pool if there is one, or {@code null} if the buffer is
+     * closed. A pool created on demand holds one of the {@code maxTagPools} slots, taken by the caller.
+     */
+    private Pool addPool(String tag, boolean onDemand) {
+        Pool pool = new Pool(tag, onDemand);
+        Pool existing = pools.putIfAbsent(tag, pool);
+        if (existing != null) {
+            pool.release();
+            return existing;
+        }
+        if (closed) {
+            pools.remove(tag, pool);
+            pool.release();
+            return null;
+        }
+        return pool;
+    }
+
+    private final class Pool {
+
+        private final String tag;
+        private final boolean onDemand;
+        private final ConcurrentLinkedQueue<BufferedQuote> quotes = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong takes = new AtomicLong();
+        private volatile boolean filling;
+
+        Pool(String tag, boolean onDemand) {
+            this.tag = tag;
+            this.onDemand = onDemand;
+        }
+
+        /**
+         * Releases the slot of a pool created on demand, when it is not added.
+         */
+        void release() {
+            if (onDemand) {
+                tagPools.decrementAndGet();
+            }
+        }
+
+        Quote poll() {
+            BufferedQuote buffered;
+            while ((buffered = quotes.poll()) != null) {
+                size.decrementAndGet();
+                if (maxAgeNanos == 0 || ticker.getAsLong() - buffered.fetched < maxAgeNanos) {
+                    return buffered.quote;
+                }
+                evictions.increment();
+            }
+            return null;
+        }
+
+        /**
+         * Starts refill requests up to the concurrency when the pool dropped to its low-water mark, and keeps doing
+         * so on every completed request until the pool is at its depth again.
+         */
+        void refill() {
+            while (!closed) {
+                int current = inFlight.get();
+                if (current >= refillConcurrency) {
+                    return;
+                }
+                int buffered = size.get();
+                if (!filling) {
+                    if (buffered > lowWaterMark) {
+                        return;
+                    }
+                    filling = true;
+                }
+                if (buffered + current >= depth) {
+                    filling = false;
+                    return;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    request();
+                }
+            }
+        }
+
+        private void request() {
+            long takesAtStart = takes.get();
+            (tag.equals(NO_TAG) ? client.getRandomQuoteAsync() : client.getRandomQuoteAsync(tag))
+                    .whenComplete((quote, e) -> {
+                        if (e == null && !closed) {
+                            quotes.offer(new BufferedQuote(quote, ticker.getAsLong()));
+                            size.incrementAndGet();
+                            inFlight.decrementAndGet();
+                            refill();
+                        } else {
+                            inFlight.decrementAndGet();
+                            if (takes.get() != takesAtStart) {
+                                refill(); // a quote was taken meanwhile, so this failure did not stop the refill yet
+                            }
+                        }
+                    });
+        }
+    }
+
+    private static final class BufferedQuote {
+
+        private final Quote quote;
+        private final long fetched;
+
+        BufferedQuote(Quote quote, long fetched) {
+            this.quote = quote;
+            this.fetched = fetched;
+        }
+    }
+
+    public static final class RandomQuoteBufferBuilder {
+
+        private final TronaldClient client;
+        private int depth = 10;
+        private Integer lowWaterMark;
+        private int refillConcurrency = 1;
+        private long maxAgeNanos;
+        private int maxTagPools = 32;
+        private Set<String> tags = Collections.emptySet();
+        private LongSupplier ticker = System::nanoTime;
+
+        private RandomQuoteBufferBuilder(TronaldClient client) {
+            this.client = client;
+        }
+
+        public static RandomQuoteBufferBuilder aRandomQuoteBuffer(TronaldClient client) {
+            return new RandomQuoteBufferBuilder(client);
+        }
+
+        /**
+         * Sets the number of quotes to buffer per pool; defaults to 10.
+         */
+        public RandomQuoteBufferBuilder withDepth(int depth) {
+            this.depth = depth;
+            return this;
+        }
+
+        /**
+         * Sets the number of quotes at or below which a pool is refilled; defaults to half the depth.
+         */
+        public RandomQuoteBufferBuilder withLowWaterMark(int lowWaterMark) {
+            this.lowWaterMark = lowWaterMark;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of concurrent refill requests per pool; defaults to 1.
+         */
+        public RandomQuoteBufferBuilder withRefillConcurrency(int refillConcurrency) {
+            this.refillConcurrency = refillConcurrency;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time a quote is buffered before it is discarded as stale; defaults to {@code 0}, never.
+         */
+        public RandomQuoteBufferBuilder withMaxAge(long maxAge, TimeUnit unit) {
+            this.maxAgeNanos = requireNonNull(unit, "'unit' must not be null").toNanos(maxAge);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of pools for tags not given with {@link #withTags(String...)}, created on their
+         * first request; defaults to 32.
+         */
+        public RandomQuoteBufferBuilder withMaxTagPools(int maxTagPools) {
+            this.maxTagPools = maxTagPools;
+            return this;
+        }
+
+        /**
+         * Sets the tags of which the pools are filled when the buffer is built, instead of on the first request.
+         */
+        public RandomQuoteBufferBuilder withTags(String... tags) {
+            return withTags(Arrays.asList(tags));
+        }
+
+        /**
+         * Sets the tags of which the pools are filled when the buffer is built, instead of on the first request.
+         */
+        public RandomQuoteBufferBuilder withTags(Collection<String> tags) {
+            this.tags = new LinkedHashSet<>(tags);
+            return this;
+        }
+
+        RandomQuoteBufferBuilder withTicker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public RandomQuoteBuffer build() {
+            RandomQuoteBuffer buffer = new RandomQuoteBuffer(this);
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Token bucket rate limiter for the requests of a {@link TronaldClient}, either shared by all endpoints or with a
+ * bucket per {@link Endpoint}.
+ *
+ * A bucket holds up to {@code burst} permits and is refilled at the rate; a request takes one permit, waiting for it
+ * if the bucket is empty. The bucket is kept as the time at which the next permit is available and updated with
+ * compare-and-set, so concurrent requests never block each other other than by waiting for their permits.
+ *
+ * The rate adapts to the server: a response with http status 429 (Too Many Requests) halves the rate of the bucket,
+ * down to the minimum rate, and each following successful response raises it by a twentieth of the configured rate,
+ * up to the configured rate.
+ *
+ * <pre>
+ * RateLimiter rateLimiter = aRateLimiter(10.0).withBurst(20).withPerEndpoint(true).build();
+ * TronaldClient client = aTronaldClient().withRateLimiter(rateLimiter).build();
+ * </pre>
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class RateLimiter {
+
+    private static final int RECOVERY_STEPS = 20;
+
+    private final double permitsPerSecond;
+    private final double minPermitsPerSecond;
+    private final int burst;
+    private final boolean perEndpoint;
+    private final boolean adaptive;
+    private final LongSupplier ticker;
+    private final Map<Endpoint, Bucket> buckets = new EnumMap<>(Endpoint.class);
+    private final LongAdder throttled = new LongAdder();
+
+    private RateLimiter(RateLimiterBuilder builder) {
+        if (!(builder.permitsPerSecond > 0.0)) {
+            throw new IllegalArgumentException("'permitsPerSecond' must be positive");
+        }
+        double minPermitsPerSecond = builder.minPermitsPerSecond != null
+                ? builder.minPermitsPerSecond : builder.permitsPerSecond / 10;
+        if (!(minPermitsPerSecond > 0.0) || minPermitsPerSecond > builder.permitsPerSecond) {
+            throw new IllegalArgumentException(
+                    "'minPermitsPerSecond' must be positive and not greater than 'permitsPerSecond'");
+        }
+        int burst = builder.burst != null ? builder.burst : Math.max(1, (int) builder.permitsPerSecond);
+        if (burst < 1) {
+            throw new IllegalArgumentException("'burst' must not be less than 1");
+        }
+        this.permitsPerSecond = builder.permitsPerSecond;
+        this.minPermitsPerSecond = minPermitsPerSecond;
+        this.burst = burst;
+        this.perEndpoint = builder.perEndpoint;
+        this.adaptive = builder.adaptive;
+        this.ticker = builder.ticker;
+        Bucket shared = perEndpoint ? null : new Bucket();
+        for (Endpoint endpoint : Endpoint.values()) {
+            buckets.put(endpoint, perEndpoint ? new Bucket() : shared);
+        }
+    }
+
+    /**
+     * Returns whether each endpoint has a bucket of its own, instead of sharing one.
+     *
+     * @return whether the rate is limited per endpoint
+     */
+    public boolean isPerEndpoint() {
+        return perEndpoint;
+    }
+
+    /**
+     * Returns the maximum number of permits taken at once after a period without requests.
+     *
+     * @return the burst
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * Returns the current rate of the bucket of the given endpoint, which is below the configured rate after
+     * responses with http status 429.
+     *
+     * @param endpoint the endpoint, not null
+     * @return the rate in permits per second
+     */
+    public double getRate(Endpoint endpoint) {
+        return TimeUnit.SECONDS.toNanos(1) / (double) bucket(endpoint).interval.get();
+    }
+
+    /**
+     * Returns the number of responses with http status 429.
+     *
+     * @return the throttled count
+     */
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    /**
+     * Takes a permit for a request to the given endpoint, waiting until one is available.
+     *
+     * @param endpoint the endpoint, not null
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire(Endpoint endpoint) throws InterruptedException {
+        park(bucket(endpoint).reserve(Long.MAX_VALUE));
+    }
+
+    /**
+     * Takes a permit for a request to the given endpoint if one is available immediately.
+     *
+     * @param endpoint the endpoint, not null
+     * @return whether a permit was taken
+     */
+    public boolean tryAcquire(Endpoint endpoint) {
+        return bucket(endpoint).reserve(0L) == 0L;
+    }
+
+    /**
+     * Takes a permit for a request to the given endpoint if one is available within the given timeout, waiting for
+     * it. Returns immediately if no permit is available within the timeout.
+     *
+     * @param endpoint the endpoint, not null
+     * @param timeout the maximum time to wait
+     * @param unit the time unit of the timeout, not null
+     * @return whether a permit was taken
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean tryAcquire(Endpoint endpoint, long timeout, TimeUnit unit) throws InterruptedException {
+        requireNonNull(unit, "'unit' must not be null");
+        long wait = bucket(endpoint).reserve(Math.max(0L, unit.toNanos(timeout)));
+        if (wait < 0L) {
+            return false;
+        }
+        park(wait);
+        return true;
+    }
+
+    /**
+     * Records a successful response of the given endpoint, raising a lowered rate.
+     */
+    void onSuccess(Endpoint endpoint) {
+        if (adaptive) {
+            bucket(endpoint).recover();
+        }
+    }
+
+    /**
+     * Records a response of the given endpoint with http status 429, halving the rate.
+     */
+    void onThrottled(Endpoint endpoint) {
+        throttled.increment();
+        if (adaptive) {
+            bucket(endpoint).slowDown();
+        }
+    }
+
+    /**
+     * Waits at least the given time. Unlike {@code TimeUnit.sleep}, which rounds to the nearest millisecond on Java 8,
+     * it never returns before the reserved slot.
+     */
+    private static void park(long nanos) throws InterruptedException {
+        long until = System.nanoTime() + nanos;
+        for (long remaining = nanos; remaining > 0L; remaining = until - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private Bucket bucket(Endpoint endpoint) {
+        return buckets.get(requireNonNull(endpoint, "'endpoint' must not be null"));
+    }
+
+    private static long toInterval(double permitsPerSecond) {
+        return Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+    }
+
+    /**
+     * Bucket kept as the theoretical arrival time of the next request: a request arriving at {@code now} may pass
+     * once {@code now >= tat - (burst - 1) * interval}, after which {@code tat} moves one interval ahead.
+     */
+    private final class Bucket {
+
+        private final AtomicLong tat;
+        private final AtomicLong interval = new AtomicLong(toInterval(permitsPerSecond));
+
+        Bucket() {
+            this.tat = new AtomicLong(ticker.getAsLong());
+        }
+
+        /**
+         * Reserves a permit if it is available within the given maximum wait.
+         *
+         * @return the nanoseconds to wait for the reserved permit, or -1 if none was reserved
+         */
+        long reserve(long maxWait) {
+            while (true) {
+                long now = ticker.getAsLong();
+                long current = tat.get();
+                long interval = this.interval.get();
+                long start = Math.max(current, now);
+                long wait = Math.max(0L, start - (burst - 1) * interval - now);
+                if (wait > maxWait) {
+                    return -1L;
+                }
+                if (tat.compareAndSet(current, start + interval)) {
+                    return wait;
+                }
+            }
+        }
+
+        void recover() {
+            long min = toInterval(permitsPerSecond);
+            long current = interval.get();
+            while (current > min) {
+                double rate = TimeUnit.SECONDS.toNanos(1) / (double) current + permitsPerSecond / RECOVERY_STEPS;
+                if (interval.compareAndSet(current, Math.max(min, toInterval(rate)))) {
+                    return;
+                }
+                current = interval.get();
+            }
+        }
+
+        void slowDown() {
+            long max = toInterval(minPermitsPerSecond);
+            interval.updateAndGet(current -> Math.min(max, current * 2));
+        }
+    }
+
+    public static final class RateLimiterBuilder {
+
+        private final double permitsPerSecond;
+        private Double minPermitsPerSecond;
+        private Integer burst;
+        private boolean perEndpoint;
+        private boolean adaptive = true;
+        private LongSupplier ticker = System::nanoTime;
+
+        private RateLimiterBuilder(double permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+        }
+
+        public static RateLimiterBuilder aRateLimiter(double permitsPerSecond) {
+            return new RateLimiterBuilder(permitsPerSecond);
+        }
+
+        /**
+         * Sets the maximum number of permits taken at once after a period without requests; defaults to the number
+         * of permits per second, at least 1.
+         */
+        public RateLimiterBuilder withBurst(int burst) {
+            this.burst = burst;
+            return this;
+        }
+
+        /**
+         * Sets whether each endpoint has a bucket of its own; defaults to {@code false}, one bucket for all.
+         */
+        public RateLimiterBuilder withPerEndpoint(boolean perEndpoint) {
+            this.perEndpoint = perEndpoint;
+            return this;
+        }
+
+        /**
+         * Sets whether the rate is lowered after responses with http status 429; defaults to {@code true}.
+         */
+        public RateLimiterBuilder withAdaptive(boolean adaptive) {
+            this.adaptive = adaptive;
+            return this;
+        }
+
+        /**
+         * Sets the rate below which the rate is not lowered; defaults to a tenth of the rate.
+         */
+        public RateLimiterBuilder withMinRate(double minPermitsPerSecond) {
+            this.minPermitsPerSecond = minPermitsPerSecond;
+            return this;
+        }
+
+        RateLimiterBuilder withTicker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public RateLimiter build() {
+            RateLimiter rateLimiter = new RateLimiter(this);
+            return rateLimiter;
+        }
+    }
+}
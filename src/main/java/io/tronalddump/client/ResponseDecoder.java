@@ -0,0 +1,198 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Decodes the {@code https://api.tronalddump.io} responses straight off the response stream using a
+ * {@link JsonReader}, without materializing an intermediate JSON tree.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+final class ResponseDecoder {
+
+    private ResponseDecoder() {
+    }
+
+    /**
+     * Decodes the {@code /tags} response.
+     */
+    static List<String> decodeTags(InputStream in) throws IOException {
+        List<String> tags = new ArrayList<>();
+        JsonReader reader = new JsonReader(in);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("_embedded")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    tags.add(reader.nextString());
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return tags;
+    }
+
+    /**
+     * Decodes the {@code /quote/{id}} and {@code /random/quote} responses.
+     */
+    static Quote decodeQuote(InputStream in) throws IOException {
+        return readQuote(new JsonReader(in));
+    }
+
+    /**
+     * Decodes the {@code /search/quote} response; the quotes of the {@code _embedded.quotes} array are decoded one
+     * by one while reading.
+     */
+    static Page<Quote> decodePage(InputStream in, Pageable pageable) throws IOException {
+        long total = 0;
+        List<Quote> content = new ArrayList<>(pageable.getSize());
+        JsonReader reader = new JsonReader(in);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("total")) {
+                total = reader.nextLong();
+            } else if (name.equals("_embedded") && reader.peek() == JsonReader.Token.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals("quotes") && reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            content.add(readQuote(reader));
+                        }
+                        reader.endArray();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new Page<>(content, pageable, total);
+    }
+
+    /**
+     * Decodes an error response; falls back to the given http status in case the body is not a JSON error.
+     */
+    static TronaldHttpException decodeError(InputStream in, int httpStatus) {
+        int status = 0;
+        String message = "";
+        try {
+            JsonReader reader = new JsonReader(in);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("status")) {
+                    status = reader.nextInt();
+                } else if (name.equals("message") && reader.peek() == JsonReader.Token.STRING) {
+                    message = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+        } catch (IOException e) {
+            return new TronaldHttpException(httpStatus, "Unexpected http status " + httpStatus, e);
+        }
+        return new TronaldHttpException(status != 0 ? status : httpStatus, message);
+    }
+
+    private static Quote readQuote(JsonReader reader) throws IOException {
+        Quote quote = new Quote();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonReader.Token.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "quote_id":
+                    quote.setId(reader.nextString());
+                    break;
+                case "value":
+                    quote.setValue(reader.nextString());
+                    break;
+                case "appeared_at":
+                    long appearedAt = TimestampParser.DEFAULT.parse(reader.nextString());
+                    if (appearedAt != TimestampParser.INVALID) {
+                        quote.setDate(new Date(appearedAt));
+                    }
+                    break;
+                case "tags":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        quote.addTag(reader.nextString());
+                    }
+                    reader.endArray();
+                    break;
+                case "_embedded":
+                    readEmbeddedSource(reader, quote);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return quote;
+    }
+
+    /**
+     * Reads the {@code _embedded} object of a quote, taking the url of the first source.
+     */
+    private static void readEmbeddedSource(JsonReader reader, Quote quote) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("source") && reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+                reader.beginArray();
+                boolean first = true;
+                while (reader.hasNext()) {
+                    if (first && reader.peek() == JsonReader.Token.BEGIN_OBJECT) {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            if (reader.nextName().equals("url") && reader.peek() == JsonReader.Token.STRING) {
+                                quote.setSourceUrl(reader.nextString());
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                    } else {
+                        reader.skipValue();
+                    }
+                    first = false;
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Policy retrying the failed requests of a {@link TronaldClient}.
+ *
+ * A request is retried when it failed with a {@link TronaldHttpException} with one of the retryable http statuses, or
+ * with a {@link TronaldException} caused by one of the retryable {@link IOException} types, until the maximum number
+ * of attempts is reached. Before each retry the calling thread backs off for an exponentially growing delay, of
+ * which a random half is jitter, so clients failing at the same moment do not retry at the same moment.
+ *
+ * Retries are also bounded by a retry budget shared by all requests using the policy: each request adds
+ * {@code ratio} to the budget, up to {@code maxBurst}, and each retry takes 1 from it. So when most requests fail,
+ * e.g. because the server is down, at most {@code ratio} retries per request are sent on top of a burst of
+ * {@code maxBurst}, instead of multiplying the load by the maximum number of attempts.
+ *
+ * <pre>
+ * RetryPolicy retryPolicy = aRetryPolicy()
+ *         .withMaxAttempts(4)
+ *         .withBackoff(200, 10_000, TimeUnit.MILLISECONDS)
+ *         .withRetryBudget(0.1, 20)
+ *         .build();
+ * TronaldClient client = aTronaldClient().withRetryPolicy(retryPolicy).build();
+ * </pre>
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class RetryPolicy {
+
+    private static final long TOKEN = 1_000_000L;
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double multiplier;
+    private final Set<Integer> retryableStatuses;
+    private final List<Class<? extends IOException>> retryableExceptions;
+    private final long depositPerRequest;
+    private final long maxBalance;
+    private final AtomicLong balance;
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhaustedRetries = new LongAdder();
+
+    private RetryPolicy(RetryPolicyBuilder builder) {
+        if (builder.maxAttempts < 1) {
+            throw new IllegalArgumentException("'maxAttempts' must not be less than 1");
+        }
+        if (builder.initialBackoffNanos < 0 || builder.maxBackoffNanos < builder.initialBackoffNanos) {
+            throw new IllegalArgumentException("'initialBackoff' must not be less than 0 or greater than 'maxBackoff'");
+        }
+        if (builder.multiplier < 1.0) {
+            throw new IllegalArgumentException("'multiplier' must not be less than 1.0");
+        }
+        if (builder.ratio < 0.0 || builder.maxBurst < 0) {
+            throw new IllegalArgumentException("'ratio' and 'maxBurst' must not be less than 0");
+        }
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoffNanos = builder.initialBackoffNanos;
+        this.maxBackoffNanos = builder.maxBackoffNanos;
+        this.multiplier = builder.multiplier;
+        this.retryableStatuses = Collections.unmodifiableSet(new LinkedHashSet<>(builder.retryableStatuses));
+        this.retryableExceptions = Collections.unmodifiableList(new ArrayList<>(builder.retryableExceptions));
+        this.depositPerRequest = (long) (builder.ratio * TOKEN);
+        this.maxBalance = builder.maxBurst * TOKEN;
+        this.balance = new AtomicLong(maxBalance);
+    }
+
+    /**
+     * Returns the maximum number of attempts of a request, including the first one.
+     *
+     * @return the maximum number of attempts
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Returns the http statuses of which the requests are retried.
+     *
+     * @return the retryable http statuses
+     */
+    public Set<Integer> getRetryableStatuses() {
+        return retryableStatuses;
+    }
+
+    /**
+     * Returns the {@link IOException} types, including their subtypes, of which the requests are retried.
+     *
+     * @return the retryable exception types
+     */
+    public List<Class<? extends IOException>> getRetryableExceptions() {
+        return retryableExceptions;
+    }
+
+    /**
+     * Returns the number of retries sent.
+     *
+     * @return the retry count
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * Returns the number of retries not sent because the retry budget was exhausted.
+     *
+     * @return the exhausted retry count
+     */
+    public long getExhaustedRetryCount() {
+        return exhaustedRetries.sum();
+    }
+
+    /**
+     * Returns whether the given failure is retryable, regardless of the attempts and budget.
+     *
+     * @param e the failure, not null
+     * @return whether the failure is retryable
+     */
+    public boolean isRetryable(TronaldException e) {
+        requireNonNull(e, "'e' must not be null");
+        if (e instanceof TronaldHttpException) {
+            return retryableStatuses.contains(((TronaldHttpException) e).getHttpStatus());
+        }
+        Throwable cause = e.getCause();
+        for (Class<? extends IOException> type : retryableExceptions) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the share of a new request to the retry budget.
+     */
+    void onRequest() {
+        if (depositPerRequest > 0) {
+            balance.accumulateAndGet(depositPerRequest, (current, deposit) -> Math.min(maxBalance, current + deposit));
+        }
+    }
+
+    /**
+     * Returns whether the request that failed with the given exception in the given attempt is retried, taking the
+     * retry from the budget if so.
+     */
+    boolean shouldRetry(TronaldException e, int attempt) {
+        if (attempt >= maxAttempts || !isRetryable(e)) {
+            return false;
+        }
+        while (true) {
+            long current = balance.get();
+            if (current < TOKEN) {
+                exhaustedRetries.increment();
+                return false;
+            }
+            if (balance.compareAndSet(current, current - TOKEN)) {
+                retries.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the delay before the retry following the given attempt: half of the exponential backoff plus a random
+     * part of the other half.
+     */
+    long getBackoffNanos(int attempt) {
+        double backoff = initialBackoffNanos * Math.pow(multiplier, attempt - 1);
+        long cap = (long) Math.min(maxBackoffNanos, backoff);
+        long half = cap / 2;
+        return half + ThreadLocalRandom.current().nextLong(cap - half + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "maxAttempts=" + maxAttempts +
+                ", initialBackoffNanos=" + initialBackoffNanos +
+                ", maxBackoffNanos=" + maxBackoffNanos +
+                ", multiplier=" + multiplier +
+                ", retryableStatuses=" + retryableStatuses +
+                ", retryableExceptions=" + retryableExceptions +
+                '}';
+    }
+
+    public static final class RetryPolicyBuilder {
+
+        private int maxAttempts = 3;
+        private long initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(100);
+        private long maxBackoffNanos = TimeUnit.SECONDS.toNanos(5);
+        private double multiplier = 2.0;
+        private Set<Integer> retryableStatuses = new LinkedHashSet<>(Arrays.asList(429, 500, 502, 503, 504));
+        private List<Class<? extends IOException>> retryableExceptions =
+                new ArrayList<>(Arrays.asList(SocketException.class, SocketTimeoutException.class));
+        private double ratio = 0.2;
+        private int maxBurst = 10;
+
+        private RetryPolicyBuilder() {
+        }
+
+        public static RetryPolicyBuilder aRetryPolicy() {
+            return new RetryPolicyBuilder();
+        }
+
+        /**
+         * Sets the maximum number of attempts of a request, including the first one; defaults to 3.
+         */
+        public RetryPolicyBuilder withMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Sets the backoff before the first retry and the maximum backoff; defaults to 100 milliseconds and 5 seconds.
+         */
+        public RetryPolicyBuilder withBackoff(long initialBackoff, long maxBackoff, TimeUnit unit) {
+            requireNonNull(unit, "'unit' must not be null");
+            this.initialBackoffNanos = unit.toNanos(initialBackoff);
+            this.maxBackoffNanos = unit.toNanos(maxBackoff);
+            return this;
+        }
+
+        /**
+         * Sets the factor by which the backoff grows with each retry; defaults to 2.0.
+         */
+        public RetryPolicyBuilder withMultiplier(double multiplier) {
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * Sets the http statuses of which the requests are retried; defaults to 429, 500, 502, 503 and 504.
+         */
+        public RetryPolicyBuilder withRetryableStatuses(Integer... statuses) {
+            return withRetryableStatuses(Arrays.asList(statuses));
+        }
+
+        /**
+         * Sets the http statuses of which the requests are retried; defaults to 429, 500, 502, 503 and 504.
+         */
+        public RetryPolicyBuilder withRetryableStatuses(Collection<Integer> statuses) {
+            this.retryableStatuses = new LinkedHashSet<>(statuses);
+            return this;
+        }
+
+        /**
+         * Sets the {@link IOException} types of which the requests are retried; defaults to {@link SocketException},
+         * e.g. a connection reset or refused, and {@link SocketTimeoutException}.
+         */
+        @SafeVarargs
+        public final RetryPolicyBuilder withRetryableExceptions(Class<? extends IOException>... types) {
+            List<Class<? extends IOException>> list = new ArrayList<>(types.length);
+            for (Class<? extends IOException> type : types) {
+                list.add(type);
+            }
+            return withRetryableExceptions(list);
+        }
+
+        /**
+         * Sets the {@link IOException} types of which the requests are retried; defaults to {@link SocketException},
+         * e.g. a connection reset or refused, and {@link SocketTimeoutException}.
+         */
+        public RetryPolicyBuilder withRetryableExceptions(Collection<Class<? extends IOException>> types) {
+            this.retryableExceptions = new ArrayList<>(types);
+            return this;
+        }
+
+        /**
+         * Sets the retry budget: the retries each request adds to the budget and the maximum of retries in the
+         * budget; defaults to 0.2 and 10.
+         */
+        public RetryPolicyBuilder withRetryBudget(double ratio, int maxBurst) {
+            this.ratio = ratio;
+            this.maxBurst = maxBurst;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            RetryPolicy retryPolicy = new RetryPolicy(this);
+            return retryPolicy;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * In-memory inverted index over the values of a set of quotes, to answer searches without a request.
+ *
+ * Values are tokenized into lowercase runs of letters and digits; a quote matches a query when its value contains
+ * every token of the query. The matches are returned in the order the quotes were given, sliced into the requested
+ * page with the total number of matches, the same shape as a search request. An index built with a maximum age
+ * becomes stale after that time, after which {@link TronaldClient} no longer uses it.
+ *
+ * <pre>
+ * SearchIndex index = new SearchIndex(quotes, 1, TimeUnit.HOURS);
+ * TronaldClient client = aTronaldClient().withSearchIndex(index).build();
+ * </pre>
+ *
+ * @author Marcel Overdijk
+ * @see TronaldClient.TronaldClientBuilder#withSearchIndex(SearchIndex)
+ * @since 1.1.0
+ */
+public class SearchIndex {
+
+    private static final int[] NO_MATCHES = new int[0];
+
+    private final Quote[] quotes;
+    private final Map<String, int[]> postings;
+    private final long createdNanos;
+    private final long maxAgeNanos;
+    private final LongSupplier ticker;
+
+    /**
+     * Creates a new {@code SearchIndex} over the given quotes, which never becomes stale.
+     *
+     * @param quotes the quotes, not null
+     */
+    public SearchIndex(Collection<Quote> quotes) {
+        this(quotes, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates a new {@code SearchIndex} over the given quotes, which becomes stale after the given time.
+     *
+     * @param quotes the quotes, not null
+     * @param maxAge the time after which the index is stale, or {@code 0} to never become stale
+     * @param unit the time unit of the maximum age, not null
+     */
+    public SearchIndex(Collection<Quote> quotes, long maxAge, TimeUnit unit) {
+        this(quotes, maxAge, unit, System::nanoTime);
+    }
+
+    SearchIndex(Collection<Quote> quotes, long maxAge, TimeUnit unit, LongSupplier ticker) {
+        requireNonNull(quotes, "'quotes' must not be null");
+        requireNonNull(unit, "'unit' must not be null");
+        if (maxAge < 0) {
+            throw new IllegalArgumentException("'maxAge' must not be less than 0");
+        }
+        this.quotes = new Quote[quotes.size()];
+        Map<String, int[]> postings = new HashMap<>();
+        Map<String, Integer> counts = new HashMap<>();
+        int ordinal = 0;
+        for (Quote quote : quotes) {
+            this.quotes[ordinal] = quote.copy();
+            for (String token : tokenize(quote.getValue())) {
+                int[] posting = postings.get(token);
+                int count = counts.getOrDefault(token, 0);
+                if (posting == null) {
+                    posting = new int[4];
+                } else if (count == posting.length) {
+                    posting = Arrays.copyOf(posting, count * 2);
+                }
+                posting[count] = ordinal;
+                postings.put(token, posting);
+                counts.put(token, count + 1);
+            }
+            ordinal++;
+        }
+        for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+            entry.setValue(Arrays.copyOf(entry.getValue(), counts.get(entry.getKey())));
+        }
+        this.postings = postings;
+        this.maxAgeNanos = unit.toNanos(maxAge);
+        this.ticker = ticker;
+        this.createdNanos = ticker.getAsLong();
+    }
+
+    /**
+     * Returns the number of indexed quotes.
+     *
+     * @return the number of quotes
+     */
+    public int size() {
+        return quotes.length;
+    }
+
+    /**
+     * Returns the number of distinct tokens.
+     *
+     * @return the number of tokens
+     */
+    public int getTokenCount() {
+        return postings.size();
+    }
+
+    /**
+     * Returns whether the index is older than its maximum age.
+     *
+     * @return whether the index is stale
+     */
+    public boolean isStale() {
+        return maxAgeNanos != 0 && ticker.getAsLong() - createdNanos >= maxAgeNanos;
+    }
+
+    /**
+     * Returns a page of the quotes matching the given free text query.
+     *
+     * @param query the free text query, not null
+     * @param pageable the pagination information, not null
+     * @return the page of quotes; a query without tokens matches no quotes
+     * @see TronaldClient#search(String, Pageable)
+     */
+    public Page<Quote> search(String query, Pageable pageable) {
+        requireNonNull(query, "'query' must not be null");
+        requireNonNull(pageable, "'pageable' must not be null");
+        int[] matches = match(tokenize(query));
+        long offset = (long) (pageable.getPage() - 1) * pageable.getSize();
+        int from = (int) Math.min(offset, matches.length);
+        int to = (int) Math.min(offset + pageable.getSize(), matches.length);
+        List<Quote> content = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            content.add(quotes[matches[i]].copy());
+        }
+        return new Page<>(content, pageable, matches.length);
+    }
+
+    /**
+     * Returns the ordinals of the quotes containing all given tokens, in ascending order.
+     */
+    private int[] match(Set<String> tokens) {
+        if (tokens.isEmpty()) {
+            return NO_MATCHES;
+        }
+        List<int[]> lists = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            int[] posting = postings.get(token);
+            if (posting == null) {
+                return NO_MATCHES;
+            }
+            lists.add(posting);
+        }
+        lists.sort((a, b) -> Integer.compare(a.length, b.length));
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Returns the distinct lowercase runs of letters and digits of the given text, in order of appearance.
+     */
+    static Set<String> tokenize(String text) {
+        if (text == null) {
+            return Collections.emptySet();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
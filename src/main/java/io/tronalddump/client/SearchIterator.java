@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Lazy iterator over the quotes of all pages of a search, fetching the pages on demand while reading ahead a number of
+ * pages in the background.
+ *
+ * The first page is fetched on the first call to {@link #hasNext()}; its total determines the last page. After a page
+ * is taken, the next {@code prefetch} pages are requested asynchronously, so at most that many requests are in flight
+ * and at most that many pages are held ahead of the consumer. Closing the iterator cancels the pending requests. Not
+ * thread-safe.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+final class SearchIterator implements Iterator<Quote>, AutoCloseable {
+
+    private final TronaldClient client;
+    private final String query;
+    private final int size;
+    private final int prefetch;
+    private final Deque<CompletableFuture<Page<Quote>>> pending = new ArrayDeque<>();
+    private int nextPage;
+    private int lastPage = Integer.MAX_VALUE;
+    private Iterator<Quote> current;
+    private boolean closed;
+
+    SearchIterator(TronaldClient client, String query, Pageable pageable, int prefetch) {
+        if (prefetch < 0) {
+            throw new IllegalArgumentException("'prefetch' must not be less than 0");
+        }
+        this.client = client;
+        this.query = query;
+        this.size = pageable.getSize();
+        this.prefetch = prefetch;
+        this.nextPage = pageable.getPage();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (current == null || !current.hasNext()) {
+            if (closed) {
+                return false;
+            }
+            if (pending.isEmpty()) {
+                if (nextPage > lastPage) {
+                    return false;
+                }
+                request();
+            }
+            Page<Quote> page = take(pending.poll());
+            lastPage = page.getTotalPages();
+            current = page.iterator();
+            while (pending.size() < prefetch && nextPage <= lastPage) {
+                request();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Quote next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * Cancels the pending page requests; the iterator has no more elements afterwards.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        current = null;
+        for (CompletableFuture<Page<Quote>> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+    }
+
+    private void request() {
+        pending.add(client.searchAsync(query, new Pageable(nextPage++, size)));
+    }
+
+    private Page<Quote> take(CompletableFuture<Page<Quote>> future) {
+        try {
+            return Futures.join(future);
+        } catch (TronaldException e) {
+            close();
+            throw e;
+        }
+    }
+}
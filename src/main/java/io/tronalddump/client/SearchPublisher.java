@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link Flow.Publisher} of the quotes of all pages of a search, fetching the pages as the demand of the subscriber
+ * calls for them.
+ *
+ * Each subscription fetches the pages on its own, starting with the first page when items are requested; its total
+ * determines the last page. The next page is requested asynchronously when the quotes of the buffered and in-flight
+ * pages fall short of the outstanding demand, with at most {@code maxBufferedPages} pages buffered or in flight, so a
+ * slow subscriber holds back the requests instead of accumulating pages. Cancelling the subscription cancels the
+ * pending requests; a failing page request is signalled as its {@link TronaldException}.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+final class SearchPublisher implements Flow.Publisher<Quote> {
+
+    private final TronaldClient client;
+    private final String query;
+    private final Pageable pageable;
+    private final int maxBufferedPages;
+
+    SearchPublisher(TronaldClient client, String query, Pageable pageable, int maxBufferedPages) {
+        if (maxBufferedPages < 1) {
+            throw new IllegalArgumentException("'maxBufferedPages' must not be less than 1");
+        }
+        this.client = client;
+        this.query = query;
+        this.pageable = pageable;
+        this.maxBufferedPages = maxBufferedPages;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Quote> subscriber) {
+        requireNonNull(subscriber, "'subscriber' must not be null");
+        subscriber.onSubscribe(new SearchSubscription(subscriber));
+    }
+
+    private final class SearchSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super Quote> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+
+        // only accessed while draining
+        private final Deque<CompletableFuture<Page<Quote>>> pending = new ArrayDeque<>();
+        private Iterator<Quote> current;
+        private int remaining;
+        private long emitted;
+        private int nextPage = pageable.getPage();
+        private int lastPage = -1;
+        private boolean done;
+
+        private SearchSubscription(Flow.Subscriber<? super Quote> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("'n' must be greater than 0");
+            } else {
+                requested.accumulateAndGet(n, (r, m) -> r + m < 0 ? Long.MAX_VALUE : r + m);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        /**
+         * Emits the available quotes up to the demand and requests the pages needed for the remaining demand, by a
+         * single thread at a time; a thread finding another one draining makes that one loop again.
+         */
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (!done) {
+                    if (invalidRequest != null) {
+                        terminate();
+                        subscriber.onError(invalidRequest);
+                    } else if (cancelled) {
+                        terminate();
+                    } else {
+                        emit();
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            long demand = requested.get();
+            while (emitted != demand && !cancelled) {
+                if (remaining > 0) {
+                    remaining--;
+                    emitted++;
+                    subscriber.onNext(current.next());
+                    continue;
+                }
+                CompletableFuture<Page<Quote>> next = pending.peek();
+                if (next == null || !next.isDone()) {
+                    break;
+                }
+                pending.poll();
+                Page<Quote> page;
+                try {
+                    page = Futures.join(next);
+                } catch (TronaldException e) {
+                    terminate();
+                    subscriber.onError(e);
+                    return;
+                }
+                lastPage = page.getTotalPages();
+                current = page.iterator();
+                remaining = page.getNumberOfElements();
+            }
+            if (cancelled) {
+                return;
+            }
+            if (remaining == 0 && pending.isEmpty() && lastPage >= 0 && nextPage > lastPage) {
+                terminate();
+                subscriber.onComplete();
+                return;
+            }
+            long shortfall = demand == Long.MAX_VALUE ? Long.MAX_VALUE : demand - emitted;
+            long buffered = remaining + (long) pending.size() * pageable.getSize();
+            while (buffered < shortfall && pending.size() + (remaining > 0 ? 1 : 0) < maxBufferedPages
+                    && (lastPage >= 0 ? nextPage <= lastPage : pending.isEmpty())) {
+                CompletableFuture<Page<Quote>> future = client.searchAsync(query,
+                        new Pageable(nextPage++, pageable.getSize()));
+                pending.add(future);
+                buffered += pageable.getSize();
+                future.whenComplete((page, e) -> drain());
+            }
+        }
+
+        private void terminate() {
+            done = true;
+            current = null;
+            remaining = 0;
+            for (CompletableFuture<Page<Quote>> future : pending) {
+                future.cancel(false);
+            }
+            pending.clear();
+        }
+    }
+}
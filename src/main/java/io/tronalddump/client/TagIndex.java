@@ -0,0 +1,229 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * In-memory index of a set of quotes by tag, to select random quotes by tag without a request.
+ *
+ * Each quote gets a dense ordinal in the order the quotes were given, and each tag a bitmap of the ordinals of its
+ * quotes; a bitmap is stored as a sorted array or as a bitset, whichever is smaller. The number of quotes with a tag
+ * is known without scanning, a random quote with a tag is selected by rank, and quotes with any or all of several tags
+ * are found by combining the bitmaps.
+ *
+ * <pre>
+ * TagIndex index = new TagIndex(quotes);
+ * Quote quote = index.getRandomQuoteWithAllTags(Arrays.asList("Hillary Clinton", "Money"));
+ * </pre>
+ *
+ * @author Marcel Overdijk
+ * @see TronaldClient.TronaldClientBuilder#withTagIndex(TagIndex)
+ * @since 1.1.0
+ */
+public class TagIndex {
+
+    private final Quote[] quotes;
+    private final Map<String, Bitmap> bitmaps;
+
+    /**
+     * Creates a new {@code TagIndex} over the given quotes.
+     *
+     * @param quotes the quotes, not null
+     */
+    public TagIndex(Collection<Quote> quotes) {
+        requireNonNull(quotes, "'quotes' must not be null");
+        this.quotes = new Quote[quotes.size()];
+        Map<String, int[]> ordinals = new LinkedHashMap<>();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        int ordinal = 0;
+        for (Quote quote : quotes) {
+            this.quotes[ordinal] = quote.copy();
+            for (String tag : quote.getTags()) {
+                int[] tagOrdinals = ordinals.get(tag);
+                int count = counts.getOrDefault(tag, 0);
+                if (tagOrdinals == null) {
+                    tagOrdinals = new int[4];
+                } else if (count > 0 && tagOrdinals[count - 1] == ordinal) {
+                    continue; // tag listed twice on the same quote
+                } else if (count == tagOrdinals.length) {
+                    tagOrdinals = Arrays.copyOf(tagOrdinals, count * 2);
+                }
+                tagOrdinals[count] = ordinal;
+                ordinals.put(tag, tagOrdinals);
+                counts.put(tag, count + 1);
+            }
+            ordinal++;
+        }
+        this.bitmaps = new LinkedHashMap<>();
+        for (Map.Entry<String, int[]> entry : ordinals.entrySet()) {
+            bitmaps.put(entry.getKey(), Bitmap.of(entry.getValue(), counts.get(entry.getKey())));
+        }
+    }
+
+    /**
+     * Returns the number of indexed quotes.
+     *
+     * @return the number of quotes
+     */
+    public int size() {
+        return quotes.length;
+    }
+
+    /**
+     * Returns the tags of the indexed quotes, in order of first appearance.
+     *
+     * @return the unmodifiable list of tags
+     */
+    public List<String> getTags() {
+        return Collections.unmodifiableList(new ArrayList<>(bitmaps.keySet()));
+    }
+
+    /**
+     * Returns whether any indexed quote has the given tag.
+     *
+     * @param tag the tag
+     * @return whether the tag is indexed
+     */
+    public boolean contains(String tag) {
+        return tag != null && bitmaps.containsKey(tag);
+    }
+
+    /**
+     * Returns the number of quotes with the given tag.
+     *
+     * @param tag the tag, not null
+     * @return the number of quotes
+     */
+    public int getCardinality(String tag) {
+        return bitmap(tag).cardinality();
+    }
+
+    /**
+     * Returns a random quote.
+     *
+     * @return the quote, or {@code null} if there are no quotes
+     */
+    public Quote getRandomQuote() {
+        return quotes.length == 0 ? null : quotes[ThreadLocalRandom.current().nextInt(quotes.length)].copy();
+    }
+
+    /**
+     * Returns a random quote with the given tag.
+     *
+     * @param tag the tag, not null
+     * @return the quote, or {@code null} if there are no quotes with the tag
+     */
+    public Quote getRandomQuote(String tag) {
+        return random(bitmap(tag));
+    }
+
+    /**
+     * Returns a random quote with any of the given tags.
+     *
+     * @param tags the tags, not null
+     * @return the quote, or {@code null} if there are no quotes with any of the tags
+     */
+    public Quote getRandomQuoteWithAnyTag(Collection<String> tags) {
+        return random(anyOf(tags));
+    }
+
+    /**
+     * Returns a random quote with all of the given tags.
+     *
+     * @param tags the tags, not null
+     * @return the quote, or {@code null} if there are no quotes with all of the tags
+     */
+    public Quote getRandomQuoteWithAllTags(Collection<String> tags) {
+        return random(allOf(tags));
+    }
+
+    /**
+     * Returns the quotes with any of the given tags, in index order.
+     *
+     * @param tags the tags, not null
+     * @return the quotes
+     */
+    public List<Quote> getQuotesWithAnyTag(Collection<String> tags) {
+        return quotes(anyOf(tags));
+    }
+
+    /**
+     * Returns the quotes with all of the given tags, in index order.
+     *
+     * @param tags the tags, not null
+     * @return the quotes
+     */
+    public List<Quote> getQuotesWithAllTags(Collection<String> tags) {
+        return quotes(allOf(tags));
+    }
+
+    private Bitmap bitmap(String tag) {
+        Bitmap bitmap = bitmaps.get(requireNonNull(tag, "'tag' must not be null"));
+        return bitmap != null ? bitmap : Bitmap.EMPTY;
+    }
+
+    private Bitmap anyOf(Collection<String> tags) {
+        requireNonNull(tags, "'tags' must not be null");
+        Bitmap result = Bitmap.EMPTY;
+        for (String tag : tags) {
+            result = result.or(bitmap(tag));
+        }
+        return result;
+    }
+
+    private Bitmap allOf(Collection<String> tags) {
+        requireNonNull(tags, "'tags' must not be null");
+        if (tags.isEmpty()) {
+            return Bitmap.EMPTY;
+        }
+        List<Bitmap> sorted = new ArrayList<>(tags.size());
+        for (String tag : tags) {
+            sorted.add(bitmap(tag));
+        }
+        sorted.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+        Bitmap result = sorted.get(0);
+        for (int i = 1; i < sorted.size() && result.cardinality() > 0; i++) {
+            result = result.and(sorted.get(i));
+        }
+        return result;
+    }
+
+    private Quote random(Bitmap bitmap) {
+        if (bitmap.cardinality() == 0) {
+            return null;
+        }
+        return quotes[bitmap.select(ThreadLocalRandom.current().nextInt(bitmap.cardinality()))].copy();
+    }
+
+    private List<Quote> quotes(Bitmap bitmap) {
+        List<Quote> result = new ArrayList<>(bitmap.cardinality());
+        for (int ordinal : bitmap.toArray()) {
+            result.add(quotes[ordinal].copy());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Registry of the available tags, loaded once and refreshed in the background.
+ *
+ * Reads are served from an immutable snapshot held in a volatile field, so they never lock and never wait for a
+ * refresh; a refresh builds a new snapshot and swaps it in. Until the first load completes the registry is empty, see
+ * {@link #isLoaded()}. A failed refresh keeps the previous snapshot.
+ *
+ * <pre>
+ * TagRegistry tags = new TagRegistry(client, 10, TimeUnit.MINUTES);
+ * if (tags.contains(tag)) {
+ *     Quote quote = client.getRandomQuote(tag);
+ * }
+ * </pre>
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class TagRegistry implements Closeable {
+
+    private static final Snapshot EMPTY = new Snapshot(Collections.<String>emptyList(), 0);
+
+    private final TronaldClient client;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicReference<CompletableFuture<List<String>>> inFlight = new AtomicReference<>();
+    private volatile Snapshot snapshot = EMPTY;
+
+    /**
+     * Creates a new {@code TagRegistry} loading the tags now and refreshing them on demand only.
+     *
+     * @param client the client to retrieve the tags with, not null
+     */
+    public TagRegistry(TronaldClient client) {
+        this.client = requireNonNull(client, "'client' must not be null");
+        this.scheduler = null;
+        refresh();
+    }
+
+    /**
+     * Creates a new {@code TagRegistry} loading the tags now and refreshing them with the given interval.
+     *
+     * @param client the client to retrieve the tags with, not null
+     * @param refreshInterval the interval between the end of a refresh and the start of the next, must be positive
+     * @param unit the time unit of the interval, not null
+     */
+    public TagRegistry(TronaldClient client, long refreshInterval, TimeUnit unit) {
+        this.client = requireNonNull(client, "'client' must not be null");
+        requireNonNull(unit, "'unit' must not be null");
+        if (refreshInterval <= 0) {
+            throw new IllegalArgumentException("'refreshInterval' must be positive");
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("tronald-tag-registry"));
+        refresh();
+        scheduler.scheduleWithFixedDelay(() -> refresh().handle((tags, e) -> null).join(),
+                refreshInterval, refreshInterval, unit);
+    }
+
+    /**
+     * Returns the available tags.
+     *
+     * @return the unmodifiable list of tags, empty if not loaded yet
+     */
+    public List<String> getTags() {
+        return snapshot.tags;
+    }
+
+    /**
+     * Returns whether the given tag is available.
+     *
+     * @param tag the tag
+     * @return whether the tag is available; {@code false} if not loaded yet
+     */
+    public boolean contains(String tag) {
+        return tag != null && snapshot.set.contains(tag);
+    }
+
+    /**
+     * Returns whether the tags have been loaded at least once.
+     *
+     * @return whether the tags are loaded
+     */
+    public boolean isLoaded() {
+        return snapshot != EMPTY;
+    }
+
+    /**
+     * Returns the time of the last successful refresh.
+     *
+     * @return the milliseconds since the epoch, or {@code 0} if not loaded yet
+     */
+    public long getLastRefreshed() {
+        return snapshot.refreshed;
+    }
+
+    /**
+     * Refreshes the tags asynchronously. If a refresh is already in progress, no new one is started.
+     *
+     * @return the future completing with the refreshed tags, or exceptionally with a {@link TronaldException} in which
+     * case the previous tags are kept
+     */
+    public CompletableFuture<List<String>> refresh() {
+        while (true) {
+            CompletableFuture<List<String>> current = inFlight.get();
+            if (current != null) {
+                return current;
+            }
+            CompletableFuture<List<String>> future = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, future)) {
+                client.getTagsAsync().whenComplete((tags, e) -> {
+                    if (e == null) {
+                        Snapshot refreshed = new Snapshot(tags, System.currentTimeMillis());
+                        snapshot = refreshed;
+                        inFlight.set(null);
+                        future.complete(refreshed.tags);
+                    } else {
+                        inFlight.set(null);
+                        future.completeExceptionally(e);
+                    }
+                });
+                return future;
+            }
+        }
+    }
+
+    /**
+     * Stops the scheduled refreshes.
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final List<String> tags;
+        private final Set<String> set;
+        private final long refreshed;
+
+        Snapshot(List<String> tags, long refreshed) {
+            this.tags = Collections.unmodifiableList(new ArrayList<>(tags));
+            this.set = new HashSet<>(tags);
+            this.refreshed = refreshed;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.util.TimeZone;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Thread-safe parser for the {@code yyyy-MM-dd'T'HH:mm:ss} timestamps of {@code https://api.tronalddump.io}.
+ *
+ * Parses the fixed positions of the pattern directly, without allocating. Like {@link TronaldClient#DATE_FORMAT},
+ * the timestamps are interpreted in the time zone that was the JVM default when the parser was created, and
+ * characters after the seconds are ignored.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+final class TimestampParser {
+
+    /**
+     * The value returned by {@link #parse(CharSequence)} in case the text is not a valid timestamp.
+     */
+    static final long INVALID = Long.MIN_VALUE;
+
+    static final TimestampParser DEFAULT = new TimestampParser(TimeZone.getDefault());
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    private final TimeZone zone;
+    private final boolean fixedOffset;
+    private final int rawOffset;
+
+    /**
+     * Creates a new {@code TimestampParser} interpreting the timestamps in the given time zone.
+     *
+     * @param zone the time zone, not null; must not be modified afterwards
+     */
+    TimestampParser(TimeZone zone) {
+        this.zone = requireNonNull(zone, "'zone' must not be null");
+        this.fixedOffset = !zone.useDaylightTime() && zone.toZoneId().getRules().isFixedOffset();
+        this.rawOffset = zone.getRawOffset();
+    }
+
+    /**
+     * Parses the given timestamp.
+     *
+     * @param text the timestamp, not null
+     * @return the milliseconds since the epoch, or {@link #INVALID}
+     */
+    long parse(CharSequence text) {
+        if (text.length() < 19
+                || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+                || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return INVALID;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return INVALID;
+        }
+        long local = epochDay(year, month, day) * MILLIS_PER_DAY + ((hour * 60 + minute) * 60 + second) * 1000L;
+        if (fixedOffset) {
+            return local - rawOffset;
+        }
+        // the offset at the estimated instant, corrected once in case that estimate is on the other side of a transition
+        int offset = zone.getOffset(local - rawOffset);
+        int corrected = zone.getOffset(local - offset);
+        return local - (offset == corrected ? offset : corrected);
+    }
+
+    /**
+     * Returns the value of the given number of decimal digits, or -1 if a character is not a digit.
+     */
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Returns the number of days since 1970-01-01 of the given proleptic Gregorian date.
+     */
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+}
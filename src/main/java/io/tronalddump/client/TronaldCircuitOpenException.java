@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+/**
+ * {@link TronaldClient} exception in case a request is rejected because the {@link CircuitBreaker} of its endpoint is
+ * open.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class TronaldCircuitOpenException extends TronaldException {
+
+    private Endpoint endpoint;
+
+    public TronaldCircuitOpenException(Endpoint endpoint, String message) {
+        super(message);
+        this.endpoint = endpoint;
+    }
+
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+}
@@ -16,22 +16,35 @@
 
 package io.tronalddump.client;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.SocketTimeoutException;
 import java.net.URLEncoder;
 import java.text.DateFormat;
-import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-
-import org.json.JSONArray;
-import org.json.JSONObject;
-import org.json.JSONTokener;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static io.tronalddump.client.Pageable.PageableBuilder.aPageable;
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -44,8 +57,265 @@ public class TronaldClient {
 
     public static final String BASE_URL = "https://api.tronalddump.io";
 
+    /**
+     * The maximum number of concurrent requests of a batch by default.
+     */
+    public static final int DEFAULT_BATCH_CONCURRENCY = 5;
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * The format of the quote dates. Note a {@link DateFormat} is not thread-safe; the client parses the dates with
+     * its own thread-safe parser, interpreting them in the default time zone like this format does.
+     */
     public static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
 
+    private final String baseUrl;
+    private final HttpTransport transport;
+    private final Executor executor;
+    private final QuoteCache quoteCache;
+    private final boolean quoteCachePopulatedBySearch;
+    private final QuoteSnapshot snapshot;
+    private final SearchIndex searchIndex;
+    private final TagIndex tagIndex;
+    private final ClientMetrics metrics;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final RateLimiter rateLimiter;
+    private final long callTimeoutNanos;
+
+    /**
+     * Creates a new {@code TronaldClient} for {@link #BASE_URL} using a {@link UrlConnectionTransport} and executing
+     * asynchronous requests on an internal executor.
+     *
+     * @see TronaldClientBuilder
+     */
+    public TronaldClient() {
+        this(aTronaldClient());
+    }
+
+    /**
+     * Creates a new {@code TronaldClient} for {@link #BASE_URL} using a {@link UrlConnectionTransport} and executing
+     * asynchronous requests on the given executor.
+     *
+     * @param executor the executor used to execute asynchronous requests, not null
+     * @see TronaldClientBuilder
+     * @since 1.1.0
+     */
+    public TronaldClient(Executor executor) {
+        this(aTronaldClient().withExecutor(requireNonNull(executor, "'executor' must not be null")));
+    }
+
+    /**
+     * Creates a new {@code TronaldClient} for {@link #BASE_URL} using the given transport and executing asynchronous
+     * requests on an internal executor.
+     *
+     * @param transport the transport used to execute the http requests, not null
+     * @see TronaldClientBuilder
+     * @since 1.1.0
+     */
+    public TronaldClient(HttpTransport transport) {
+        this(aTronaldClient().withTransport(requireNonNull(transport, "'transport' must not be null")));
+    }
+
+    /**
+     * Creates a new {@code TronaldClient} for {@link #BASE_URL} using the given transport and executing asynchronous
+     * requests on the given executor.
+     *
+     * @param transport the transport used to execute the http requests, not null
+     * @param executor the executor used to execute asynchronous requests, not null
+     * @see TronaldClientBuilder
+     * @since 1.1.0
+     */
+    public TronaldClient(HttpTransport transport, Executor executor) {
+        this(aTronaldClient()
+                .withTransport(requireNonNull(transport, "'transport' must not be null"))
+                .withExecutor(requireNonNull(executor, "'executor' must not be null")));
+    }
+
+    private TronaldClient(TronaldClientBuilder builder) {
+        this.baseUrl = builder.baseUrl;
+        HttpTransport transport = builder.transport;
+        if (transport == null) {
+            transport = new UrlConnectionTransport(UrlConnectionTransport.DEFAULT_MAX_CONNECTIONS_PER_HOST,
+                    builder.connectTimeoutMillis, builder.readTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        if (builder.compression) {
+            // below the cache, so stored responses are decoded whether or not they were requested compressed
+            transport = new CompressionTransport(transport);
+        }
+        if (builder.responseCacheDirectory != null) {
+            String tagsUrl = baseUrl + "/tags";
+            String quoteUrl = baseUrl + "/quote/";
+            try {
+                transport = new CachingTransport(transport, builder.responseCacheDirectory,
+                        request -> request.getUrl().equals(tagsUrl) || request.getUrl().startsWith(quoteUrl));
+            } catch (IOException e) {
+                throw new TronaldException("Unable to create response cache in " + builder.responseCacheDirectory, e);
+            }
+        }
+        if (builder.requestCoalescing) {
+            transport = new CoalescingTransport(transport);
+        }
+        this.transport = transport;
+        this.executor = builder.executor;
+        this.quoteCache = builder.quoteCache;
+        this.quoteCachePopulatedBySearch = builder.quoteCachePopulatedBySearch;
+        this.snapshot = builder.snapshot;
+        this.searchIndex = builder.searchIndex;
+        this.tagIndex = builder.tagIndex;
+        this.metrics = builder.metrics;
+        this.retryPolicy = builder.retryPolicy;
+        this.circuitBreaker = builder.circuitBreaker;
+        this.rateLimiter = builder.rateLimiter;
+        this.callTimeoutNanos = builder.callTimeoutNanos;
+    }
+
+    private TronaldClient(TronaldClient client, long callTimeoutNanos) {
+        this.baseUrl = client.baseUrl;
+        this.transport = client.transport;
+        this.executor = client.executor;
+        this.quoteCache = client.quoteCache;
+        this.quoteCachePopulatedBySearch = client.quoteCachePopulatedBySearch;
+        this.snapshot = client.snapshot;
+        this.searchIndex = client.searchIndex;
+        this.tagIndex = client.tagIndex;
+        this.metrics = client.metrics;
+        this.retryPolicy = client.retryPolicy;
+        this.circuitBreaker = client.circuitBreaker;
+        this.rateLimiter = client.rateLimiter;
+        this.callTimeoutNanos = callTimeoutNanos;
+    }
+
+    /**
+     * Returns a client sharing the configuration, transport and state of this client, of which each call must
+     * complete within the given timeout.
+     *
+     * <pre>
+     * Quote quote = client.withCallTimeout(500, TimeUnit.MILLISECONDS).getQuote(id);
+     * </pre>
+     *
+     * @param timeout the call timeout, or {@code 0} for none
+     * @param unit the time unit of the timeout, not null
+     * @return the client with the call timeout
+     * @see TronaldClientBuilder#withCallTimeout(long, TimeUnit)
+     * @since 1.1.0
+     */
+    public TronaldClient withCallTimeout(long timeout, TimeUnit unit) {
+        return new TronaldClient(this, toCallTimeoutNanos(timeout, unit));
+    }
+
+    /**
+     * Returns the maximum time of a call, from connecting to decoding the response, including retries.
+     *
+     * @return the call timeout in nanoseconds, or {@code 0} if none
+     * @since 1.1.0
+     */
+    public long getCallTimeout() {
+        return callTimeoutNanos;
+    }
+
+    /**
+     * Returns the base url the requests are sent to.
+     *
+     * @return the base url, without trailing slash
+     * @since 1.1.0
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Returns the transport used to execute the http requests, including the decorators configured with the builder
+     * like the {@link CachingTransport}, {@link CoalescingTransport} and {@link CompressionTransport}.
+     *
+     * @return the transport
+     * @since 1.1.0
+     */
+    public HttpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Returns the cache in front of {@link #getQuote(String)}.
+     *
+     * @return the quote cache, or {@code null} if not configured
+     * @since 1.1.0
+     */
+    public QuoteCache getQuoteCache() {
+        return quoteCache;
+    }
+
+    /**
+     * Returns the snapshot serving {@link #getTags()}, {@link #getQuote(String)} and {@link #getRandomQuote(String)}.
+     *
+     * @return the snapshot, or {@code null} if not configured
+     * @since 1.1.0
+     */
+    public QuoteSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the index answering {@link #search(String, Pageable)} while it is not stale.
+     *
+     * @return the search index, or {@code null} if not configured
+     * @since 1.1.0
+     */
+    public SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    /**
+     * Returns the index selecting the random quotes of {@link #getRandomQuote(String)}.
+     *
+     * @return the tag index, or {@code null} if not configured
+     * @since 1.1.0
+     */
+    public TagIndex getTagIndex() {
+        return tagIndex;
+    }
+
+    /**
+     * Returns the metrics recording the latencies and outcomes of the calls.
+     *
+     * @return the metrics, or {@code null} if not configured
+     * @since 1.1.0
+     */
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the policy retrying failed requests.
+     *
+     * @return the retry policy, or {@code null} if not configured
+     * @since 1.1.0
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Returns the circuit breaker rejecting requests to failing endpoints.
+     *
+     * @return the circuit breaker, or {@code null} if not configured
+     * @since 1.1.0
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Returns the rate limiter of the requests.
+     *
+     * @return the rate limiter, or {@code null} if not configured
+     * @since 1.1.0
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
     /**
      * Returns a list of available tags.
      *
@@ -53,24 +323,14 @@ public class TronaldClient {
      * @throws TronaldException in case an error occurs while retrieving the tags
      */
     public List<String> getTags() throws TronaldException {
-        try {
-            HttpURLConnection conn = createConnection(BASE_URL + "/tags");
-            int respCode = conn.getResponseCode();
-            if (respCode == HttpURLConnection.HTTP_OK) {
-                List<String> tags = new ArrayList<>();
-                JSONObject jsonObject = new JSONObject(new JSONTokener(conn.getInputStream()));
-                JSONArray jsonTags = jsonObject.getJSONArray("_embedded");
-                for (int i = 0; i < jsonTags.length(); i++) {
-                    tags.add(jsonTags.getString(i));
-                }
-                return tags;
-            } else {
-                TronaldException e = createException(conn);
-                throw e;
-            }
-        } catch (IOException e) {
-            throw new TronaldException("Error retrieving tags", e);
+        return measure(Endpoint.TAGS, this::doGetTags);
+    }
+
+    private List<String> doGetTags() {
+        if (snapshot != null) {
+            return new ArrayList<>(snapshot.getTags());
         }
+        return call(Endpoint.TAGS, baseUrl + "/tags", "Error retrieving tags", ResponseDecoder::decodeTags);
     }
 
     /**
@@ -82,19 +342,61 @@ public class TronaldClient {
      */
     public Quote getQuote(String id) throws TronaldException {
         requireNonNull(id, "'id' must not be null");
-        try {
-            HttpURLConnection conn = createConnection(BASE_URL + "/quote/" + urlEncode(id));
-            int respCode = conn.getResponseCode();
-            if (respCode == HttpURLConnection.HTTP_OK) {
-                JSONObject jsonObject = new JSONObject(new JSONTokener(conn.getInputStream()));
-                return parseQuote(jsonObject);
-            } else {
-                TronaldException e = createException(conn);
-                throw e;
+        return measure(Endpoint.QUOTE, () -> doGetQuote(id));
+    }
+
+    private Quote doGetQuote(String id) {
+        Quote quote = doGetLocalQuote(id);
+        return quote != null ? quote : doGetRemoteQuote(id);
+    }
+
+    /**
+     * Returns the quote from the snapshot or else the quote cache, or {@code null} if it must be retrieved.
+     */
+    private Quote doGetLocalQuote(String id) {
+        if (snapshot != null) {
+            Quote quote = snapshot.getQuote(id);
+            if (quote == null) {
+                throw new TronaldHttpException(HttpURLConnection.HTTP_NOT_FOUND, "Could not find a quote.");
             }
-        } catch (IOException e) {
-            throw new TronaldException("Error retrieving quote", e);
+            return quote;
         }
+        return quoteCache != null ? quoteCache.get(id) : null;
+    }
+
+    private Quote doGetRemoteQuote(String id) {
+        Quote quote = call(Endpoint.QUOTE, baseUrl + "/quote/" + urlEncode(id), "Error retrieving quote",
+                ResponseDecoder::decodeQuote);
+        if (quoteCache != null) {
+            quoteCache.put(quote);
+        }
+        return quote;
+    }
+
+    /**
+     * Returns the quotes for the given ids, retrieving them concurrently with at most
+     * {@link #DEFAULT_BATCH_CONCURRENCY} requests in flight.
+     *
+     * @param ids the unique quote ids, not null
+     * @return the batch result with the quotes and failures by id
+     * @see #getQuotesAsync(Collection, int)
+     * @since 1.1.0
+     */
+    public BatchResult<Quote> getQuotes(Collection<String> ids) {
+        return getQuotes(ids, DEFAULT_BATCH_CONCURRENCY);
+    }
+
+    /**
+     * Returns the quotes for the given ids, retrieving them concurrently.
+     *
+     * @param ids the unique quote ids, not null
+     * @param maxConcurrency the maximum number of concurrent requests, must not be less than 1
+     * @return the batch result with the quotes and failures by id
+     * @see #getQuotesAsync(Collection, int)
+     * @since 1.1.0
+     */
+    public BatchResult<Quote> getQuotes(Collection<String> ids, int maxConcurrency) {
+        return getQuotesAsync(ids, maxConcurrency).join();
     }
 
     /**
@@ -115,24 +417,30 @@ public class TronaldClient {
      * @throws TronaldException in case an error occurs while retrieving the random quote
      */
     public Quote getRandomQuote(String tag) throws TronaldException {
-        try {
-            HttpURLConnection conn;
-            if (tag == null) {
-                conn = createConnection(BASE_URL + "/random/quote");
-            } else {
-                conn = createConnection(BASE_URL + "/random/quote?tag=" + urlEncode(tag));
+        return measure(Endpoint.RANDOM_QUOTE, () -> doGetRandomQuote(tag));
+    }
+
+    private Quote doGetRandomQuote(String tag) {
+        if (snapshot != null) {
+            Quote quote = tag == null ? snapshot.getRandomQuote() : snapshot.getRandomQuote(tag);
+            if (quote == null) {
+                throw new TronaldHttpException(HttpURLConnection.HTTP_NOT_FOUND, "Could not find a random quote.");
             }
-            int respCode = conn.getResponseCode();
-            if (respCode == HttpURLConnection.HTTP_OK) {
-                JSONObject jsonObject = new JSONObject(new JSONTokener(conn.getInputStream()));
-                return parseQuote(jsonObject);
-            } else {
-                TronaldException e = createException(conn);
-                throw e;
+            return quote;
+        }
+        if (tagIndex != null) {
+            Quote quote = tag == null ? tagIndex.getRandomQuote() : tagIndex.getRandomQuote(tag);
+            if (quote != null) {
+                return quote;
             }
-        } catch (IOException e) {
-            throw new TronaldException("Error retrieving random quote", e);
         }
+        String url;
+        if (tag == null) {
+            url = baseUrl + "/random/quote";
+        } else {
+            url = baseUrl + "/random/quote?tag=" + urlEncode(tag);
+        }
+        return call(Endpoint.RANDOM_QUOTE, url, "Error retrieving random quote", ResponseDecoder::decodeQuote);
     }
 
     /**
@@ -182,36 +490,303 @@ public class TronaldClient {
     public Page<Quote> search(String query, Pageable pageable) throws TronaldException {
         requireNonNull(query, "'query' must not be null");
         requireNonNull(pageable, "'pageable' must not be null");
-        try {
-            StringBuilder sb = new StringBuilder()
-                    .append(BASE_URL + "/search/quote")
-                    .append("?query=").append(urlEncode(query))
-                    .append("&page=").append(pageable.getPage())
-                    .append("&size=").append(pageable.getSize());
-            HttpURLConnection conn = createConnection(sb.toString());
-            int respCode = conn.getResponseCode();
-            if (respCode == HttpURLConnection.HTTP_OK) {
-                JSONObject jsonObject = new JSONObject(new JSONTokener(conn.getInputStream()));
-                long total = jsonObject.optLong("total");
-                List<Quote> content = new ArrayList<>();
-                JSONObject jsonEmbedded = jsonObject.optJSONObject("_embedded");
-                if (jsonEmbedded != null) {
-                    JSONArray jsonQuotes = jsonEmbedded.optJSONArray("quotes");
-                    if (jsonQuotes != null && jsonQuotes.length() > 0) {
-                        for (int i = 0; i < jsonQuotes.length(); i++) {
-                            JSONObject jsonQuote = jsonQuotes.optJSONObject(i);
-                            Quote quote = parseQuote(jsonQuote);
-                            content.add(quote);
-                        }
+        return measure(Endpoint.SEARCH, () -> doSearch(query, pageable));
+    }
+
+    private Page<Quote> doSearch(String query, Pageable pageable) {
+        if (searchIndex != null && !searchIndex.isStale()) {
+            return searchIndex.search(query, pageable);
+        }
+        StringBuilder sb = new StringBuilder()
+                .append(baseUrl).append("/search/quote")
+                .append("?query=").append(urlEncode(query))
+                .append("&page=").append(pageable.getPage())
+                .append("&size=").append(pageable.getSize());
+        Page<Quote> page = call(Endpoint.SEARCH, sb.toString(), "Error searching quotes",
+                body -> ResponseDecoder.decodePage(body, pageable));
+        if (quoteCache != null && quoteCachePopulatedBySearch) {
+            for (Quote quote : page) {
+                quoteCache.put(quote);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Returns a lazy stream of the quotes of all pages for the given free text query, reading ahead one page.
+     *
+     * @param query the free text query, not null
+     * @return the stream of quotes
+     * @see #searchAll(String, Pageable, int)
+     * @since 1.1.0
+     */
+    public Stream<Quote> searchAll(String query) {
+        return searchAll(query, aPageable().build(), 1);
+    }
+
+    /**
+     * Returns a lazy stream of the quotes of all pages for the given free text query, reading ahead one page.
+     *
+     * @param query the free text query, not null
+     * @param size the page size
+     * @return the stream of quotes
+     * @see #searchAll(String, Pageable, int)
+     * @since 1.1.0
+     */
+    public Stream<Quote> searchAll(String query, int size) {
+        return searchAll(query, aPageable().withSize(size).build(), 1);
+    }
+
+    /**
+     * Returns a lazy stream of the quotes of all pages for the given free text query, starting at the given page.
+     *
+     * The first page is requested when the stream is consumed. While the quotes of a page are consumed, the next
+     * {@code prefetch} pages are requested in the background on the executor of the client. Closing the stream, e.g.
+     * with try-with-resources, cancels the pending requests when stopping early. Errors are thrown as the
+     * {@link TronaldException} of the failing page request while consuming the stream.
+     *
+     * @param query the free text query, not null
+     * @param pageable the first page and the page size, not null
+     * @param prefetch the number of pages to read ahead, must not be less than 0
+     * @return the stream of quotes
+     * @since 1.1.0
+     */
+    public Stream<Quote> searchAll(String query, Pageable pageable, int prefetch) {
+        requireNonNull(query, "'query' must not be null");
+        requireNonNull(pageable, "'pageable' must not be null");
+        SearchIterator iterator = new SearchIterator(this, query, pageable, prefetch);
+        Spliterator<Quote> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    /**
+     * Returns a publisher of the quotes of all pages for the given free text query, buffering at most two pages.
+     *
+     * @param query the free text query, not null
+     * @return the publisher of quotes
+     * @see #searchPublisher(String, Pageable, int)
+     * @since 1.1.0
+     */
+    public Flow.Publisher<Quote> searchPublisher(String query) {
+        return searchPublisher(query, aPageable().build(), 2);
+    }
+
+    /**
+     * Returns a publisher of the quotes of all pages for the given free text query, starting at the given page, for
+     * reactive consumers.
+     *
+     * Each subscription requests the pages asynchronously on the executor of the client, only when the requested
+     * quotes exceed the quotes of the pages already buffered or in flight, and never buffers more than
+     * {@code maxBufferedPages} pages. Cancelling the subscription cancels the pending requests. Errors are signalled
+     * as the {@link TronaldException} of the failing page request.
+     *
+     * <pre>
+     * client.searchPublisher("clinton", aPageable().withSize(25).build(), 2).subscribe(subscriber);
+     * </pre>
+     *
+     * @param query the free text query, not null
+     * @param pageable the first page and the page size, not null
+     * @param maxBufferedPages the maximum number of pages buffered or in flight, must not be less than 1
+     * @return the publisher of quotes
+     * @since 1.1.0
+     */
+    public Flow.Publisher<Quote> searchPublisher(String query, Pageable pageable, int maxBufferedPages) {
+        requireNonNull(query, "'query' must not be null");
+        requireNonNull(pageable, "'pageable' must not be null");
+        return new SearchPublisher(this, query, pageable, maxBufferedPages);
+    }
+
+    /**
+     * Returns the quotes of all pages for the given free text query, retrieving the pages concurrently.
+     *
+     * @param query the free text query, not null
+     * @param size the page size
+     * @param parallelism the maximum number of concurrent page requests, must not be less than 1
+     * @return the quotes of all pages, in page order
+     * @throws TronaldException in case an error occurs while retrieving a page
+     * @see #searchAllConcurrentlyAsync(String, int, int)
+     * @since 1.1.0
+     */
+    public List<Quote> searchAllConcurrently(String query, int size, int parallelism) throws TronaldException {
+        return Futures.join(searchAllConcurrentlyAsync(query, size, parallelism));
+    }
+
+    /**
+     * Asynchronously returns the quotes of all pages for the given free text query, retrieving the pages concurrently.
+     *
+     * The first page is requested to learn the total number of pages; then all remaining pages are requested
+     * concurrently on the executor of the client, with at most {@code parallelism} requests in flight, and reassembled
+     * in page order. For an ordered stream with bounded concurrency use {@link #searchAll(String, Pageable, int)} with
+     * the parallelism as read-ahead instead. Note the transport may bound the concurrency further, like the
+     * maximum connections per host of the {@link UrlConnectionTransport}.
+     *
+     * @param query the free text query, not null
+     * @param size the page size
+     * @param parallelism the maximum number of concurrent page requests, must not be less than 1
+     * @return the future completing with the quotes of all pages, or exceptionally with the {@link TronaldException} of
+     * the first failing page request
+     * @since 1.1.0
+     */
+    public CompletableFuture<List<Quote>> searchAllConcurrentlyAsync(String query, int size, int parallelism) {
+        requireNonNull(query, "'query' must not be null");
+        return new ConcurrentSearch(this, query, size, parallelism).execute();
+    }
+
+    /**
+     * Asynchronously returns a list of available tags.
+     *
+     * @return the future completing with the list of available tags, or exceptionally with a {@link TronaldException}
+     * @see #getTags()
+     * @since 1.1.0
+     */
+    public CompletableFuture<List<String>> getTagsAsync() {
+        return supplyAsync(this::getTags);
+    }
+
+    /**
+     * Asynchronously returns the quote for the given id. A quote answered locally, from the snapshot or quote cache,
+     * is returned as a completed future without using the executor.
+     *
+     * @param id the unique quote id, not null
+     * @return the future completing with the quote, or exceptionally with a {@link TronaldException}
+     * @see #getQuote(String)
+     * @since 1.1.0
+     */
+    public CompletableFuture<Quote> getQuoteAsync(String id) {
+        requireNonNull(id, "'id' must not be null");
+        if (snapshot != null || quoteCache != null) {
+            long started = metrics != null ? metrics.tick() : 0L;
+            CompletableFuture<Quote> future = new CompletableFuture<>();
+            try {
+                Quote quote = doGetLocalQuote(id);
+                if (quote != null) {
+                    if (metrics != null) {
+                        metrics.recordSuccess(Endpoint.QUOTE, started);
                     }
+                    future.complete(quote);
+                    return future;
                 }
-                return new Page<>(content, pageable, total);
-            } else {
-                TronaldException e = createException(conn);
-                throw e;
+            } catch (TronaldException e) {
+                if (metrics != null) {
+                    metrics.recordFailure(Endpoint.QUOTE, started, e);
+                }
+                future.completeExceptionally(e);
+                return future;
             }
-        } catch (IOException e) {
-            throw new TronaldException("Error searching quotes", e);
+        }
+        return supplyAsync(() -> measure(Endpoint.QUOTE, () -> doGetRemoteQuote(id)));
+    }
+
+    /**
+     * Asynchronously returns the quotes for the given ids, retrieving them concurrently.
+     *
+     * Duplicate ids are requested once. Quotes in the quote cache, if configured, are not requested at all. The other
+     * ids are requested on the executor of the client with at most {@code maxConcurrency} requests in flight. An id
+     * that cannot be retrieved is reported with its {@link TronaldException} in the failures of the result instead of
+     * failing the whole batch. Note the transport may bound the concurrency further, like the maximum connections per
+     * host of the {@link UrlConnectionTransport}.
+     *
+     * @param ids the unique quote ids, not null
+     * @param maxConcurrency the maximum number of concurrent requests, must not be less than 1
+     * @return the future completing with the batch result with the quotes and failures by id
+     * @since 1.1.0
+     */
+    public CompletableFuture<BatchResult<Quote>> getQuotesAsync(Collection<String> ids, int maxConcurrency) {
+        return new QuoteBatch(this, ids, maxConcurrency).execute();
+    }
+
+    /**
+     * Asynchronously returns a random quote.
+     *
+     * @return the future completing with the quote, or exceptionally with a {@link TronaldException}
+     * @see #getRandomQuote()
+     * @since 1.1.0
+     */
+    public CompletableFuture<Quote> getRandomQuoteAsync() {
+        return getRandomQuoteAsync(null);
+    }
+
+    /**
+     * Asynchronously returns a random quote with the given tag.
+     *
+     * @param tag the tag
+     * @return the future completing with the quote, or exceptionally with a {@link TronaldException}
+     * @see #getRandomQuote(String)
+     * @since 1.1.0
+     */
+    public CompletableFuture<Quote> getRandomQuoteAsync(String tag) {
+        return supplyAsync(() -> getRandomQuote(tag));
+    }
+
+    /**
+     * Asynchronously returns a page of quotes for the given free text query.
+     *
+     * @param query the free text query, not null
+     * @return the future completing with the page of quotes, or exceptionally with a {@link TronaldException}
+     * @see #search(String)
+     * @since 1.1.0
+     */
+    public CompletableFuture<Page<Quote>> searchAsync(String query) {
+        return searchAsync(query, aPageable().build());
+    }
+
+    /**
+     * Asynchronously returns a page of quotes for the given free text query.
+     *
+     * @param query the free text query, not null
+     * @param size the page size
+     * @return the future completing with the page of quotes, or exceptionally with a {@link TronaldException}
+     * @see #search(String, int)
+     * @since 1.1.0
+     */
+    public CompletableFuture<Page<Quote>> searchAsync(String query, int size) {
+        return searchAsync(query, aPageable().withSize(size).build());
+    }
+
+    /**
+     * Asynchronously returns a page of quotes for the given free text query.
+     *
+     * @param query the free text query, not null
+     * @param page the page number
+     * @param size the page size
+     * @return the future completing with the page of quotes, or exceptionally with a {@link TronaldException}
+     * @see #search(String, int, int)
+     * @since 1.1.0
+     */
+    public CompletableFuture<Page<Quote>> searchAsync(String query, int page, int size) {
+        return searchAsync(query, aPageable().withPage(page).withSize(size).build());
+    }
+
+    /**
+     * Asynchronously returns a page of quotes for the given free text query.
+     *
+     * @param query the free text query, not null
+     * @param pageable the pagination information, not null
+     * @return the future completing with the page of quotes, or exceptionally with a {@link TronaldException}
+     * @see #search(String, Pageable)
+     * @since 1.1.0
+     */
+    public CompletableFuture<Page<Quote>> searchAsync(String query, Pageable pageable) {
+        requireNonNull(query, "'query' must not be null");
+        requireNonNull(pageable, "'pageable' must not be null");
+        return supplyAsync(() -> search(query, pageable));
+    }
+
+    /**
+     * Runs the given call of the given endpoint, recording its latency and outcome in the metrics if configured.
+     */
+    private <T> T measure(Endpoint endpoint, Supplier<T> call) {
+        if (metrics == null) {
+            return call.get();
+        }
+        long started = metrics.tick();
+        try {
+            T result = call.get();
+            metrics.recordSuccess(endpoint, started);
+            return result;
+        } catch (TronaldException e) {
+            metrics.recordFailure(endpoint, started, e);
+            throw e;
         }
     }
 
@@ -237,52 +812,395 @@ public class TronaldClient {
     }
 
     /**
-     * Creates a new {@link HttpURLConnection} for the given url. Also sets the user agent.
+     * Requests the given url of the given endpoint and decodes the successful response with the given decoder.
+     * Failed attempts are retried as allowed by the retry policy, attempts are rejected while the circuit breaker of
+     * the endpoint is open, and each attempt waits for a permit of the rate limiter, if configured.
      */
-    private HttpURLConnection createConnection(String url) throws IOException {
-        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
-        conn.setRequestProperty("User-Agent", "tronalddump-io/client-java-" + getVersion());
-        return conn;
+    private <T> T call(Endpoint endpoint, String url, String errorMessage, BodyDecoder<T> decoder) {
+        Deadline deadline = callTimeoutNanos > 0 ? Deadline.after(callTimeoutNanos) : null;
+        if (retryPolicy != null) {
+            retryPolicy.onRequest();
+        }
+        for (int attempt = 1; ; attempt++) {
+            if (circuitBreaker != null) {
+                circuitBreaker.acquire(endpoint);
+            }
+            if (rateLimiter != null) {
+                acquirePermit(endpoint, deadline, errorMessage);
+            }
+            try {
+                T result = exchange(url, errorMessage, decoder, deadline);
+                if (circuitBreaker != null) {
+                    circuitBreaker.onSuccess(endpoint);
+                }
+                if (rateLimiter != null) {
+                    rateLimiter.onSuccess(endpoint);
+                }
+                return result;
+            } catch (TronaldException e) {
+                if (circuitBreaker != null) {
+                    circuitBreaker.onFailure(endpoint, e);
+                }
+                if (rateLimiter != null && e instanceof TronaldHttpException
+                        && ((TronaldHttpException) e).getHttpStatus() == HTTP_TOO_MANY_REQUESTS) {
+                    rateLimiter.onThrottled(endpoint);
+                }
+                if (retryPolicy == null || (deadline != null && deadline.isExpired())
+                        || !retryPolicy.shouldRetry(e, attempt)) {
+                    throw e;
+                }
+                long backoff = retryPolicy.getBackoffNanos(attempt);
+                if (deadline != null && backoff >= deadline.remaining()) {
+                    throw e;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
     }
 
     /**
-     * Creates a new {@link TronaldHttpException} from the given connection's error stream.
+     * Waits for a permit of the rate limiter, no longer than the given deadline if any.
      */
-    private TronaldHttpException createException(HttpURLConnection conn) throws IOException {
-        JSONObject jsonObject = new JSONObject(new JSONTokener(conn.getErrorStream()));
-        int status = jsonObject.optInt("status");
-        String message = jsonObject.optString("message");
-        return new TronaldHttpException(status, message);
+    private void acquirePermit(Endpoint endpoint, Deadline deadline, String errorMessage) {
+        boolean acquired;
+        try {
+            if (deadline == null) {
+                rateLimiter.acquire(endpoint);
+                acquired = true;
+            } else {
+                acquired = rateLimiter.tryAcquire(endpoint, deadline.remaining(), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            if (circuitBreaker != null) {
+                circuitBreaker.release(endpoint);
+            }
+            Thread.currentThread().interrupt();
+            throw new TronaldException("Interrupted while waiting for a rate limit permit", e);
+        }
+        if (!acquired) {
+            if (circuitBreaker != null) {
+                circuitBreaker.release(endpoint);
+            }
+            throw new TronaldTimeoutException(errorMessage + ": call timed out waiting for a rate limit permit");
+        }
     }
 
     /**
-     * Parses the {@code JSONObject} and converts it to a {@link Quote} object.
+     * Requests the given url once and decodes the successful response with the given decoder. When the deadline, if
+     * any, passes before the response is decoded, the response is aborted.
      */
-    private Quote parseQuote(JSONObject jsonObject) {
-        Quote quote = new Quote();
-        quote.setId(jsonObject.optString("quote_id"));
-        quote.setValue(jsonObject.optString("value"));
-        JSONObject jsonEmbedded = jsonObject.optJSONObject("_embedded");
-        if (jsonEmbedded != null) {
-            JSONArray jsonSources = jsonEmbedded.optJSONArray("source");
-            if (jsonSources != null && jsonSources.length() > 0) {
-                JSONObject jsonSource = jsonSources.optJSONObject(0);
-                quote.setSourceUrl(jsonSource.optString("url"));
+    private <T> T exchange(String url, String errorMessage, BodyDecoder<T> decoder, Deadline deadline) {
+        long timeout = 0;
+        if (deadline != null) {
+            timeout = deadline.remainingMillis();
+            if (timeout <= 0) {
+                throw new TronaldTimeoutException(errorMessage + ": call timed out");
             }
         }
-        String appearedAt = jsonObject.optString("appeared_at");
-        if (appearedAt != null && appearedAt.length() > 0) {
+        try (HttpResponse response = execute(url, timeout)) {
+            ScheduledFuture<?> watchdog = deadline != null ? deadline.onExpiry(response::abort) : null;
             try {
-                quote.setDate(DATE_FORMAT.parse(appearedAt));
-            } catch (ParseException ignore) {
+                if (response.getStatus() == HttpURLConnection.HTTP_OK) {
+                    return decoder.decode(response.getBody());
+                } else {
+                    TronaldException e = createException(response);
+                    throw e;
+                }
+            } finally {
+                if (watchdog != null) {
+                    watchdog.cancel(false);
+                }
             }
-        }
-        JSONArray jsonTags = jsonObject.optJSONArray("tags");
-        if (jsonTags != null) {
-            for (int i = 0; i < jsonTags.length(); i++) {
-                quote.addTag(jsonTags.getString(i));
+        } catch (IOException e) {
+            if (deadline != null && deadline.isExpired()) {
+                throw new TronaldTimeoutException(errorMessage + ": call timed out", e);
             }
+            if (e instanceof SocketTimeoutException) {
+                throw new TronaldTimeoutException(errorMessage + ": " + e.getMessage(), e);
+            }
+            throw new TronaldException(errorMessage, e);
+        }
+    }
+
+    /**
+     * Executes a {@code GET} request for the given url using the transport. Also sets the user agent.
+     */
+    private HttpResponse execute(String url, long timeout) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("User-Agent", "tronalddump-io/client-java-" + getVersion());
+        return transport.execute(new HttpRequest(url, headers, timeout));
+    }
+
+    private static long toCallTimeoutNanos(long timeout, TimeUnit unit) {
+        requireNonNull(unit, "'unit' must not be null");
+        if (timeout < 0) {
+            throw new IllegalArgumentException("'timeout' must not be less than 0");
+        }
+        return unit.toNanos(timeout);
+    }
+
+    /**
+     * Creates a new {@link TronaldHttpException} from the given error response.
+     */
+    private TronaldHttpException createException(HttpResponse response) throws IOException {
+        return ResponseDecoder.decodeError(response.getBody(), response.getStatus());
+    }
+
+    /**
+     * Runs the given blocking call on the executor and completes the returned future with its outcome. Failures
+     * complete the future with the {@link TronaldException} as thrown by the blocking call, not wrapped in a
+     * {@link java.util.concurrent.CompletionException}.
+     */
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            getExecutor().execute(() -> {
+                if (future.isDone()) {
+                    return; // cancelled before it got a thread
+                }
+                try {
+                    future.complete(call.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new TronaldException("Unable to execute asynchronous request", e));
+        }
+        return future;
+    }
+
+    /**
+     * Returns the executor for asynchronous requests; either the one given at construction or the shared internal one.
+     */
+    private Executor getExecutor() {
+        return executor != null ? executor : DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Decodes the body of a successful response.
+     */
+    private interface BodyDecoder<T> {
+
+        T decode(InputStream body) throws IOException;
+    }
+
+    /**
+     * Lazily creates the internal executor, shared by all clients that have not been given one.
+     */
+    private static final class DefaultExecutorHolder {
+
+        private static final ExecutorService EXECUTOR =
+                Executors.newCachedThreadPool(new DaemonThreadFactory("tronald-client-async"));
+    }
+
+    /**
+     * Builder for {@link TronaldClient}s.
+     *
+     * <pre>
+     * TronaldClient client = aTronaldClient().withBaseUrl("http://localhost:8080").build();
+     * </pre>
+     *
+     * @since 1.1.0
+     */
+    public static final class TronaldClientBuilder {
+
+        private String baseUrl = BASE_URL;
+        private HttpTransport transport;
+        private Executor executor;
+        private QuoteCache quoteCache;
+        private boolean quoteCachePopulatedBySearch;
+        private File responseCacheDirectory;
+        private QuoteSnapshot snapshot;
+        private SearchIndex searchIndex;
+        private TagIndex tagIndex;
+        private boolean requestCoalescing;
+        private boolean compression;
+        private ClientMetrics metrics;
+        private RetryPolicy retryPolicy;
+        private CircuitBreaker circuitBreaker;
+        private RateLimiter rateLimiter;
+        private long connectTimeoutMillis = UrlConnectionTransport.DEFAULT_CONNECT_TIMEOUT_MILLIS;
+        private long readTimeoutMillis = UrlConnectionTransport.DEFAULT_READ_TIMEOUT_MILLIS;
+        private long callTimeoutNanos;
+
+        private TronaldClientBuilder() {
+        }
+
+        public static TronaldClientBuilder aTronaldClient() {
+            return new TronaldClientBuilder();
+        }
+
+        public TronaldClientBuilder withBaseUrl(String baseUrl) {
+            requireNonNull(baseUrl, "'baseUrl' must not be null");
+            this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+            return this;
+        }
+
+        public TronaldClientBuilder withTransport(HttpTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        public TronaldClientBuilder withExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public TronaldClientBuilder withQuoteCache(QuoteCache quoteCache) {
+            this.quoteCache = quoteCache;
+            return this;
+        }
+
+        public TronaldClientBuilder withQuoteCachePopulatedBySearch(boolean quoteCachePopulatedBySearch) {
+            this.quoteCachePopulatedBySearch = quoteCachePopulatedBySearch;
+            return this;
+        }
+
+        /**
+         * Stores the {@code /tags} and {@code /quote/{id}} responses in the given directory, to revalidate them
+         * instead of downloading them again, even after a restart.
+         *
+         * @see CachingTransport
+         */
+        public TronaldClientBuilder withResponseCache(File directory) {
+            this.responseCacheDirectory = directory;
+            return this;
+        }
+
+        /**
+         * Coalesces identical concurrent requests, so only one of them is sent and the others share its response.
+         *
+         * @see CoalescingTransport
+         */
+        public TronaldClientBuilder withRequestCoalescing(boolean requestCoalescing) {
+            this.requestCoalescing = requestCoalescing;
+            return this;
+        }
+
+        /**
+         * Requests gzip or deflate compressed responses and decompresses them while decoding, trading a little cpu
+         * for less bandwidth on large search pages. Response caching and request coalescing hold the decompressed
+         * bodies, so a response cache can be shared with clients without compression.
+         *
+         * @see CompressionTransport
+         */
+        public TronaldClientBuilder withCompression(boolean compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        /**
+         * Serves {@code getTags}, {@code getQuote} and {@code getRandomQuote} from the given snapshot, without any
+         * request; the other methods still send requests.
+         *
+         * @see QuoteSnapshot
+         */
+        public TronaldClientBuilder withSnapshot(QuoteSnapshot snapshot) {
+            this.snapshot = snapshot;
+            return this;
+        }
+
+        /**
+         * Answers searches from the given index while it is not stale, and with a request otherwise.
+         *
+         * @see SearchIndex
+         */
+        public TronaldClientBuilder withSearchIndex(SearchIndex searchIndex) {
+            this.searchIndex = searchIndex;
+            return this;
+        }
+
+        /**
+         * Selects random quotes from the given index, and with a request for the tags without indexed quotes.
+         *
+         * @see TagIndex
+         */
+        public TronaldClientBuilder withTagIndex(TagIndex tagIndex) {
+            this.tagIndex = tagIndex;
+            return this;
+        }
+
+        /**
+         * Records the latency and outcome of each call of {@code getTags}, {@code getQuote}, {@code getRandomQuote}
+         * and {@code search} in the given metrics.
+         *
+         * @see ClientMetrics
+         */
+        public TronaldClientBuilder withMetrics(ClientMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Retries requests failed with a retryable http status or i/o error, as allowed by the given policy.
+         *
+         * @see RetryPolicy
+         */
+        public TronaldClientBuilder withRetryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Rejects the requests to an endpoint while it is failing, as tracked by the given circuit breaker.
+         *
+         * @see CircuitBreaker
+         */
+        public TronaldClientBuilder withCircuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        /**
+         * Limits the rate of the requests, waiting for a permit of the given rate limiter before each request.
+         *
+         * @see RateLimiter
+         */
+        public TronaldClientBuilder withRateLimiter(RateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time to establish a connection of the default transport; defaults to
+         * {@link UrlConnectionTransport#DEFAULT_CONNECT_TIMEOUT_MILLIS}. Ignored when a transport is given.
+         */
+        public TronaldClientBuilder withConnectTimeout(long connectTimeout, TimeUnit unit) {
+            this.connectTimeoutMillis = requireNonNull(unit, "'unit' must not be null").toMillis(connectTimeout);
+            return this;
+        }
+
+        /**
+         * Sets the maximum time to wait for data of a response of the default transport; defaults to
+         * {@link UrlConnectionTransport#DEFAULT_READ_TIMEOUT_MILLIS}. Ignored when a transport is given.
+         */
+        public TronaldClientBuilder withReadTimeout(long readTimeout, TimeUnit unit) {
+            this.readTimeoutMillis = requireNonNull(unit, "'unit' must not be null").toMillis(readTimeout);
+            return this;
+        }
+
+        /**
+         * Sets the maximum time of each call, covering waiting for permits, connecting, sending the request, reading
+         * and decoding the response, and retries; defaults to {@code 0}, none. When it passes, the request is aborted,
+         * releasing its connection, and the call fails with a {@link TronaldTimeoutException}. Calls answered locally,
+         * e.g. from a cache or index, are not affected.
+         *
+         * @see TronaldClient#withCallTimeout(long, TimeUnit)
+         */
+        public TronaldClientBuilder withCallTimeout(long callTimeout, TimeUnit unit) {
+            this.callTimeoutNanos = toCallTimeoutNanos(callTimeout, unit);
+            return this;
+        }
+
+        public TronaldClient build() {
+            TronaldClient client = new TronaldClient(this);
+            return client;
         }
-        return quote;
     }
 }
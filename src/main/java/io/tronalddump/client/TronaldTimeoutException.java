@@ -0,0 +1,35 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+/**
+ * {@link TronaldClient} exception in case a call did not complete in time, e.g. because its deadline passed or the
+ * connect or read timeout of the transport elapsed.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class TronaldTimeoutException extends TronaldException {
+
+    public TronaldTimeoutException(String message) {
+        super(message);
+    }
+
+    public TronaldTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
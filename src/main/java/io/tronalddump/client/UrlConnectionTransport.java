@@ -0,0 +1,438 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The default {@link HttpTransport} based on {@link HttpURLConnection}.
+ *
+ * The JDK keeps a connection alive for reuse only when its response body has been fully read and closed. This
+ * transport does that for every response when it is closed, and bounds the number of concurrent connections per host
+ * to the size of the JDK's keep-alive cache ({@code http.maxConnections}, 5 by default), so every connection released
+ * can actually be kept alive. {@link #getStats()} reports the connections per that model: a request that finds an
+ * idle connection of the same host released within the keep-alive timeout counts as reused, any other as created.
+ *
+ * Connecting and each read of the response are bounded by the connect and read timeouts, and additionally by the
+ * timeout of the request, which also bounds the wait for a connection of the host. A timeout elapsing fails the
+ * request with a {@link SocketTimeoutException}.
+ *
+ * @author Marcel Overdijk
+ * @since 1.1.0
+ */
+public class UrlConnectionTransport implements HttpTransport {
+
+    /**
+     * The maximum number of concurrent connections per host by default; the size of the JDK's keep-alive cache.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = defaultMaxConnectionsPerHost();
+
+    /**
+     * The time an idle connection is kept alive by the JDK when the server does not specify one.
+     */
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS = 5000;
+
+    /**
+     * The maximum time to establish a connection by default.
+     */
+    public static final long DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * The maximum time to wait for data of the response by default.
+     */
+    public static final long DEFAULT_READ_TIMEOUT_MILLIS = 30000;
+
+    private static final int MAX_DRAIN_BYTES = 64 * 1024;
+
+    private final int maxConnectionsPerHost;
+    private final long keepAliveNanos;
+    private final long connectTimeout;
+    private final long readTimeout;
+    private final ConcurrentMap<String, HostPool> pools = new ConcurrentHashMap<>();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+    /**
+     * Creates a new {@code UrlConnectionTransport} with the default maximum number of connections per host and the
+     * default timeouts.
+     */
+    public UrlConnectionTransport() {
+        this(DEFAULT_MAX_CONNECTIONS_PER_HOST);
+    }
+
+    /**
+     * Creates a new {@code UrlConnectionTransport} with the given maximum number of connections per host and the
+     * default timeouts.
+     *
+     * Note a value higher than the JDK's {@code http.maxConnections} system property bounds the concurrency only; the
+     * connections beyond the keep-alive cache size are closed instead of kept alive once released.
+     *
+     * @param maxConnectionsPerHost the maximum number of concurrent connections per host, must not be less than 1
+     */
+    public UrlConnectionTransport(int maxConnectionsPerHost) {
+        this(maxConnectionsPerHost, DEFAULT_CONNECT_TIMEOUT_MILLIS, DEFAULT_READ_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new {@code UrlConnectionTransport} with the given maximum number of connections per host and
+     * timeouts.
+     *
+     * @param maxConnectionsPerHost the maximum number of concurrent connections per host, must not be less than 1
+     * @param connectTimeout the maximum time to establish a connection, or {@code 0} for no timeout
+     * @param readTimeout the maximum time to wait for data of the response, or {@code 0} for no timeout
+     * @param unit the time unit of the timeouts, not null
+     * @since 1.1.0
+     */
+    public UrlConnectionTransport(int maxConnectionsPerHost, long connectTimeout, long readTimeout, TimeUnit unit) {
+        if (maxConnectionsPerHost < 1) {
+            throw new IllegalArgumentException("'maxConnectionsPerHost' must not be less than 1");
+        }
+        requireNonNull(unit, "'unit' must not be null");
+        if (connectTimeout < 0 || readTimeout < 0) {
+            throw new IllegalArgumentException("'connectTimeout' and 'readTimeout' must not be less than 0");
+        }
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.keepAliveNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_KEEP_ALIVE_MILLIS);
+        this.connectTimeout = toTimeoutMillis(connectTimeout, unit);
+        this.readTimeout = toTimeoutMillis(readTimeout, unit);
+    }
+
+    /**
+     * Returns the maximum number of concurrent connections per host.
+     *
+     * @return the maximum number of connections per host
+     */
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Returns the maximum time to establish a connection.
+     *
+     * @return the connect timeout in milliseconds, or {@code 0} for no timeout
+     * @since 1.1.0
+     */
+    public long getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Returns the maximum time to wait for data of the response.
+     *
+     * @return the read timeout in milliseconds, or {@code 0} for no timeout
+     * @since 1.1.0
+     */
+    public long getReadTimeout() {
+        return readTimeout;
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        URL url = new URL(request.getUrl());
+        HostPool pool = getPool(url);
+        long started = System.nanoTime();
+        pool.acquire(request.getTimeout());
+        long remaining = 0;
+        if (request.getTimeout() > 0) {
+            remaining = request.getTimeout() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            if (remaining <= 0) {
+                pool.release(false);
+                throw new SocketTimeoutException("Timed out waiting for a connection");
+            }
+        }
+        if (pool.takeIdle()) {
+            reused.increment();
+        } else {
+            created.increment();
+        }
+        HttpURLConnection conn = null;
+        try {
+            conn = (HttpURLConnection) url.openConnection();
+            conn.setConnectTimeout(toIntMillis(minTimeout(connectTimeout, remaining)));
+            conn.setReadTimeout(toIntMillis(minTimeout(readTimeout, remaining)));
+            for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                conn.setRequestProperty(header.getKey(), header.getValue());
+            }
+            int status = conn.getResponseCode();
+            return new UrlConnectionResponse(conn, status, pool);
+        } catch (IOException | RuntimeException e) {
+            if (conn != null) {
+                conn.disconnect();
+            }
+            pool.release(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the statistics of the connections of this transport, summed over all hosts.
+     *
+     * @return the connection statistics
+     */
+    public ConnectionPoolStats getStats() {
+        int active = 0;
+        int idle = 0;
+        for (HostPool pool : pools.values()) {
+            active += pool.getActive();
+            idle += pool.getIdle();
+        }
+        return new ConnectionPoolStats(active, idle, created.sum(), reused.sum());
+    }
+
+    /**
+     * Returns the pool of the host of the given url.
+     */
+    private HostPool getPool(URL url) {
+        int port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+        String key = url.getProtocol() + "://" + url.getHost() + ":" + port;
+        HostPool pool = pools.get(key);
+        if (pool == null) {
+            pool = pools.computeIfAbsent(key, k -> new HostPool(maxConnectionsPerHost, keepAliveNanos));
+        }
+        return pool;
+    }
+
+    /**
+     * Returns the lowest of the given timeouts, of which {@code 0} means none.
+     */
+    private static long minTimeout(long timeout, long otherTimeout) {
+        if (timeout == 0) {
+            return otherTimeout;
+        }
+        return otherTimeout == 0 ? timeout : Math.min(timeout, otherTimeout);
+    }
+
+    private static long toTimeoutMillis(long timeout, TimeUnit unit) {
+        long millis = unit.toMillis(timeout);
+        return timeout > 0 && millis == 0 ? 1 : millis;
+    }
+
+    private static int toIntMillis(long millis) {
+        return (int) Math.min(Integer.MAX_VALUE, millis);
+    }
+
+    private static int defaultMaxConnectionsPerHost() {
+        try {
+            int value = Integer.getInteger("http.maxConnections", 5);
+            return value > 0 ? value : 5;
+        } catch (SecurityException e) {
+            return 5;
+        }
+    }
+
+    /**
+     * The connections of a single host: a semaphore bounding the active ones and a stack of the release times of the
+     * idle ones, most recent first, like the JDK's keep-alive cache.
+     */
+    private static final class HostPool {
+
+        private final Semaphore permits;
+        private final int maxIdle;
+        private final long keepAliveNanos;
+        private final Deque<Long> idleSince = new ArrayDeque<>();
+
+        HostPool(int maxConnections, long keepAliveNanos) {
+            this.permits = new Semaphore(maxConnections);
+            this.maxIdle = maxConnections;
+            this.keepAliveNanos = keepAliveNanos;
+        }
+
+        void acquire(long timeout) throws InterruptedIOException {
+            try {
+                if (timeout <= 0) {
+                    permits.acquire();
+                } else if (!permits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                    throw new SocketTimeoutException("Timed out waiting for a connection");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a connection");
+            }
+        }
+
+        synchronized boolean takeIdle() {
+            purgeExpired(System.nanoTime());
+            return idleSince.pollFirst() != null;
+        }
+
+        void release(boolean keepAlive) {
+            if (keepAlive) {
+                synchronized (this) {
+                    idleSince.offerFirst(System.nanoTime());
+                    while (idleSince.size() > maxIdle) {
+                        idleSince.pollLast();
+                    }
+                }
+            }
+            permits.release();
+        }
+
+        int getActive() {
+            return maxIdle - permits.availablePermits();
+        }
+
+        synchronized int getIdle() {
+            purgeExpired(System.nanoTime());
+            return idleSince.size();
+        }
+
+        private void purgeExpired(long now) {
+            Iterator<Long> it = idleSince.descendingIterator();
+            while (it.hasNext() && now - it.next() > keepAliveNanos) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * {@link HttpResponse} of a {@link HttpURLConnection}; draining and closing the body on close.
+     */
+    private static final class UrlConnectionResponse implements HttpResponse {
+
+        private final HttpURLConnection conn;
+        private final int status;
+        private final HostPool pool;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean aborted;
+        private InputStream body;
+
+        UrlConnectionResponse(HttpURLConnection conn, int status, HostPool pool) {
+            this.conn = conn;
+            this.status = status;
+            this.pool = pool;
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return conn.getHeaderField(name);
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                InputStream in = status >= HttpURLConnection.HTTP_BAD_REQUEST ? conn.getErrorStream() : conn.getInputStream();
+                body = new AbortableInputStream(in != null ? in : new ByteArrayInputStream(new byte[0]));
+            }
+            return body;
+        }
+
+        /**
+         * Fails the pending and further reads of the body and closes the connection. Note a read blocked on the
+         * socket is not interrupted by the JDK; it fails once data arrives or the read timeout elapses.
+         */
+        @Override
+        public void abort() {
+            aborted = true;
+            if (closed.compareAndSet(false, true)) {
+                conn.disconnect();
+                pool.release(false);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            boolean keepAlive = false;
+            try {
+                InputStream in = getBody();
+                keepAlive = drain(in) && !"close".equalsIgnoreCase(conn.getHeaderField("Connection"));
+                in.close();
+            } catch (IOException ignore) {
+                keepAlive = false;
+            } finally {
+                if (!keepAlive) {
+                    conn.disconnect();
+                }
+                pool.release(keepAlive);
+            }
+        }
+
+        /**
+         * The body, failing reads once the response is aborted.
+         */
+        private final class AbortableInputStream extends FilterInputStream {
+
+            AbortableInputStream(InputStream in) {
+                super(in);
+            }
+
+            @Override
+            public int read() throws IOException {
+                checkAborted();
+                int b = super.read();
+                checkAborted();
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                checkAborted();
+                int n = super.read(b, off, len);
+                checkAborted();
+                return n;
+            }
+
+            private void checkAborted() throws IOException {
+                if (aborted) {
+                    throw new IOException("Response aborted");
+                }
+            }
+        }
+
+        /**
+         * Reads the remainder of the body, up to a limit; returns whether the end of the body was reached.
+         */
+        private static boolean drain(InputStream in) throws IOException {
+            byte[] buffer = new byte[4096];
+            int total = 0;
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                total += n;
+                if (total > MAX_DRAIN_BYTES) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for {@link Bitmap}.
+ *
+ * @author Marcel Overdijk
+ */
+public class BitmapTests {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testMatchesBitSetForSparseAndDenseBitmaps() {
+        for (double density : new double[]{0.001, 0.01, 0.1, 0.5, 0.99}) {
+            BitSet a = randomBitSet(10000, density);
+            BitSet b = randomBitSet(7000, density);
+            Bitmap bitmapA = bitmap(a);
+            Bitmap bitmapB = bitmap(b);
+            assertEquals(bitmapA, a);
+            assertEquals(bitmapB, b);
+
+            BitSet and = (BitSet) a.clone();
+            and.and(b);
+            assertEquals(bitmapA.and(bitmapB), and);
+            assertEquals(bitmapB.and(bitmapA), and);
+
+            BitSet or = (BitSet) a.clone();
+            or.or(b);
+            assertEquals(bitmapA.or(bitmapB), or);
+            assertEquals(bitmapB.or(bitmapA), or);
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        assertThat(Bitmap.of(new int[0], 0).cardinality(), is(equalTo(0)));
+        assertThat(Bitmap.EMPTY.or(Bitmap.EMPTY).cardinality(), is(equalTo(0)));
+        assertThat(bitmap(randomBitSet(1000, 0.5)).and(Bitmap.EMPTY).cardinality(), is(equalTo(0)));
+        assertThat(Bitmap.EMPTY.contains(0), is(false));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testPreventsSelectBeyondCardinality() {
+        Bitmap.of(new int[]{1, 2, 3}, 3).select(3);
+    }
+
+    private static void assertEquals(Bitmap bitmap, BitSet expected) {
+        int[] values = expected.stream().toArray();
+        assertThat(bitmap.cardinality(), is(equalTo(values.length)));
+        assertThat(Arrays.equals(bitmap.toArray(), values), is(true));
+        for (int i = 0; i < values.length; i++) {
+            assertThat(bitmap.select(i), is(equalTo(values[i])));
+        }
+        for (int i = 0; i < expected.length() + 64; i++) {
+            assertThat(bitmap.contains(i), is(equalTo(expected.get(i))));
+        }
+    }
+
+    private static Bitmap bitmap(BitSet bits) {
+        int[] values = bits.stream().toArray();
+        return Bitmap.of(values, values.length);
+    }
+
+    private BitSet randomBitSet(int size, double density) {
+        BitSet bits = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (random.nextDouble() < density) {
+                bits.set(i);
+            }
+        }
+        return bits;
+    }
+}
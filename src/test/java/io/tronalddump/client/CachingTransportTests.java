@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link CachingTransport}.
+ *
+ * @author Marcel Overdijk
+ */
+public class CachingTransportTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TronaldStubServer server;
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TronaldStubServer(20).start();
+        directory = folder.newFolder("cache");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testRevalidatesAfterRestart() {
+        TronaldClient client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withResponseCache(directory).build();
+        Quote quote = client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+        List<String> tags = client.getTags();
+        CachingTransport transport = (CachingTransport) client.getTransport();
+        assertThat(transport.getStats(), is(equalTo(new CacheStats(0, 2, 0, 2))));
+
+        TronaldClient restarted = aTronaldClient().withBaseUrl(server.getBaseUrl()).withResponseCache(directory).build();
+        assertThat(restarted.getQuote(TronaldStubServer.KNOWN_QUOTE_ID), is(equalTo(quote)));
+        assertThat(restarted.getTags(), is(equalTo(tags)));
+        assertThat(((CachingTransport) restarted.getTransport()).getStats(), is(equalTo(new CacheStats(2, 0, 0, 2))));
+        assertThat(server.getRequestCount(), is(equalTo(4L)));
+    }
+
+    @Test
+    public void testDoesNotStoreUncacheableRequests() {
+        TronaldClient client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withResponseCache(directory).build();
+        client.getRandomQuote();
+        client.search("clinton");
+        assertThat(((CachingTransport) client.getTransport()).getStats(), is(equalTo(new CacheStats(0, 0, 0, 0))));
+    }
+
+    @Test
+    public void testDoesNotStoreErrors() {
+        TronaldClient client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withResponseCache(directory).build();
+        try {
+            client.getQuote("foo");
+        } catch (TronaldHttpException expected) {
+        }
+        assertThat(((CachingTransport) client.getTransport()).getStats().getSize(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void testIgnoresCorruptedEntries() throws Exception {
+        CachingTransport transport = new CachingTransport(new UrlConnectionTransport(), directory);
+        HttpRequest request = new HttpRequest(server.getBaseUrl() + "/tags", Collections.emptyMap());
+        transport.execute(request).close();
+        File[] files = directory.listFiles();
+        assertThat(files.length, is(equalTo(1)));
+        Files.write(files[0].toPath(), new byte[] {1, 2, 3});
+        try (HttpResponse response = transport.execute(request)) {
+            assertThat(response.getStatus(), is(equalTo(200)));
+            assertThat(ResponseDecoder.decodeTags(response.getBody()).isEmpty(), is(equalTo(false)));
+        }
+        assertThat(transport.getStats(), is(equalTo(new CacheStats(0, 2, 0, 1))));
+        transport.clear();
+        assertThat(transport.getStats().getSize(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void testClosesFailingResponses() throws Exception {
+        AtomicInteger closed = new AtomicInteger();
+        CachingTransport transport = new CachingTransport(request -> new HttpResponse() {
+
+            @Override
+            public int getStatus() throws IOException {
+                if (request.getUrl().endsWith("/status")) {
+                    throw new IOException("Broken status line");
+                }
+                return 200;
+            }
+
+            @Override
+            public String getHeader(String name) {
+                return name.equals("ETag") ? "\"1\"" : null;
+            }
+
+            @Override
+            public InputStream getBody() throws IOException {
+                throw new IOException("Broken body");
+            }
+
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        }, directory);
+        for (String path : new String[] {"/status", "/body"}) {
+            try {
+                transport.execute(new HttpRequest(server.getBaseUrl() + path, Collections.emptyMap()));
+                fail();
+            } catch (IOException expected) {
+            }
+        }
+        assertThat(closed.get(), is(equalTo(2)));
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import io.tronalddump.client.CircuitBreaker.State;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.tronalddump.client.CircuitBreaker.CircuitBreakerBuilder.aCircuitBreaker;
+import static io.tronalddump.client.RetryPolicy.RetryPolicyBuilder.aRetryPolicy;
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link CircuitBreaker}.
+ *
+ * @author Marcel Overdijk
+ */
+public class CircuitBreakerTests {
+
+    private static final long OPEN_DURATION = TimeUnit.SECONDS.toNanos(30);
+
+    private TronaldStubServer server;
+    private AtomicLong time;
+    private CircuitBreaker circuitBreaker;
+    private TronaldClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        this.server = new TronaldStubServer(100).start();
+        this.time = new AtomicLong();
+        this.circuitBreaker = aCircuitBreaker()
+                .withFailureThreshold(3)
+                .withOpenDuration(OPEN_DURATION, TimeUnit.NANOSECONDS)
+                .withTicker(time::get)
+                .build();
+        this.client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withCircuitBreaker(circuitBreaker).build();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testOpenAndClose() {
+        server.setErrorRate(1.0, 503);
+        for (int i = 0; i < 3; i++) {
+            assertThat(circuitBreaker.getState(Endpoint.QUOTE), is(equalTo(State.CLOSED)));
+            assertStatus(503);
+        }
+        assertThat(circuitBreaker.getState(Endpoint.QUOTE), is(equalTo(State.OPEN)));
+        assertRejected();
+        assertThat(server.getRequestCount(), is(equalTo(3L)));
+
+        // a failing probe opens the circuit again
+        time.addAndGet(OPEN_DURATION);
+        assertThat(circuitBreaker.getState(Endpoint.QUOTE), is(equalTo(State.HALF_OPEN)));
+        assertStatus(503);
+        assertThat(circuitBreaker.getState(Endpoint.QUOTE), is(equalTo(State.OPEN)));
+        assertRejected();
+
+        // a succeeding probe closes the circuit
+        server.setErrorRate(0.0, 503);
+        time.addAndGet(OPEN_DURATION);
+        client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+        assertThat(circuitBreaker.getState(Endpoint.QUOTE), is(equalTo(State.CLOSED)));
+        assertThat(server.getRequestCount(), is(equalTo(5L)));
+        assertThat(circuitBreaker.getRejectedCount(), is(equalTo(2L)));
+    }
+
+    @Test
+    public void testClientErrorsAreNoFailures() {
+        for (int i = 0; i < 5; i++) {
+            assertStatus(404, "unknown");
+        }
+        assertThat(circuitBreaker.getState(Endpoint.QUOTE), is(equalTo(State.CLOSED)));
+    }
+
+    @Test
+    public void testSuccessResetsFailures() {
+        server.setErrorRate(1.0, 500);
+        assertStatus(500);
+        assertStatus(500);
+        server.setErrorRate(0.0, 500);
+        client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+        server.setErrorRate(1.0, 500);
+        assertStatus(500);
+        assertStatus(500);
+        assertThat(circuitBreaker.getState(Endpoint.QUOTE), is(equalTo(State.CLOSED)));
+    }
+
+    @Test
+    public void testPerEndpoint() {
+        server.setErrorRate(1.0, 503);
+        for (int i = 0; i < 3; i++) {
+            assertStatus(503);
+        }
+        server.setErrorRate(0.0, 503);
+        assertRejected();
+        assertThat(client.getTags().size(), is(equalTo(TronaldStubServer.TAGS.size())));
+        assertThat(circuitBreaker.getState(Endpoint.TAGS), is(equalTo(State.CLOSED)));
+    }
+
+    @Test
+    public void testHalfOpenProbes() {
+        CircuitBreaker circuitBreaker = aCircuitBreaker()
+                .withFailureThreshold(1)
+                .withOpenDuration(OPEN_DURATION, TimeUnit.NANOSECONDS)
+                .withHalfOpenProbes(2)
+                .withTicker(time::get)
+                .build();
+        circuitBreaker.onFailure(Endpoint.SEARCH, new TronaldException("Error", new java.net.SocketException()));
+        time.addAndGet(OPEN_DURATION);
+        circuitBreaker.acquire(Endpoint.SEARCH);
+        circuitBreaker.acquire(Endpoint.SEARCH);
+        try {
+            circuitBreaker.acquire(Endpoint.SEARCH);
+            fail();
+        } catch (TronaldCircuitOpenException e) {
+            assertThat(e.getEndpoint(), is(equalTo(Endpoint.SEARCH)));
+        }
+        circuitBreaker.onSuccess(Endpoint.SEARCH);
+        assertThat(circuitBreaker.getState(Endpoint.SEARCH), is(equalTo(State.CLOSED)));
+        circuitBreaker.acquire(Endpoint.SEARCH);
+    }
+
+    @Test
+    public void testWithRetryPolicy() {
+        server.setErrorRate(1.0, 503);
+        TronaldClient client = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withCircuitBreaker(circuitBreaker)
+                .withRetryPolicy(aRetryPolicy().withMaxAttempts(10).withBackoff(1, 1, TimeUnit.MILLISECONDS).build())
+                .build();
+        try {
+            client.getRandomQuote();
+            fail();
+        } catch (TronaldCircuitOpenException e) {
+            // the retries stop once the circuit opens
+        }
+        assertThat(server.getRequestCount(), is(equalTo(3L)));
+    }
+
+    private void assertStatus(int status) {
+        assertStatus(status, TronaldStubServer.KNOWN_QUOTE_ID);
+    }
+
+    private void assertStatus(int status, String id) {
+        try {
+            client.getQuote(id);
+            fail();
+        } catch (TronaldHttpException e) {
+            assertThat(e.getHttpStatus(), is(equalTo(status)));
+        }
+    }
+
+    private void assertRejected() {
+        try {
+            client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+            fail();
+        } catch (TronaldCircuitOpenException e) {
+            assertThat(e.getEndpoint(), is(equalTo(Endpoint.QUOTE)));
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import io.tronalddump.client.ClientMetrics.Outcome;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link ClientMetrics}.
+ *
+ * @author Marcel Overdijk
+ */
+public class ClientMetricsTests {
+
+    private static final long STEP = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private TronaldStubServer server;
+    private AtomicLong time;
+    private ClientMetrics metrics;
+    private TronaldClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        this.server = new TronaldStubServer(100).start();
+        this.time = new AtomicLong();
+        this.metrics = new ClientMetrics(time::get);
+        this.client = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withTransport(request -> {
+                    time.addAndGet(STEP);
+                    return new UrlConnectionTransport().execute(request);
+                })
+                .withMetrics(metrics)
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        metrics.close();
+        server.stop();
+    }
+
+    @Test
+    public void testSuccess() {
+        client.getTags();
+        client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+        client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+        client.search("believe");
+        EndpointStats quoteStats = metrics.getStats(Endpoint.QUOTE);
+        assertThat(quoteStats.getCount(), is(equalTo(2L)));
+        assertThat(quoteStats.getCount(Outcome.SUCCESS), is(equalTo(2L)));
+        assertThat(quoteStats.getErrorRate(), is(equalTo(0.0)));
+        assertThat(quoteStats.getLatency().getMin(), is(equalTo(STEP)));
+        assertThat(quoteStats.getLatency().getMax(), is(equalTo(STEP)));
+        assertThat(quoteStats.getLatency().getTotal(), is(equalTo(2 * STEP)));
+        ClientStats stats = metrics.getStats();
+        assertThat(stats.getEndpointStats(Endpoint.TAGS).getCount(), is(equalTo(1L)));
+        assertThat(stats.getEndpointStats(Endpoint.SEARCH).getCount(), is(equalTo(1L)));
+        assertThat(stats.getEndpointStats(Endpoint.RANDOM_QUOTE).getCount(), is(equalTo(0L)));
+        assertThat(stats.getUptime(), is(equalTo(4 * STEP)));
+        assertThat(stats.getEndpointStats(Endpoint.QUOTE).getThroughput(), is(closeTo(2 / (4 * STEP / 1e9), 0.001)));
+    }
+
+    @Test
+    public void testRecordsAsyncCacheHits() {
+        TronaldClient client = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withQuoteCache(new QuoteCache(10))
+                .withMetrics(metrics)
+                .build();
+        client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+        client.getQuoteAsync(TronaldStubServer.KNOWN_QUOTE_ID).join();
+        client.getQuoteAsync(TronaldStubServer.KNOWN_QUOTE_ID).join();
+        assertThat(metrics.getStats(Endpoint.QUOTE).getCount(Outcome.SUCCESS), is(equalTo(3L)));
+        assertThat(server.getRequestCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void testFailures() {
+        try {
+            client.getQuote("unknown");
+            fail();
+        } catch (TronaldHttpException e) {
+            // expected
+        }
+        server.setErrorRate(1.0, 503);
+        for (int i = 0; i < 3; i++) {
+            try {
+                client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+                fail();
+            } catch (TronaldHttpException e) {
+                // expected
+            }
+        }
+        server.setErrorRate(0.0, 503);
+        client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+        EndpointStats stats = metrics.getStats(Endpoint.QUOTE);
+        assertThat(stats.getCount(), is(equalTo(5L)));
+        assertThat(stats.getCount(Outcome.SUCCESS), is(equalTo(1L)));
+        assertThat(stats.getCount(Outcome.CLIENT_ERROR), is(equalTo(1L)));
+        assertThat(stats.getCount(Outcome.SERVER_ERROR), is(equalTo(3L)));
+        assertThat(stats.getCount(Outcome.ERROR), is(equalTo(0L)));
+        assertThat(stats.getErrorRate(), is(equalTo(0.8)));
+        assertThat(stats.getStatusCounts(), hasEntry(404, 1L));
+        assertThat(stats.getStatusCounts(), hasEntry(503, 3L));
+        assertThat(stats.getLatency(Outcome.SERVER_ERROR).getTotal(), is(equalTo(3 * STEP)));
+    }
+
+    @Test
+    public void testIoError() {
+        String baseUrl = server.getBaseUrl();
+        server.stop();
+        TronaldClient client = aTronaldClient().withBaseUrl(baseUrl).withMetrics(metrics).build();
+        try {
+            client.getRandomQuote();
+            fail();
+        } catch (TronaldException e) {
+            // expected
+        }
+        assertThat(metrics.getStats(Endpoint.RANDOM_QUOTE).getCount(Outcome.ERROR), is(equalTo(1L)));
+        assertTrue(metrics.getStats(Endpoint.RANDOM_QUOTE).getStatusCounts().isEmpty());
+    }
+
+    @Test
+    public void testPercentiles() {
+        ClientMetrics metrics = new ClientMetrics(time::get);
+        for (int i = 1; i <= 10000; i++) {
+            long started = time.get();
+            time.addAndGet(TimeUnit.MICROSECONDS.toNanos(i));
+            metrics.recordSuccess(Endpoint.TAGS, started);
+        }
+        LatencyStats latency = metrics.getStats(Endpoint.TAGS).getLatency();
+        assertThat(latency.getCount(), is(equalTo(10000L)));
+        assertThat(latency.getMin(), is(equalTo(TimeUnit.MICROSECONDS.toNanos(1))));
+        assertThat(latency.getMax(), is(equalTo(TimeUnit.MICROSECONDS.toNanos(10000))));
+        assertThat(latency.getMean(), is(closeTo(TimeUnit.MICROSECONDS.toNanos(5000) + 500.0, 0.001)));
+        assertPercentile(latency, 50.0, TimeUnit.MICROSECONDS.toNanos(5000));
+        assertPercentile(latency, 99.0, TimeUnit.MICROSECONDS.toNanos(9900));
+        assertPercentile(latency, 99.9, TimeUnit.MICROSECONDS.toNanos(9990));
+        assertThat(latency.getValueAtPercentile(100.0), is(equalTo(latency.getMax())));
+        assertThat(latency.getValueAtPercentile(0.0), is(equalTo(latency.getMin())));
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        long previous = -1;
+        for (int index = 0; index < LatencyHistogram.BUCKET_COUNT; index++) {
+            long highest = LatencyHistogram.highestValueOf(index);
+            assertThat(LatencyHistogram.indexOf(previous + 1), is(equalTo(index)));
+            assertThat(LatencyHistogram.indexOf(highest), is(equalTo(index)));
+            assertThat(highest - previous, is(lessThanOrEqualTo(Math.max(1L, (previous + 1) / 32))));
+            previous = highest;
+        }
+        assertThat(previous, is(greaterThanOrEqualTo(LatencyHistogram.MAX_VALUE)));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        ClientMetrics metrics = new ClientMetrics();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 10000; j++) {
+                        metrics.recordSuccess(Endpoint.SEARCH, metrics.tick());
+                        metrics.recordFailure(Endpoint.SEARCH, metrics.tick(), new TronaldHttpException(429, "Slow down"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        EndpointStats stats = metrics.getStats(Endpoint.SEARCH);
+        assertThat(stats.getCount(Outcome.SUCCESS), is(equalTo(80000L)));
+        assertThat(stats.getCount(Outcome.CLIENT_ERROR), is(equalTo(80000L)));
+        assertThat(stats.getStatusCounts(), hasEntry(429, 80000L));
+    }
+
+    @Test
+    public void testExport() throws Exception {
+        List<ClientStats> exported = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(2);
+        metrics.export(stats -> {
+            exported.add(stats);
+            latch.countDown();
+            throw new IllegalStateException("failing exporter");
+        }, 10, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        client.getTags();
+        metrics.close();
+        ClientStats last = exported.get(exported.size() - 1);
+        assertThat(last.getEndpointStats(Endpoint.TAGS).getCount(), is(equalTo(1L)));
+        try {
+            metrics.export(stats -> { }, 10, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private static void assertPercentile(LatencyStats latency, double percentile, long expected) {
+        assertThat((double) latency.getValueAtPercentile(percentile), is(closeTo(expected, expected * 0.035)));
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link CoalescingTransport}.
+ *
+ * @author Marcel Overdijk
+ */
+public class CoalescingTransportTests {
+
+    private static final int THREADS = 10;
+
+    private TronaldStubServer server;
+    private TronaldClient client;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TronaldStubServer(50).start();
+        client = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withTransport(new UrlConnectionTransport(THREADS))
+                .withRequestCoalescing(true)
+                .build();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        server.stop();
+    }
+
+    @Test
+    public void testCoalescesIdenticalRequests() {
+        server.setLatency(300);
+        List<Quote> quotes = concurrently(() -> client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID));
+        assertThat(server.getRequestCount("/quote/" + TronaldStubServer.KNOWN_QUOTE_ID), is(equalTo(1L)));
+        assertThat(stats(), is(equalTo(new CoalescingStats(1, THREADS - 1))));
+        for (Quote quote : quotes) {
+            assertThat(quote, is(equalTo(quotes.get(0))));
+        }
+        assertThat(quotes.get(1), is(not(sameInstance(quotes.get(0)))));
+    }
+
+    @Test
+    public void testCoalescesIdenticalSearches() {
+        server.setLatency(300);
+        List<Page<Quote>> pages = concurrently(() -> client.search("clinton", 5));
+        assertThat(server.getRequestCount(), is(equalTo(1L)));
+        for (Page<Quote> page : pages) {
+            assertThat(page, is(equalTo(pages.get(0))));
+        }
+    }
+
+    @Test
+    public void testDoesNotCoalesceDifferentRequests() {
+        client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+        client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+        client.search("clinton", 5);
+        client.search("clinton", 6);
+        assertThat(server.getRequestCount(), is(equalTo(4L)));
+        assertThat(stats(), is(equalTo(new CoalescingStats(4, 0))));
+    }
+
+    @Test
+    public void testReturnsResponseAsIsWithoutWaitingRequests() throws Exception {
+        HttpResponse response = new BufferedHttpResponse(200, Collections.emptyMap(), new byte[0]);
+        CoalescingTransport transport = new CoalescingTransport(request -> response);
+        HttpRequest request = new HttpRequest(server.getBaseUrl() + "/tag", Collections.emptyMap());
+        assertThat(transport.execute(request), is(sameInstance(response)));
+        assertThat(transport.execute(request), is(sameInstance(response)));
+        assertThat(transport.getStats(), is(equalTo(new CoalescingStats(2, 0))));
+    }
+
+    @Test
+    public void testSharesErrors() {
+        server.setLatency(300);
+        server.setErrorRate(1.0, 503);
+        List<Integer> statuses = concurrently(() -> {
+            try {
+                client.getTags();
+                fail();
+                return null;
+            } catch (TronaldHttpException e) {
+                return e.getHttpStatus();
+            }
+        });
+        assertThat(server.getRequestCount(), is(equalTo(1L)));
+        for (Integer status : statuses) {
+            assertThat(status, is(equalTo(503)));
+        }
+    }
+
+    @Test
+    public void testSharesTransportFailures() throws Exception {
+        server.setLatency(300);
+        CompletableFuture<List<Quote>> result = CompletableFuture.supplyAsync(
+                () -> concurrently(() -> client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID)));
+        Thread.sleep(100);
+        server.stop();
+        try {
+            result.join();
+            fail();
+        } catch (CompletionException e) {
+            assertThat(e.getCause() instanceof TronaldException, is(true));
+        }
+        assertThat(stats().getExecutedCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void testRetriesAfterShorterTimeoutOfIdenticalRequest() throws Exception {
+        server.setLatency(300);
+        CompletableFuture<Quote> impatient = CompletableFuture.supplyAsync(
+                () -> client.withCallTimeout(100, TimeUnit.MILLISECONDS).getQuote(TronaldStubServer.KNOWN_QUOTE_ID),
+                executor);
+        Thread.sleep(50);
+        CompletableFuture<Quote> patient = CompletableFuture.supplyAsync(
+                () -> client.withCallTimeout(2, TimeUnit.SECONDS).getQuote(TronaldStubServer.KNOWN_QUOTE_ID), executor);
+        try {
+            impatient.join();
+            fail();
+        } catch (CompletionException e) {
+            assertThat(e.getCause() instanceof TronaldTimeoutException, is(true));
+        }
+        assertThat(patient.join().getId(), is(equalTo(TronaldStubServer.KNOWN_QUOTE_ID)));
+        assertThat(stats(), is(equalTo(new CoalescingStats(2, 0))));
+    }
+
+    private CoalescingStats stats() {
+        return ((CoalescingTransport) client.getTransport()).getStats();
+    }
+
+    private <T> List<T> concurrently(Supplier<T> call) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return call.get();
+            }, executor));
+        }
+        start.countDown();
+        List<T> results = new ArrayList<>();
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+}
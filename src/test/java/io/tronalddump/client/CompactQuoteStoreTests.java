@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static io.tronalddump.client.CompactQuoteStore.CompactQuoteStoreBuilder.aCompactQuoteStore;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for {@link CompactQuoteStore}.
+ *
+ * @author Marcel Overdijk
+ */
+public class CompactQuoteStoreTests {
+
+    @Test
+    public void testRoundTrips() {
+        List<Quote> quotes = TronaldStubServer.generateQuotes(5000);
+        Quote empty = new Quote();
+        empty.setId("\u00e9t\u00e9");
+        quotes.add(empty);
+        CompactQuoteStore store = aCompactQuoteStore().addAll(quotes).build();
+        assertThat(store, is(equalTo(quotes)));
+        assertThat(store.size(), is(equalTo(quotes.size())));
+        for (int i = 0; i < quotes.size(); i += 7) {
+            assertThat(store.getQuote(quotes.get(i).getId()), is(equalTo(quotes.get(i))));
+            assertThat(store.indexOf(quotes.get(i)), is(equalTo(i)));
+        }
+        assertThat(store.getQuote(empty.getId()), is(equalTo(empty)));
+        assertThat(store.getQuote("foobar"), is(nullValue()));
+        assertThat(store.contains(new Quote()), is(false));
+        Set<String> tags = new HashSet<>();
+        quotes.forEach(quote -> tags.addAll(quote.getTags()));
+        assertThat(new HashSet<>(store.getTags()), is(equalTo(tags)));
+    }
+
+    @Test
+    public void testReturnsNewInstances() {
+        CompactQuoteStore store = aCompactQuoteStore().addAll(TronaldStubServer.generateQuotes(10)).build();
+        store.get(0).addTag("changed");
+        assertThat(store.get(0).getTags().contains("changed"), is(false));
+    }
+
+    @Test
+    public void testEmpty() {
+        CompactQuoteStore store = aCompactQuoteStore().build();
+        assertThat(store.isEmpty(), is(true));
+        assertThat(store.getQuote("foobar"), is(nullValue()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testIsImmutable() {
+        aCompactQuoteStore().build().add(new Quote());
+    }
+
+    @Test
+    public void testUsesAtMostHalfTheHeapOfQuotes() {
+        int count = 200000;
+        long baseline = usedHeap();
+        List<Quote> quotes = TronaldStubServer.generateQuotes(count);
+        long quotesHeap = usedHeap() - baseline;
+        CompactQuoteStore store = aCompactQuoteStore().addAll(quotes).build();
+        long storeHeap = usedHeap() - baseline - quotesHeap;
+        assertThat(store, is(equalTo(quotes)));
+        // the used heap after a gc is only accurate to some hundreds of kilobytes
+        long tolerance = 1024 * 1024;
+        assertThat("store " + storeHeap / count + " bytes per quote, quotes " + quotesHeap / count + " bytes per quote",
+                storeHeap * 2, is(lessThanOrEqualTo(quotesHeap + tolerance)));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
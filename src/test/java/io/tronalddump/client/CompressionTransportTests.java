@@ -0,0 +1,195 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for {@link CompressionTransport}.
+ *
+ * @author Marcel Overdijk
+ */
+public class CompressionTransportTests {
+
+    private static final String BODY = "{\"message\":\"Make America Great Again! Make America Great Again!\"}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TronaldStubServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TronaldStubServer(100).start();
+        server.setCompression(true);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testDecompressesGzip() {
+        TronaldClient client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withCompression(true).build();
+        TronaldClient uncompressed = aTronaldClient().withBaseUrl(server.getBaseUrl()).build();
+        Page<Quote> page = client.search("clinton");
+        assertThat(page, is(equalTo(uncompressed.search("clinton"))));
+        assertThat(client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID),
+                is(equalTo(uncompressed.getQuote(TronaldStubServer.KNOWN_QUOTE_ID))));
+        CompressionStats stats = ((CompressionTransport) client.getTransport()).getStats();
+        assertThat(stats.getResponseCount(), is(equalTo(2L)));
+        assertThat(stats.getCompressedResponseCount(), is(equalTo(2L)));
+        assertThat(stats.getCompressedBytes(), is(lessThan(stats.getUncompressedBytes())));
+        assertThat(stats.getCompressionRatio(), is(greaterThan(1.0)));
+    }
+
+    @Test
+    public void testDecompressesErrors() {
+        TronaldClient client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withCompression(true).build();
+        try {
+            client.getQuote("foo");
+        } catch (TronaldHttpException expected) {
+            assertThat(expected.getHttpStatus(), is(equalTo(404)));
+        }
+        assertThat(((CompressionTransport) client.getTransport()).getStats().getCompressedResponseCount(),
+                is(equalTo(1L)));
+    }
+
+    @Test
+    public void testPassesThroughUncompressedResponses() {
+        server.setCompression(false);
+        TronaldClient client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withCompression(true).build();
+        client.getTags();
+        CompressionStats stats = ((CompressionTransport) client.getTransport()).getStats();
+        assertThat(stats.getResponseCount(), is(equalTo(1L)));
+        assertThat(stats.getCompressedResponseCount(), is(equalTo(0L)));
+        assertThat(stats.getCompressedBytes(), is(equalTo(stats.getUncompressedBytes())));
+    }
+
+    @Test
+    public void testIsDecoratedByCacheAndCoalescing() throws Exception {
+        TronaldClient client = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withResponseCache(folder.newFolder("cache"))
+                .withRequestCoalescing(true)
+                .withCompression(true)
+                .build();
+        Quote quote = client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+        assertThat(client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID), is(equalTo(quote)));
+        CoalescingTransport coalescing = (CoalescingTransport) client.getTransport();
+        CachingTransport caching = (CachingTransport) coalescing.getDelegate();
+        assertThat(caching.getStats().getHitCount(), is(equalTo(1L)));
+        CompressionTransport transport = (CompressionTransport) caching.getDelegate();
+        assertThat(transport.getStats().getCompressedResponseCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void testSharesResponseCacheWithClientsWithoutCompression() throws Exception {
+        File directory = folder.newFolder("cache");
+        TronaldClient compressed = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withResponseCache(directory)
+                .withCompression(true)
+                .build();
+        TronaldClient uncompressed = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withResponseCache(directory)
+                .build();
+        Quote quote = compressed.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+        List<String> tags = uncompressed.getTags();
+        assertThat(uncompressed.getQuote(TronaldStubServer.KNOWN_QUOTE_ID), is(equalTo(quote)));
+        assertThat(compressed.getTags(), is(equalTo(tags)));
+        assertThat(((CachingTransport) uncompressed.getTransport()).getStats().getHitCount(), is(equalTo(1L)));
+        assertThat(((CachingTransport) compressed.getTransport()).getStats().getHitCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void testSendsAcceptEncoding() throws Exception {
+        AtomicReference<HttpRequest> sent = new AtomicReference<>();
+        CompressionTransport transport = new CompressionTransport(request -> {
+            sent.set(request);
+            return new BufferedHttpResponse(200, Collections.emptyMap(), new byte[0]);
+        });
+        transport.execute(new HttpRequest("http://localhost/tags", Collections.singletonMap("User-Agent", "test"),
+                1000)).close();
+        assertThat(sent.get().getHeaders().get("Accept-Encoding"), is(equalTo("gzip, deflate")));
+        assertThat(sent.get().getHeaders().get("User-Agent"), is(equalTo("test")));
+        assertThat(sent.get().getTimeout(), is(equalTo(1000L)));
+    }
+
+    @Test
+    public void testDecompressesZlibDeflate() throws Exception {
+        assertThat(decompress(deflate(false)), is(equalTo(BODY)));
+    }
+
+    @Test
+    public void testDecompressesRawDeflate() throws Exception {
+        assertThat(decompress(deflate(true)), is(equalTo(BODY)));
+    }
+
+    private static String decompress(byte[] body) throws IOException {
+        CompressionTransport transport = new CompressionTransport(request ->
+                new BufferedHttpResponse(200, Collections.singletonMap("Content-Encoding", "deflate"), body));
+        try (HttpResponse response = transport.execute(new HttpRequest("http://localhost/tags",
+                Collections.emptyMap()))) {
+            assertThat(response.getHeader("Content-Encoding"), is(nullValue()));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            InputStream in = response.getBody();
+            byte[] buffer = new byte[16];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            assertThat(transport.getStats(), is(equalTo(new CompressionStats(1, 1, body.length, out.size()))));
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] deflate(boolean nowrap) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(compressed, new Deflater(Deflater.DEFAULT_COMPRESSION,
+                nowrap))) {
+            out.write(BODY.getBytes(StandardCharsets.UTF_8));
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link ConcurrentSearch}.
+ *
+ * @author Marcel Overdijk
+ */
+public class ConcurrentSearchTests {
+
+    private TronaldStubServer server;
+    private TronaldClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TronaldStubServer(200).start();
+        client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withTransport(new UrlConnectionTransport(16)).build();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testReturnsAllPagesInOrder() {
+        List<Quote> expected = client.searchAll("clinton", 7).collect(Collectors.toList());
+        assertThat(expected.size(), is(greaterThan(14)));
+        for (int parallelism = 1; parallelism < 5; parallelism++) {
+            assertThat(client.searchAllConcurrently("clinton", 7, parallelism), is(equalTo(expected)));
+        }
+    }
+
+    @Test
+    public void testSinglePageAndNoResults() {
+        assertThat(client.searchAllConcurrently("clinton", 1000, 4), hasSize(client.search("clinton", 1000).getNumberOfElements()));
+        assertThat(client.searchAllConcurrently("foobar", 10, 4), hasSize(0));
+    }
+
+    @Test
+    public void testBoundsAndUsesParallelism() {
+        int totalPages = client.search("clinton", 5).getTotalPages();
+        assertThat(totalPages, is(greaterThan(8)));
+        server.setLatency(100);
+        server.resetRequestCounts();
+        long start = System.nanoTime();
+        client.searchAllConcurrently("clinton", 5, 4);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertThat(server.getMaxConcurrentRequests(), is(lessThanOrEqualTo(4)));
+        assertThat(server.getMaxConcurrentRequests(), is(greaterThan(1)));
+        assertThat(millis, is(lessThan(totalPages * 100L)));
+    }
+
+    @Test
+    public void testManyPagesCompletingWhileRequested() {
+        int totalPages = 20000;
+        Pattern pagePattern = Pattern.compile("[?&]page=(\\d+)");
+        HttpTransport transport = request -> {
+            Matcher matcher = pagePattern.matcher(request.getUrl());
+            int page = matcher.find() ? Integer.parseInt(matcher.group(1)) : 1;
+            String body = "{\"count\":1,\"total\":" + totalPages
+                    + ",\"_embedded\":{\"quotes\":[{\"quote_id\":\"id-" + page + "\",\"value\":\"quote\"}]}}";
+            return new BufferedHttpResponse(200, Collections.emptyMap(), body.getBytes(StandardCharsets.UTF_8));
+        };
+        // a synchronous executor completes every page while it is requested, like a cached response
+        TronaldClient client = new TronaldClient(transport, Runnable::run);
+        List<Quote> quotes = client.searchAllConcurrentlyAsync("x", 1, 1).join();
+        assertThat(quotes, hasSize(totalPages));
+        for (int i = 0; i < totalPages; i++) {
+            assertThat(quotes.get(i).getId(), is(equalTo("id-" + (i + 1))));
+        }
+    }
+
+    @Test
+    public void testFailsOnFirstError() {
+        server.setErrorRate(1.0, 502);
+        try {
+            client.searchAllConcurrentlyAsync("clinton", 5, 4).join();
+            fail();
+        } catch (CompletionException e) {
+            assertThat(((TronaldHttpException) e.getCause()).getHttpStatus(), is(equalTo(502)));
+        }
+        try {
+            client.searchAllConcurrently("clinton", 5, 4);
+            fail();
+        } catch (TronaldHttpException e) {
+            assertThat(e.getHttpStatus(), is(equalTo(502)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPreventsParallelismIsLessThanOne() {
+        client.searchAllConcurrentlyAsync("clinton", 5, 0);
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import io.tronalddump.client.ClientMetrics.Outcome;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.tronalddump.client.RateLimiter.RateLimiterBuilder.aRateLimiter;
+import static io.tronalddump.client.RetryPolicy.RetryPolicyBuilder.aRetryPolicy;
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link Deadline} and the call timeout of the {@link TronaldClient}.
+ *
+ * @author Marcel Overdijk
+ */
+public class DeadlineTests {
+
+    private TronaldStubServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        this.server = new TronaldStubServer(100).start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testDeadline() {
+        Deadline deadline = Deadline.after(TimeUnit.SECONDS.toNanos(10));
+        assertThat(deadline.remaining(), is(greaterThan(TimeUnit.SECONDS.toNanos(9))));
+        assertThat(deadline.remainingMillis(), is(lessThanOrEqualTo(10000L)));
+        assertThat(deadline.isExpired(), is(false));
+        Deadline expired = Deadline.after(-1);
+        assertThat(expired.isExpired(), is(true));
+        assertThat(expired.remainingMillis(), is(equalTo(0L)));
+        assertThat(Deadline.after(1).remainingMillis(), is(lessThanOrEqualTo(1L)));
+    }
+
+    @Test
+    public void testCallTimeout() {
+        server.setLatency(2000);
+        UrlConnectionTransport transport = new UrlConnectionTransport();
+        ClientMetrics metrics = new ClientMetrics();
+        TronaldClient client = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withTransport(transport)
+                .withMetrics(metrics)
+                .withCallTimeout(200, TimeUnit.MILLISECONDS)
+                .build();
+        long started = System.nanoTime();
+        try {
+            client.getTags();
+            fail();
+        } catch (TronaldTimeoutException e) {
+            // expected
+        }
+        assertThat(System.nanoTime() - started, is(lessThan(TimeUnit.MILLISECONDS.toNanos(1500))));
+        assertThat(transport.getStats().getActive(), is(equalTo(0)));
+        assertThat(metrics.getStats(Endpoint.TAGS).getCount(Outcome.TIMEOUT), is(equalTo(1L)));
+    }
+
+    @Test
+    public void testReadTimeout() {
+        server.setLatency(2000);
+        TronaldClient client = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withReadTimeout(200, TimeUnit.MILLISECONDS)
+                .build();
+        long started = System.nanoTime();
+        try {
+            client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+            fail();
+        } catch (TronaldTimeoutException e) {
+            // expected
+        }
+        assertThat(System.nanoTime() - started, is(lessThan(TimeUnit.MILLISECONDS.toNanos(1500))));
+    }
+
+    @Test
+    public void testWithCallTimeout() {
+        server.setLatency(500);
+        TronaldClient client = aTronaldClient().withBaseUrl(server.getBaseUrl()).build();
+        TronaldClient impatient = client.withCallTimeout(100, TimeUnit.MILLISECONDS);
+        assertThat(client.getCallTimeout(), is(equalTo(0L)));
+        assertThat(impatient.getCallTimeout(), is(equalTo(TimeUnit.MILLISECONDS.toNanos(100))));
+        assertThat(impatient.getTransport(), is(client.getTransport()));
+        try {
+            impatient.getRandomQuote();
+            fail();
+        } catch (TronaldTimeoutException e) {
+            // expected
+        }
+        assertThat(client.getTags().size(), is(equalTo(TronaldStubServer.TAGS.size())));
+    }
+
+    @Test
+    public void testAbortsResponseWhileDecoding() throws Exception {
+        CountDownLatch aborted = new CountDownLatch(1);
+        AtomicBoolean closed = new AtomicBoolean();
+        HttpTransport transport = request -> new HttpResponse() {
+
+            private final InputStream body = new InputStream() {
+
+                private final InputStream start =
+                        new ByteArrayInputStream("[\"Hillary Clinton\", ".getBytes(StandardCharsets.UTF_8));
+
+                @Override
+                public int read() throws IOException {
+                    int b = start.read();
+                    if (b != -1) {
+                        return b;
+                    }
+                    try {
+                        aborted.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IOException("Response aborted");
+                }
+            };
+
+            @Override
+            public int getStatus() {
+                return 200;
+            }
+
+            @Override
+            public String getHeader(String name) {
+                return null;
+            }
+
+            @Override
+            public InputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public void abort() {
+                aborted.countDown();
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        TronaldClient client = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withTransport(transport)
+                .withCallTimeout(200, TimeUnit.MILLISECONDS)
+                .build();
+        long started = System.nanoTime();
+        try {
+            client.getTags();
+            fail();
+        } catch (TronaldTimeoutException e) {
+            // expected
+        }
+        assertThat(System.nanoTime() - started, is(lessThan(TimeUnit.MILLISECONDS.toNanos(5000))));
+        assertThat(aborted.getCount(), is(equalTo(0L)));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void testCallTimeoutBoundsRetries() {
+        server.setErrorRate(1.0, 503);
+        RetryPolicy retryPolicy = aRetryPolicy()
+                .withMaxAttempts(100)
+                .withBackoff(100, 100, TimeUnit.MILLISECONDS)
+                .build();
+        TronaldClient client = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withRetryPolicy(retryPolicy)
+                .withCallTimeout(300, TimeUnit.MILLISECONDS)
+                .build();
+        long started = System.nanoTime();
+        try {
+            client.getTags();
+            fail();
+        } catch (TronaldHttpException e) {
+            assertThat(e.getHttpStatus(), is(equalTo(503)));
+        }
+        assertThat(System.nanoTime() - started, is(lessThan(TimeUnit.MILLISECONDS.toNanos(1500))));
+        assertThat(server.getRequestCount(), is(lessThan(10L)));
+    }
+
+    @Test
+    public void testCallTimeoutBoundsRateLimiterWait() {
+        TronaldClient client = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withRateLimiter(aRateLimiter(0.1).withBurst(1).build())
+                .withCallTimeout(200, TimeUnit.MILLISECONDS)
+                .build();
+        client.getTags();
+        try {
+            client.getTags();
+            fail();
+        } catch (TronaldTimeoutException e) {
+            // expected
+        }
+        assertThat(server.getRequestCount(), is(equalTo(1L)));
+    }
+}
@@ -157,4 +157,15 @@ public class PageTests {
         assertThat(page.nextPageable(), is(equalTo(new Pageable(6, 5))));
         assertThat(page.previousPageable(), is(equalTo(new Pageable(4, 5))));
     }
+
+    @Test
+    public void testMultiplePagesBeforeLast() {
+        List<String> list = Arrays.asList("a", "b", "c", "d", "e");
+        Page<String> page = new Page<>(list, new Pageable(9, 5), 50);
+        assertThat(page.getNumber(), is(equalTo(9)));
+        assertThat(page.getTotalPages(), is(equalTo(10)));
+        assertThat(page.hasNext(), is(equalTo(true)));
+        assertThat(page.isLast(), is(equalTo(false)));
+        assertThat(page.nextPageable(), is(equalTo(new Pageable(10, 5))));
+    }
 }
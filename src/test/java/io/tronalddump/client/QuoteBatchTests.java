@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for {@link QuoteBatch}.
+ *
+ * @author Marcel Overdijk
+ */
+public class QuoteBatchTests {
+
+    private TronaldStubServer server;
+    private TronaldClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TronaldStubServer(50).start();
+        client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withTransport(new UrlConnectionTransport(16)).build();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testReturnsQuotesInRequestedOrder() {
+        List<String> ids = server.getQuotes().stream().map(Quote::getId).collect(Collectors.toList());
+        Collections.reverse(ids);
+        BatchResult<Quote> result = client.getQuotes(ids);
+        assertThat(result.hasFailures(), is(false));
+        assertThat(new ArrayList<>(result.getResults().keySet()), is(equalTo(ids)));
+        for (String id : ids) {
+            assertThat(result.getResults().get(id), is(equalTo(client.getQuote(id))));
+        }
+    }
+
+    @Test
+    public void testRequestsDuplicateIdsOnce() {
+        String id = TronaldStubServer.KNOWN_QUOTE_ID;
+        BatchResult<Quote> result = client.getQuotes(Arrays.asList(id, id, id), 4);
+        assertThat(result.getResults().keySet(), contains(id));
+        assertThat(server.getRequestCount("/quote/" + id), is(equalTo(1L)));
+    }
+
+    @Test
+    public void testReportsFailuresPerId() {
+        String id = TronaldStubServer.KNOWN_QUOTE_ID;
+        BatchResult<Quote> result = client.getQuotes(Arrays.asList("foobar", id));
+        assertThat(result.hasFailures(), is(true));
+        assertThat(result.getResults().keySet(), contains(id));
+        assertThat(result.getFailures().keySet(), contains("foobar"));
+        assertThat(result.getFailures().get("foobar"), is(instanceOf(TronaldHttpException.class)));
+        assertThat(((TronaldHttpException) result.getFailures().get("foobar")).getHttpStatus(), is(equalTo(404)));
+    }
+
+    @Test
+    public void testBoundsAndUsesConcurrency() {
+        List<String> ids = server.getQuotes().stream().limit(20).map(Quote::getId).collect(Collectors.toList());
+        server.setLatency(100);
+        long start = System.nanoTime();
+        BatchResult<Quote> result = client.getQuotes(ids, 4);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertThat(result.getResults().size(), is(equalTo(20)));
+        assertThat(server.getMaxConcurrentRequests(), is(lessThanOrEqualTo(4)));
+        assertThat(server.getMaxConcurrentRequests(), is(greaterThan(1)));
+        assertThat(millis, is(lessThan(20 * 100L)));
+    }
+
+    @Test
+    public void testServesCachedQuotesWithoutRequests() {
+        TronaldClient client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withQuoteCache(new QuoteCache(100)).build();
+        List<String> ids = server.getQuotes().stream().limit(10).map(Quote::getId).collect(Collectors.toList());
+        client.getQuotes(ids);
+        server.resetRequestCounts();
+        assertThat(client.getQuotes(ids).getResults().size(), is(equalTo(10)));
+        assertThat(server.getRequestCount(), is(equalTo(0L)));
+    }
+
+    @Test(timeout = 30000)
+    public void testLargeBatchOfCachedQuotes() {
+        QuoteCache cache = new QuoteCache(100000);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            Quote quote = new Quote();
+            quote.setId("id-" + i);
+            quote.setValue("quote " + i);
+            cache.put(quote);
+            ids.add(quote.getId());
+        }
+        // a synchronous executor completes every quote while it is requested, like a cache hit
+        TronaldClient client = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withQuoteCache(cache)
+                .withExecutor(Runnable::run)
+                .build();
+        BatchResult<Quote> result = client.getQuotes(ids, 1);
+        assertThat(result.hasFailures(), is(false));
+        assertThat(new ArrayList<>(result.getResults().keySet()), is(equalTo(ids)));
+        assertThat(server.getRequestCount(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void testEmptyIds() {
+        BatchResult<Quote> result = client.getQuotes(Collections.emptyList());
+        assertThat(result.getResults().isEmpty(), is(true));
+        assertThat(result.hasFailures(), is(false));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testPreventsNullId() {
+        client.getQuotes(Arrays.asList(TronaldStubServer.KNOWN_QUOTE_ID, null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPreventsConcurrencyIsLessThanOne() {
+        client.getQuotesAsync(Collections.singleton(TronaldStubServer.KNOWN_QUOTE_ID), 0);
+    }
+}
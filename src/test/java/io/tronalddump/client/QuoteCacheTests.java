@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for {@link QuoteCache}.
+ *
+ * @author Marcel Overdijk
+ */
+public class QuoteCacheTests {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPreventsMaxEntriesIsLessThanOne() {
+        new QuoteCache(0);
+    }
+
+    @Test
+    public void testGetAndPut() {
+        QuoteCache cache = new QuoteCache(10);
+        assertThat(cache.get("a"), is(nullValue()));
+        Quote quote = quote("a");
+        cache.put(quote);
+        assertThat(cache.get("a"), is(equalTo(quote)));
+        assertThat(cache.getStats(), is(equalTo(new CacheStats(1, 1, 0, 1))));
+    }
+
+    @Test
+    public void testReturnsCopies() {
+        QuoteCache cache = new QuoteCache(10);
+        Quote quote = quote("a");
+        cache.put(quote);
+        quote.addTag("Modified");
+        Quote cached = cache.get("a");
+        assertThat(cached.getTags().contains("Modified"), is(equalTo(false)));
+        cached.setValue("Modified");
+        assertThat(cache.get("a"), is(not(sameInstance(cached))));
+        assertThat(cache.get("a").getValue(), is(equalTo("value of a")));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        QuoteCache cache = new QuoteCache(1);
+        cache.put(quote("a"));
+        cache.put(quote("b"));
+        assertThat(cache.get("a"), is(nullValue()));
+        assertThat(cache.get("b"), is(equalTo(quote("b"))));
+        assertThat(cache.getStats().getEvictionCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void testBoundsSize() {
+        QuoteCache cache = new QuoteCache(100);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(quote("id-" + i));
+        }
+        assertThat(cache.size(), is(equalTo(100L)));
+        assertThat(cache.getStats().getEvictionCount(), is(equalTo(900L)));
+    }
+
+    @Test
+    public void testExpires() {
+        AtomicLong now = new AtomicLong();
+        QuoteCache cache = new QuoteCache(10, 1, TimeUnit.MINUTES, now::get);
+        cache.put(quote("a"));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertThat(cache.get("a"), is(equalTo(quote("a"))));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(cache.get("a"), is(nullValue()));
+        assertThat(cache.getStats(), is(equalTo(new CacheStats(1, 1, 1, 0))));
+    }
+
+    @Test
+    public void testInvalidate() {
+        QuoteCache cache = new QuoteCache(10);
+        cache.put(quote("a"));
+        cache.put(quote("b"));
+        cache.invalidate("a");
+        assertThat(cache.get("a"), is(nullValue()));
+        cache.invalidateAll();
+        assertThat(cache.size(), is(equalTo(0L)));
+    }
+
+    private static Quote quote(String id) {
+        Quote quote = new Quote();
+        quote.setId(id);
+        quote.setValue("value of " + id);
+        quote.addTag("Tag");
+        return quote;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link QuoteSnapshot}.
+ *
+ * @author Marcel Overdijk
+ */
+public class QuoteSnapshotTests {
+
+    private static final List<String> VOWELS = Arrays.asList("a", "e", "i", "o", "u");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TronaldStubServer server;
+    private TronaldClient client;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TronaldStubServer(60).start();
+        client = aTronaldClient().withBaseUrl(server.getBaseUrl()).build();
+        file = new File(folder.getRoot(), "quotes.snapshot");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testDownloadsAllQuotesAndTags() throws Exception {
+        try (QuoteSnapshot snapshot = QuoteSnapshot.download(client, file, VOWELS)) {
+            assertThat(snapshot.size(), is(equalTo(server.getQuotes().size())));
+            assertThat(snapshot.getTags(), is(equalTo(client.getTags())));
+            for (Quote quote : server.getQuotes()) {
+                assertThat(snapshot.getQuote(quote.getId()), is(equalTo(client.getQuote(quote.getId()))));
+            }
+            assertThat(snapshot.getQuote("foobar"), is(nullValue()));
+        }
+    }
+
+    @Test
+    public void testServesClientWithoutRequests() throws Exception {
+        QuoteSnapshot snapshot = QuoteSnapshot.download(client, file, VOWELS);
+        Quote known = client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+        List<String> tags = client.getTags();
+        String baseUrl = server.getBaseUrl();
+        server.stop();
+
+        TronaldClient offline = aTronaldClient().withBaseUrl(baseUrl).withSnapshot(snapshot).build();
+        assertThat(offline.getQuote(TronaldStubServer.KNOWN_QUOTE_ID), is(equalTo(known)));
+        assertThat(offline.getQuoteAsync(TronaldStubServer.KNOWN_QUOTE_ID).join(), is(equalTo(known)));
+        assertThat(offline.getTags(), is(equalTo(tags)));
+        for (String tag : tags) {
+            assertThat(offline.getRandomQuote(tag).getTags(), hasItem(tag));
+        }
+        assertThat(offline.getRandomQuote(), is(notNullValue()));
+        try {
+            offline.getQuote("foobar");
+            fail();
+        } catch (TronaldHttpException e) {
+            assertThat(e.getHttpStatus(), is(equalTo(404)));
+        }
+        try {
+            offline.getRandomQuote("foo");
+            fail();
+        } catch (TronaldHttpException e) {
+            assertThat(e.getHttpStatus(), is(equalTo(404)));
+        }
+    }
+
+    @Test
+    public void testPrecedesQuoteCache() throws Exception {
+        QuoteSnapshot snapshot = QuoteSnapshot.download(client, file, VOWELS);
+        Quote known = client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+        QuoteCache cache = new QuoteCache(10);
+        Quote stale = known.copy();
+        stale.setValue("stale");
+        cache.put(stale);
+        TronaldClient offline = aTronaldClient().withSnapshot(snapshot).withQuoteCache(cache).build();
+        assertThat(offline.getQuote(TronaldStubServer.KNOWN_QUOTE_ID), is(equalTo(known)));
+        assertThat(offline.getQuoteAsync(TronaldStubServer.KNOWN_QUOTE_ID).join(), is(equalTo(known)));
+        snapshot.close();
+    }
+
+    @Test
+    public void testWritesAndReadsAllFields() throws Exception {
+        Quote full = new Quote();
+        full.setId("\u00e9t\u00e9-1");
+        full.setValue("Make \u2708 great again!");
+        full.setSourceUrl("https://twitter.com/realDonaldTrump/status/1");
+        full.setDate(new Date(1420070400000L));
+        full.addTag("Money");
+        full.addTag("Wall");
+        Quote empty = new Quote();
+        empty.setId("a-0");
+        QuoteSnapshot.write(file, Arrays.asList(full, empty), Collections.singletonList("Money"));
+
+        try (QuoteSnapshot snapshot = QuoteSnapshot.open(file)) {
+            assertThat(snapshot.size(), is(equalTo(2)));
+            assertThat(snapshot.getTags(), is(equalTo(Arrays.asList("Money", "Wall"))));
+            assertThat(snapshot.getQuote(full.getId()), is(equalTo(full)));
+            assertThat(snapshot.getQuote(empty.getId()), is(equalTo(empty)));
+            assertThat(snapshot.getQuote(0), is(equalTo(empty)));
+            assertThat(snapshot.getRandomQuote("Wall"), is(equalTo(full)));
+            assertThat(snapshot.getRandomQuote("Military"), is(nullValue()));
+        }
+    }
+
+    @Test
+    public void testEmptySnapshot() throws Exception {
+        QuoteSnapshot.write(file, Collections.<Quote>emptyList(), Collections.<String>emptyList());
+        try (QuoteSnapshot snapshot = QuoteSnapshot.open(file)) {
+            assertThat(snapshot.size(), is(equalTo(0)));
+            assertThat(snapshot.getQuote("foobar"), is(nullValue()));
+            assertThat(snapshot.getRandomQuote(), is(nullValue()));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherFiles() throws Exception {
+        Files.write(file.toPath(), "{\"quotes\":[]}".getBytes("UTF-8"));
+        QuoteSnapshot.open(file);
+    }
+
+    @Test
+    public void testRejectsTooLongTags() throws Exception {
+        char[] tag = new char[0x8000];
+        Arrays.fill(tag, '\u00e9');
+        Quote quote = new Quote();
+        quote.setId("id");
+        quote.addTag(new String(tag));
+        try {
+            QuoteSnapshot.write(file, Collections.singletonList(quote), Collections.emptyList());
+            fail();
+        } catch (IOException expected) {
+        }
+        assertThat(file.exists(), is(false));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPreventsUseAfterClose() throws Exception {
+        QuoteSnapshot snapshot = QuoteSnapshot.download(client, file, VOWELS);
+        snapshot.close();
+        snapshot.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static io.tronalddump.client.Pageable.PageableBuilder.aPageable;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link QuoteWriter} and {@link QuoteReader}.
+ *
+ * @author Marcel Overdijk
+ */
+public class QuoteWriterTests {
+
+    private final List<Quote> quotes = TronaldStubServer.generateQuotes(500);
+
+    @Test
+    public void testRoundTripsQuotesAndPages() throws Exception {
+        Page<Quote> page = new Page<>(quotes.subList(10, 35), aPageable().withPage(2).withSize(25).build(), 480);
+        Page<Quote> empty = new Page<>(Collections.<Quote>emptyList(), aPageable().withPage(30).build(), 480);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (QuoteWriter writer = new QuoteWriter(out)) {
+            for (Quote quote : quotes) {
+                writer.writeQuote(quote);
+            }
+            writer.writePage(page);
+            writer.writePage(empty);
+        }
+
+        try (QuoteReader reader = new QuoteReader(new ByteArrayInputStream(out.toByteArray()))) {
+            for (Quote quote : quotes) {
+                assertThat(reader.peek(), is(equalTo(QuoteReader.RecordType.QUOTE)));
+                assertThat(reader.readQuote(), is(equalTo(quote)));
+            }
+            assertThat(reader.peek(), is(equalTo(QuoteReader.RecordType.PAGE)));
+            assertThat(reader.readPage(), is(equalTo(page)));
+            assertThat(reader.readPage(), is(equalTo(empty)));
+            assertThat(reader.hasNext(), is(false));
+            assertThat(reader.peek(), is(nullValue()));
+        }
+    }
+
+    @Test
+    public void testRoundTripsAllFields() throws Exception {
+        Quote full = new Quote();
+        full.setId("\u00e9t\u00e9");
+        full.setValue("Make \u2708 great again! " + new String(new char[20000]).replace('\0', 'x'));
+        full.setSourceUrl("https://twitter.com/realDonaldTrump/status/1");
+        full.setDate(new Date(-86400000L));
+        full.addTag("Money");
+        full.addTag("Money");
+        Quote empty = new Quote();
+        assertThat(QuoteReader.decode(QuoteWriter.encode(full)), is(equalTo(full)));
+        assertThat(QuoteReader.decode(QuoteWriter.encode(empty)), is(equalTo(empty)));
+    }
+
+    @Test
+    public void testWritesAndReadsByteBuffers() throws Exception {
+        for (ByteBuffer buffer : Arrays.asList(ByteBuffer.allocate(1 << 20), ByteBuffer.allocateDirect(1 << 20))) {
+            buffer.position(7);
+            try (QuoteWriter writer = new QuoteWriter(buffer)) {
+                for (Quote quote : quotes) {
+                    writer.writeQuote(quote);
+                }
+            }
+            buffer.limit(buffer.position()).position(7);
+            QuoteReader reader = new QuoteReader(buffer.slice());
+            List<Quote> read = new ArrayList<>();
+            while (reader.hasNext()) {
+                read.add(reader.readQuote());
+            }
+            assertThat(read, is(equalTo(quotes)));
+            assertThat(new QuoteReader(buffer).readQuote(), is(equalTo(quotes.get(0))));
+        }
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void testOverflowsByteBuffer() throws Exception {
+        try (QuoteWriter writer = new QuoteWriter(ByteBuffer.allocate(1024))) {
+            for (Quote quote : quotes) {
+                writer.writeQuote(quote);
+            }
+        }
+    }
+
+    @Test
+    public void testWritesEachTagOnce() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (QuoteWriter writer = new QuoteWriter(out)) {
+            for (Quote quote : quotes) {
+                writer.writeQuote(quote);
+            }
+        }
+        String written = new String(out.toByteArray(), StandardCharsets.ISO_8859_1);
+        for (String tag : TronaldStubServer.TAGS) {
+            assertThat(written.indexOf(tag), is(equalTo(written.lastIndexOf(tag))));
+        }
+    }
+
+    @Test
+    public void testRejectsInvalidStreams() throws Exception {
+        byte[] bytes = QuoteWriter.encode(quotes.get(0));
+        assertRejected(new byte[]{'{', '}', 0, 0});
+        byte[] newer = bytes.clone();
+        newer[3] = 2;
+        assertRejected(newer);
+        try {
+            QuoteReader.decode(Arrays.copyOf(bytes, bytes.length - 5));
+            fail();
+        } catch (EOFException e) {
+            // expected
+        }
+        try {
+            new QuoteReader(new ByteArrayInputStream(bytes)).readPage();
+            fail();
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is(equalTo("Expected PAGE record but was QUOTE")));
+        }
+    }
+
+    @Test
+    public void testSmallerThanJavaSerialization() throws Exception {
+        // one self-contained message per quote for both, like a quote cached or sent on its own; the decoding speed of
+        // both is compared by DecodingBenchmark
+        long binarySize = 0;
+        long serializedSize = 0;
+        for (Quote quote : quotes) {
+            byte[] bytes = QuoteWriter.encode(quote);
+            assertThat(QuoteReader.decode(bytes), is(equalTo(quote)));
+            binarySize += bytes.length;
+
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+                out.writeObject(quote);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized.toByteArray()))) {
+                assertThat(in.readObject(), is(equalTo(quote)));
+            }
+            serializedSize += serialized.size();
+        }
+        assertThat(binarySize * 2, is(lessThan(serializedSize)));
+    }
+
+    private static void assertRejected(byte[] bytes) {
+        try {
+            QuoteReader.decode(bytes);
+            fail();
+        } catch (IOException e) {
+            assertThat(e instanceof EOFException, is(false));
+        }
+    }
+}
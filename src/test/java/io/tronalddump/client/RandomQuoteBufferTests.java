@@ -0,0 +1,195 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static io.tronalddump.client.RandomQuoteBuffer.RandomQuoteBufferBuilder.aRandomQuoteBuffer;
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link RandomQuoteBuffer}.
+ *
+ * @author Marcel Overdijk
+ */
+public class RandomQuoteBufferTests {
+
+    private static final String TAG = TronaldStubServer.TAGS.get(0);
+
+    private TronaldStubServer server;
+    private TronaldClient client;
+    private RandomQuoteBuffer buffer;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TronaldStubServer(50).start();
+        client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withTransport(new UrlConnectionTransport(16)).build();
+    }
+
+    @After
+    public void tearDown() {
+        if (buffer != null) {
+            buffer.close();
+        }
+        server.stop();
+    }
+
+    @Test
+    public void testFillsToDepthWhenBuilt() {
+        buffer = aRandomQuoteBuffer(client).withDepth(8).withTags(TAG).build();
+        await(() -> buffer.size() == 8 && buffer.size(TAG) == 8);
+        assertThat(server.getRequestCount("/random/quote"), is(equalTo(16L)));
+    }
+
+    @Test
+    public void testServesFromBufferAndRefillsBelowLowWaterMark() {
+        buffer = aRandomQuoteBuffer(client).withDepth(8).withLowWaterMark(4).build();
+        await(() -> buffer.size() == 8);
+        server.resetRequestCounts();
+        for (int i = 0; i < 3; i++) {
+            buffer.getRandomQuote();
+        }
+        assertThat(buffer.size(), is(equalTo(5)));
+        assertThat(server.getRequestCount(), is(equalTo(0L)));
+        buffer.getRandomQuote();
+        await(() -> buffer.size() == 8);
+        assertThat(server.getRequestCount(), is(equalTo(4L)));
+        assertThat(buffer.getStats(), is(equalTo(new CacheStats(4, 0, 0, 8))));
+    }
+
+    @Test
+    public void testServesTaggedQuotes() {
+        buffer = aRandomQuoteBuffer(client).withDepth(4).withTags(TAG).build();
+        await(() -> buffer.size(TAG) == 4);
+        for (int i = 0; i < 10; i++) {
+            assertThat(buffer.getRandomQuote(TAG).getTags(), hasItem(TAG));
+        }
+        assertThat(buffer.getStats().getHitCount(), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void testDiscardsStaleQuotes() {
+        AtomicLong ticker = new AtomicLong();
+        buffer = aRandomQuoteBuffer(client).withDepth(4).withMaxAge(1, TimeUnit.MINUTES).withTicker(ticker::get).build();
+        await(() -> buffer.size() == 4);
+        ticker.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        assertThat(buffer.getRandomQuote(), is(notNullValue()));
+        CacheStats stats = buffer.getStats();
+        assertThat(stats.getEvictionCount(), is(equalTo(4L)));
+        assertThat(stats.getMissCount(), is(equalTo(1L)));
+        await(() -> buffer.size() == 4);
+    }
+
+    @Test
+    public void testBoundsRefillConcurrency() {
+        server.setLatency(50);
+        buffer = aRandomQuoteBuffer(client).withDepth(12).withRefillConcurrency(3).build();
+        await(() -> buffer.size() == 12);
+        assertThat(server.getMaxConcurrentRequests(), is(lessThanOrEqualTo(3)));
+        assertThat(server.getMaxConcurrentRequests(), is(greaterThan(1)));
+    }
+
+    @Test
+    public void testFallsBackToRequestWhenEmpty() {
+        server.setErrorRate(1.0, 503);
+        buffer = aRandomQuoteBuffer(client).withDepth(4).build();
+        try {
+            buffer.getRandomQuote();
+            fail();
+        } catch (TronaldHttpException e) {
+            assertThat(e.getHttpStatus(), is(equalTo(503)));
+        }
+        server.setErrorRate(0, 503);
+        assertThat(buffer.getRandomQuote(), is(notNullValue()));
+        await(() -> buffer.size() == 4);
+    }
+
+    @Test
+    public void testDoesNotPoolUnknownTags() {
+        buffer = aRandomQuoteBuffer(client).withDepth(4).build();
+        await(() -> buffer.size() == 4);
+        server.resetRequestCounts();
+        for (int i = 0; i < 3; i++) {
+            try {
+                buffer.getRandomQuote("foo");
+                fail();
+            } catch (TronaldHttpException expected) {
+            }
+        }
+        assertThat(buffer.size("foo"), is(equalTo(0)));
+        assertThat(server.getRequestCount("/random/quote"), is(equalTo(3L)));
+    }
+
+    @Test
+    public void testBoundsTagPools() throws Exception {
+        String otherTag = TronaldStubServer.TAGS.get(1);
+        buffer = aRandomQuoteBuffer(client).withDepth(4).withMaxTagPools(1).build();
+        buffer.getRandomQuote(TAG);
+        buffer.getRandomQuote(otherTag);
+        await(() -> buffer.size(TAG) == 4);
+        Thread.sleep(100);
+        assertThat(buffer.size(otherTag), is(equalTo(0)));
+    }
+
+    @Test
+    public void testRetrievesWithRequestWhenClosed() throws Exception {
+        buffer = aRandomQuoteBuffer(client).withDepth(4).build();
+        buffer.close();
+        assertThat(buffer.getRandomQuote(TAG), is(notNullValue()));
+        Thread.sleep(100);
+        assertThat(buffer.size(TAG), is(equalTo(0)));
+        assertThat(buffer.getStats().getSize(), is(equalTo(0L)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPreventsLowWaterMarkIsNotLessThanDepth() {
+        aRandomQuoteBuffer(client).withDepth(4).withLowWaterMark(4).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPreventsRefillConcurrencyIsLessThanOne() {
+        aRandomQuoteBuffer(client).withRefillConcurrency(0).build();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within 5 seconds");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.tronalddump.client.RateLimiter.RateLimiterBuilder.aRateLimiter;
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link RateLimiter}.
+ *
+ * @author Marcel Overdijk
+ */
+public class RateLimiterTests {
+
+    private final AtomicLong time = new AtomicLong();
+
+    @Test
+    public void testBurst() {
+        RateLimiter rateLimiter = aRateLimiter(1.0).withBurst(3).withTicker(time::get).build();
+        assertTrue(rateLimiter.tryAcquire(Endpoint.QUOTE));
+        assertTrue(rateLimiter.tryAcquire(Endpoint.QUOTE));
+        assertTrue(rateLimiter.tryAcquire(Endpoint.QUOTE));
+        assertFalse(rateLimiter.tryAcquire(Endpoint.QUOTE));
+        time.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertFalse(rateLimiter.tryAcquire(Endpoint.QUOTE));
+        time.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertTrue(rateLimiter.tryAcquire(Endpoint.QUOTE));
+        assertFalse(rateLimiter.tryAcquire(Endpoint.QUOTE));
+        // an idle bucket fills up to the burst, not beyond
+        time.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(rateLimiter.tryAcquire(Endpoint.QUOTE));
+        }
+        assertFalse(rateLimiter.tryAcquire(Endpoint.QUOTE));
+    }
+
+    @Test
+    public void testTryAcquireWithTimeout() throws Exception {
+        RateLimiter rateLimiter = aRateLimiter(1.0).withBurst(1).withTicker(time::get).build();
+        assertTrue(rateLimiter.tryAcquire(Endpoint.TAGS, 0, TimeUnit.SECONDS));
+        assertFalse(rateLimiter.tryAcquire(Endpoint.TAGS, 500, TimeUnit.MILLISECONDS));
+        time.addAndGet(TimeUnit.MILLISECONDS.toNanos(990));
+        long started = System.nanoTime();
+        assertTrue(rateLimiter.tryAcquire(Endpoint.TAGS, 500, TimeUnit.MILLISECONDS));
+        assertThat(System.nanoTime() - started, is(greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(10))));
+    }
+
+    @Test
+    public void testAcquire() throws Exception {
+        RateLimiter rateLimiter = aRateLimiter(100.0).withBurst(1).build();
+        long started = System.nanoTime();
+        for (int i = 0; i < 21; i++) {
+            rateLimiter.acquire(Endpoint.SEARCH);
+        }
+        assertThat(System.nanoTime() - started, is(greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200))));
+    }
+
+    @Test
+    public void testPerEndpoint() {
+        RateLimiter shared = aRateLimiter(1.0).withBurst(1).withTicker(time::get).build();
+        assertTrue(shared.tryAcquire(Endpoint.QUOTE));
+        assertFalse(shared.tryAcquire(Endpoint.TAGS));
+        RateLimiter perEndpoint = aRateLimiter(1.0).withBurst(1).withPerEndpoint(true).withTicker(time::get).build();
+        assertTrue(perEndpoint.tryAcquire(Endpoint.QUOTE));
+        assertTrue(perEndpoint.tryAcquire(Endpoint.TAGS));
+        assertFalse(perEndpoint.tryAcquire(Endpoint.QUOTE));
+    }
+
+    @Test
+    public void testConcurrentTryAcquire() throws Exception {
+        RateLimiter rateLimiter = aRateLimiter(1.0).withBurst(100).withTicker(time::get).build();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    int acquired = 0;
+                    for (int j = 0; j < 100; j++) {
+                        if (rateLimiter.tryAcquire(Endpoint.SEARCH)) {
+                            acquired++;
+                        }
+                    }
+                    return acquired;
+                }));
+            }
+            int acquired = 0;
+            for (Future<Integer> future : futures) {
+                acquired += future.get();
+            }
+            assertThat(acquired, is(equalTo(100)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testAdaptive() {
+        RateLimiter rateLimiter = aRateLimiter(10.0).withMinRate(2.0).withTicker(time::get).build();
+        rateLimiter.onThrottled(Endpoint.QUOTE);
+        assertThat(rateLimiter.getRate(Endpoint.QUOTE), is(closeTo(5.0, 0.001)));
+        rateLimiter.onThrottled(Endpoint.QUOTE);
+        rateLimiter.onThrottled(Endpoint.QUOTE);
+        assertThat(rateLimiter.getRate(Endpoint.QUOTE), is(closeTo(2.0, 0.001)));
+        assertThat(rateLimiter.getThrottledCount(), is(equalTo(3L)));
+        rateLimiter.onSuccess(Endpoint.QUOTE);
+        assertThat(rateLimiter.getRate(Endpoint.QUOTE), is(closeTo(2.5, 0.001)));
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.onSuccess(Endpoint.QUOTE);
+        }
+        assertThat(rateLimiter.getRate(Endpoint.QUOTE), is(closeTo(10.0, 0.001)));
+
+        RateLimiter fixed = aRateLimiter(10.0).withAdaptive(false).build();
+        fixed.onThrottled(Endpoint.QUOTE);
+        assertThat(fixed.getRate(Endpoint.QUOTE), is(closeTo(10.0, 0.001)));
+    }
+
+    @Test
+    public void testClientAdaptsOnTooManyRequests() throws Exception {
+        TronaldStubServer server = new TronaldStubServer(100).start();
+        try {
+            RateLimiter rateLimiter = aRateLimiter(1000.0).build();
+            TronaldClient client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withRateLimiter(rateLimiter).build();
+            server.setErrorRate(1.0, 429);
+            try {
+                client.getTags();
+                fail();
+            } catch (TronaldHttpException e) {
+                assertThat(e.getHttpStatus(), is(equalTo(429)));
+            }
+            assertThat(rateLimiter.getThrottledCount(), is(equalTo(1L)));
+            assertThat(rateLimiter.getRate(Endpoint.TAGS), is(lessThan(1000.0)));
+            server.setErrorRate(0.0, 429);
+            for (int i = 0; i < 20; i++) {
+                client.getTags();
+            }
+            assertThat(rateLimiter.getRate(Endpoint.TAGS), is(closeTo(1000.0, 0.001)));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+        try {
+            aRateLimiter(0.0).build();
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            aRateLimiter(10.0).withMinRate(20.0).build();
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.tronalddump.client.Pageable.PageableBuilder.aPageable;
+import static io.tronalddump.client.TronaldClient.DATE_FORMAT;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for {@link ResponseDecoder}.
+ *
+ * @author Marcel Overdijk
+ */
+public class ResponseDecoderTests {
+
+    private static final String QUOTE = "{\"appeared_at\":\"2013-05-08T00:00:00\",\"created_at\":\"2016-11-20T01:34:36.478Z\"," +
+            "\"quote_id\":\"wAgIgzV1S9OARKhfun3f0A\",\"tags\":[\"Sexual Assults\",\"Military\"]," +
+            "\"updated_at\":\"2016-11-20T01:34:36.478Z\",\"value\":\"26,000 unreported sexual assults in the military-only " +
+            "238 convictions. What did these geniuses expect when they put men \\u0026 women together?\"," +
+            "\"_embedded\":{\"author\":[{\"author_id\":\"wVE8Y7BoRKCBkxs1JkqAvw\",\"bio\":null,\"name\":\"Donald Trump\"," +
+            "\"slug\":\"donald-trump\"}],\"source\":[{\"filename\":null,\"quote_source_id\":\"2jNo0jHiQ2ythXnS5SRuBA\"," +
+            "\"remarks\":null,\"url\":\"https://twitter.com/realDonaldTrump/status/331907383771148288\"}]}," +
+            "\"_links\":{\"self\":{\"href\":\"/quote/wAgIgzV1S9OARKhfun3f0A\"}}}";
+
+    @Test
+    public void testDecodeQuote() throws Exception {
+        Quote quote = ResponseDecoder.decodeQuote(stream(QUOTE));
+        assertThat(quote.getId(), is(equalTo("wAgIgzV1S9OARKhfun3f0A")));
+        assertThat(quote.getValue(), is(equalTo("26,000 unreported sexual assults in the military-only 238 convictions. What did these geniuses expect when they put men & women together?")));
+        assertThat(quote.getSourceUrl(), is(equalTo("https://twitter.com/realDonaldTrump/status/331907383771148288")));
+        assertThat(DATE_FORMAT.format(quote.getDate()), is(equalTo("2013-05-08T00:00:00")));
+        assertThat(quote.getTags(), contains("Sexual Assults", "Military"));
+    }
+
+    @Test
+    public void testDecodeQuoteMatchesTreeDecoding() throws Exception {
+        assertThat(ResponseDecoder.decodeQuote(stream(QUOTE)), is(equalTo(treeDecodeQuote(new JSONObject(QUOTE)))));
+    }
+
+    @Test
+    public void testDecodeQuoteWithNulls() throws Exception {
+        Quote quote = ResponseDecoder.decodeQuote(stream("{\"quote_id\":\"a\",\"value\":null,\"appeared_at\":null,\"tags\":[]}"));
+        assertThat(quote.getId(), is(equalTo("a")));
+        assertThat(quote.getValue(), is(nullValue()));
+        assertThat(quote.getDate(), is(nullValue()));
+    }
+
+    @Test
+    public void testDecodePage() throws Exception {
+        Page<Quote> page = ResponseDecoder.decodePage(stream(page(3, 42)), aPageable().withPage(2).withSize(3).build());
+        assertThat(page.getNumber(), is(equalTo(2)));
+        assertThat(page.getTotalElements(), is(equalTo(42L)));
+        assertThat(page.getNumberOfElements(), is(equalTo(3)));
+        assertThat(page.getContent().get(2).getId(), is(equalTo("wAgIgzV1S9OARKhfun3f0A")));
+    }
+
+    @Test
+    public void testDecodePageWithoutResults() throws Exception {
+        Page<Quote> page = ResponseDecoder.decodePage(stream("{\"count\":0,\"total\":0,\"_embedded\":{\"quotes\":[]}}"), aPageable().build());
+        assertThat(page.hasContent(), is(equalTo(false)));
+        assertThat(page.getTotalElements(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void testDecodeTags() throws Exception {
+        List<String> tags = ResponseDecoder.decodeTags(stream("{\"count\":2,\"total\":2,\"_embedded\":[\"Hillary Clinton\",\"Barack Obama\"]}"));
+        assertThat(tags, contains("Hillary Clinton", "Barack Obama"));
+    }
+
+    @Test
+    public void testDecodeError() {
+        TronaldHttpException e = ResponseDecoder.decodeError(stream("{\"timestamp\":1481207468134,\"status\":404," +
+                "\"error\":\"Not Found\",\"message\":\"Could not find a random quote.\",\"path\":\"/random/quote\"}"), 404);
+        assertThat(e.getHttpStatus(), is(equalTo(404)));
+        assertThat(e.getMessage(), is(equalTo("Could not find a random quote.")));
+    }
+
+    @Test
+    public void testDecodeNonJsonError() {
+        TronaldHttpException e = ResponseDecoder.decodeError(stream("<html>Bad Gateway</html>"), 502);
+        assertThat(e.getHttpStatus(), is(equalTo(502)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecodeMalformedQuote() throws Exception {
+        ResponseDecoder.decodeQuote(stream("{\"quote_id\":\"a\",\"value\":"));
+    }
+
+    @Test
+    public void testAllocatesLessThanTreeDecoding() throws Exception {
+        String json = page(250, 250);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        for (int i = 0; i < 20; i++) {
+            ResponseDecoder.decodePage(stream(json), aPageable().withSize(250).build());
+            treeDecodePage(new JSONObject(new JSONTokener(stream(json))));
+        }
+        long start = threads.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < 20; i++) {
+            ResponseDecoder.decodePage(stream(json), aPageable().withSize(250).build());
+        }
+        long streaming = threads.getThreadAllocatedBytes(tid) - start;
+        start = threads.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < 20; i++) {
+            treeDecodePage(new JSONObject(new JSONTokener(stream(json))));
+        }
+        long tree = threads.getThreadAllocatedBytes(tid) - start;
+        assertThat(streaming, is(lessThan(tree / 2)));
+    }
+
+    private static String page(int size, int total) {
+        StringBuilder sb = new StringBuilder("{\"count\":" + size + ",\"total\":" + total + ",\"_embedded\":{\"quotes\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(QUOTE);
+        }
+        return sb.append("]},\"_links\":{\"self\":{\"href\":\"/search/quote?query=clinton\"}}}").toString();
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The decoding based on a {@code org.json} tree as used by the 1.0 client.
+     */
+    private static List<Quote> treeDecodePage(JSONObject jsonObject) {
+        List<Quote> content = new ArrayList<>();
+        JSONArray jsonQuotes = jsonObject.getJSONObject("_embedded").getJSONArray("quotes");
+        for (int i = 0; i < jsonQuotes.length(); i++) {
+            content.add(treeDecodeQuote(jsonQuotes.getJSONObject(i)));
+        }
+        return content;
+    }
+
+    private static Quote treeDecodeQuote(JSONObject jsonObject) {
+        Quote quote = new Quote();
+        quote.setId(jsonObject.optString("quote_id"));
+        quote.setValue(jsonObject.optString("value"));
+        quote.setSourceUrl(jsonObject.getJSONObject("_embedded").getJSONArray("source").getJSONObject(0).optString("url"));
+        try {
+            quote.setDate(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").parse(jsonObject.optString("appeared_at")));
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
+        }
+        JSONArray jsonTags = jsonObject.getJSONArray("tags");
+        for (int i = 0; i < jsonTags.length(); i++) {
+            quote.addTag(jsonTags.getString(i));
+        }
+        return quote;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.tronalddump.client.RetryPolicy.RetryPolicyBuilder.aRetryPolicy;
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link RetryPolicy}.
+ *
+ * @author Marcel Overdijk
+ */
+public class RetryPolicyTests {
+
+    private TronaldStubServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        this.server = new TronaldStubServer(100).start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testRetryUntilSuccess() {
+        RetryPolicy retryPolicy = aRetryPolicy().withBackoff(1, 5, TimeUnit.MILLISECONDS).build();
+        TronaldClient client = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withTransport(failingTransport(2, new SocketException("Connection reset")))
+                .withRetryPolicy(retryPolicy)
+                .build();
+        Quote quote = client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+        assertThat(quote.getId(), is(equalTo(TronaldStubServer.KNOWN_QUOTE_ID)));
+        assertThat(server.getRequestCount(), is(equalTo(1L)));
+        assertThat(retryPolicy.getRetryCount(), is(equalTo(2L)));
+    }
+
+    @Test
+    public void testMaxAttempts() {
+        server.setErrorRate(1.0, 503);
+        RetryPolicy retryPolicy = aRetryPolicy().withMaxAttempts(4).withBackoff(1, 5, TimeUnit.MILLISECONDS).build();
+        TronaldClient client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withRetryPolicy(retryPolicy).build();
+        try {
+            client.getTags();
+            fail();
+        } catch (TronaldHttpException e) {
+            assertThat(e.getHttpStatus(), is(equalTo(503)));
+        }
+        assertThat(server.getRequestCount(), is(equalTo(4L)));
+        assertThat(retryPolicy.getRetryCount(), is(equalTo(3L)));
+    }
+
+    @Test
+    public void testNotRetryable() {
+        RetryPolicy retryPolicy = aRetryPolicy().withBackoff(1, 5, TimeUnit.MILLISECONDS).build();
+        TronaldClient client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withRetryPolicy(retryPolicy).build();
+        try {
+            client.getQuote("unknown");
+            fail();
+        } catch (TronaldHttpException e) {
+            assertThat(e.getHttpStatus(), is(equalTo(404)));
+        }
+        assertThat(server.getRequestCount(), is(equalTo(1L)));
+
+        TronaldClient failingClient = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withTransport(failingTransport(1, new IOException("Malformed response")))
+                .withRetryPolicy(retryPolicy)
+                .build();
+        try {
+            failingClient.getTags();
+            fail();
+        } catch (TronaldException e) {
+            assertThat(e.getCause(), is(instanceOf(IOException.class)));
+        }
+        assertThat(retryPolicy.getRetryCount(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void testIsRetryable() {
+        RetryPolicy retryPolicy = aRetryPolicy()
+                .withRetryableStatuses(503)
+                .withRetryableExceptions(SocketException.class)
+                .build();
+        assertTrue(retryPolicy.isRetryable(new TronaldHttpException(503, "Service Unavailable")));
+        assertFalse(retryPolicy.isRetryable(new TronaldHttpException(500, "Internal Server Error")));
+        assertTrue(retryPolicy.isRetryable(new TronaldException("Error", new java.net.ConnectException())));
+        assertFalse(retryPolicy.isRetryable(new TronaldException("Error", new IOException())));
+        assertFalse(retryPolicy.isRetryable(new TronaldException("Error")));
+    }
+
+    @Test
+    public void testRetryBudget() {
+        server.setErrorRate(1.0, 503);
+        RetryPolicy retryPolicy = aRetryPolicy()
+                .withMaxAttempts(3)
+                .withBackoff(1, 5, TimeUnit.MILLISECONDS)
+                .withRetryBudget(0.5, 2)
+                .build();
+        TronaldClient client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withRetryPolicy(retryPolicy).build();
+        for (int i = 0; i < 5; i++) {
+            try {
+                client.getTags();
+                fail();
+            } catch (TronaldHttpException e) {
+                // expected
+            }
+        }
+        // the initial burst of 2 plus 0.5 per request, of which the first deposit is lost at the full budget
+        assertThat(retryPolicy.getRetryCount(), is(equalTo(4L)));
+        assertThat(server.getRequestCount(), is(equalTo(9L)));
+        assertThat(retryPolicy.getExhaustedRetryCount(), is(equalTo(4L)));
+    }
+
+    @Test
+    public void testBackoff() {
+        RetryPolicy retryPolicy = aRetryPolicy()
+                .withMaxAttempts(10)
+                .withBackoff(100, 1000, TimeUnit.MILLISECONDS)
+                .withMultiplier(2.0)
+                .build();
+        long[] caps = {100, 200, 400, 800, 1000, 1000};
+        for (int attempt = 1; attempt <= caps.length; attempt++) {
+            long cap = TimeUnit.MILLISECONDS.toNanos(caps[attempt - 1]);
+            for (int i = 0; i < 100; i++) {
+                long backoff = retryPolicy.getBackoffNanos(attempt);
+                assertThat(backoff, is(greaterThanOrEqualTo(cap / 2)));
+                assertThat(backoff, is(lessThanOrEqualTo(cap)));
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+        try {
+            aRetryPolicy().withMaxAttempts(0).build();
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            aRetryPolicy().withBackoff(2, 1, TimeUnit.SECONDS).build();
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static HttpTransport failingTransport(int failures, IOException exception) {
+        AtomicInteger attempts = new AtomicInteger();
+        UrlConnectionTransport transport = new UrlConnectionTransport();
+        return request -> {
+            if (attempts.incrementAndGet() <= failures) {
+                throw exception;
+            }
+            return transport.execute(request);
+        };
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.tronalddump.client.Pageable.PageableBuilder.aPageable;
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for {@link SearchIndex}.
+ *
+ * @author Marcel Overdijk
+ */
+public class SearchIndexTests {
+
+    private TronaldStubServer server;
+    private TronaldClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TronaldStubServer(200).start();
+        client = aTronaldClient().withBaseUrl(server.getBaseUrl()).build();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testReturnsSamePagesAsRemoteSearch() {
+        SearchIndex index = new SearchIndex(server.getQuotes());
+        for (String query : Arrays.asList("clinton", "Obama", "tremendous", "believe", "foobar")) {
+            for (int size : Arrays.asList(1, 7, 25, 1000)) {
+                Page<Quote> remote = client.search(query, size);
+                for (int page = 1; page <= remote.getTotalPages() + 1; page++) {
+                    Pageable pageable = aPageable().withPage(page).withSize(size).build();
+                    assertThat(index.search(query, pageable), is(equalTo(client.search(query, pageable))));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesAllTokens() {
+        SearchIndex index = new SearchIndex(server.getQuotes());
+        Page<Quote> page = index.search("Believe, MEDIA!", aPageable().withSize(1000).build());
+        assertThat(page.getTotalElements(), is(greaterThan(0L)));
+        for (Quote quote : page) {
+            assertThat(quote.getValue(), containsString("believe"));
+            assertThat(quote.getValue(), containsString("media"));
+        }
+        assertThat(page.getTotalElements(), is(equalTo((long) count("believe", "media"))));
+        assertThat(index.search("fake foobar", aPageable().build()).getTotalElements(), is(equalTo(0L)));
+        assertThat(index.search(" !? ", aPageable().build()).getTotalElements(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void testClientSearchesIndexWithoutRequests() {
+        TronaldClient indexed = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withSearchIndex(new SearchIndex(server.getQuotes()))
+                .build();
+        Page<Quote> page = indexed.search("clinton", 5);
+        List<Quote> all = new ArrayList<>();
+        indexed.searchAll("clinton", 5).forEach(all::add);
+        assertThat(server.getRequestCount(), is(equalTo(0L)));
+        assertThat(page, is(equalTo(client.search("clinton", 5))));
+        assertThat(all.size(), is(equalTo((int) page.getTotalElements())));
+    }
+
+    @Test
+    public void testClientFallsBackToRemoteWhenStale() {
+        AtomicLong ticker = new AtomicLong();
+        SearchIndex index = new SearchIndex(Collections.<Quote>emptyList(), 1, TimeUnit.MINUTES, ticker::get);
+        TronaldClient indexed = aTronaldClient().withBaseUrl(server.getBaseUrl()).withSearchIndex(index).build();
+        assertThat(indexed.search("clinton").getTotalElements(), is(equalTo(0L)));
+        assertThat(server.getRequestCount(), is(equalTo(0L)));
+        ticker.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        assertThat(index.isStale(), is(true));
+        assertThat(indexed.search("clinton").getTotalElements(), is(greaterThan(0L)));
+        assertThat(server.getRequestCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void testTokenize() {
+        assertThat(SearchIndex.tokenize("Make America great again, GREAT! 2016"),
+                contains("make", "america", "great", "again", "2016"));
+        assertThat(SearchIndex.tokenize(null).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testReturnsCopies() {
+        SearchIndex index = new SearchIndex(server.getQuotes());
+        index.search("clinton", aPageable().build()).getContent().get(0).setValue("changed");
+        assertThat(index.search("clinton", aPageable().build()).getContent().get(0).getValue(), containsString("clinton"));
+    }
+
+    private int count(String... words) {
+        int count = 0;
+        for (Quote quote : server.getQuotes()) {
+            boolean all = true;
+            for (String word : words) {
+                all &= SearchIndex.tokenize(quote.getValue()).contains(word);
+            }
+            count += all ? 1 : 0;
+        }
+        return count;
+    }
+}
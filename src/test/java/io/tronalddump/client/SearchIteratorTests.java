@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static io.tronalddump.client.Pageable.PageableBuilder.aPageable;
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link SearchIterator}.
+ *
+ * @author Marcel Overdijk
+ */
+public class SearchIteratorTests {
+
+    private TronaldStubServer server;
+    private TronaldClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TronaldStubServer(200).start();
+        client = aTronaldClient().withBaseUrl(server.getBaseUrl()).build();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testSearchAllReturnsAllPagesInOrder() {
+        List<Quote> expected = new ArrayList<>();
+        Page<Quote> page = client.search("clinton", 7);
+        expected.addAll(page.getContent());
+        while (page.hasNext()) {
+            page = client.search("clinton", page.nextPageable());
+            expected.addAll(page.getContent());
+        }
+        for (int prefetch = 0; prefetch < 4; prefetch++) {
+            try (Stream<Quote> stream = client.searchAll("clinton", aPageable().withSize(7).build(), prefetch)) {
+                assertThat(stream.collect(Collectors.toList()), is(equalTo(expected)));
+            }
+        }
+    }
+
+    @Test
+    public void testSearchAllWithoutResults() {
+        assertThat(client.searchAll("foobar").collect(Collectors.toList()), hasSize(0));
+        assertThat(server.getRequestCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void testSearchAllStopsEarly() {
+        try (Stream<Quote> stream = client.searchAll("clinton", aPageable().withSize(5).build(), 2)) {
+            assertThat(stream.limit(3).collect(Collectors.toList()), hasSize(3));
+        }
+        assertThat(server.getRequestCount(), is(lessThanOrEqualTo(3L)));
+    }
+
+    @Test
+    public void testCloseCancelsPendingRequests() throws Exception {
+        server.setLatency(50);
+        SearchIterator iterator = new SearchIterator(client, "clinton", aPageable().withSize(5).build(), 3);
+        iterator.next();
+        iterator.close();
+        assertThat(iterator.hasNext(), is(equalTo(false)));
+        Thread.sleep(200);
+        assertThat(server.getRequestCount(), is(lessThanOrEqualTo(4L)));
+    }
+
+    @Test
+    public void testSearchAllPropagatesErrors() {
+        Iterator<Quote> iterator = client.searchAll("clinton", 5).iterator();
+        iterator.next();
+        server.setErrorRate(1.0, 500);
+        try {
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+            fail();
+        } catch (TronaldHttpException e) {
+            assertThat(e.getHttpStatus(), is(equalTo(500)));
+        }
+    }
+}
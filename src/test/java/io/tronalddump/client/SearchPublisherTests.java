@@ -0,0 +1,214 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static io.tronalddump.client.Pageable.PageableBuilder.aPageable;
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for {@link SearchPublisher}.
+ *
+ * @author Marcel Overdijk
+ */
+public class SearchPublisherTests {
+
+    private TronaldStubServer server;
+    private TronaldClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TronaldStubServer(200).start();
+        client = aTronaldClient().withBaseUrl(server.getBaseUrl()).build();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testPublishesAllPagesInOrder() throws Exception {
+        List<Quote> expected = new ArrayList<>();
+        Page<Quote> page = client.search("clinton", 7);
+        expected.addAll(page.getContent());
+        while (page.hasNext()) {
+            page = client.search("clinton", page.nextPageable());
+            expected.addAll(page.getContent());
+        }
+        for (int maxBufferedPages = 1; maxBufferedPages < 4; maxBufferedPages++) {
+            TestSubscriber subscriber = new TestSubscriber();
+            client.searchPublisher("clinton", aPageable().withSize(7).build(), maxBufferedPages).subscribe(subscriber);
+            subscriber.subscription.request(Long.MAX_VALUE);
+            subscriber.awaitTermination();
+            assertThat(subscriber.error, is(nullValue()));
+            assertThat(subscriber.items, is(equalTo(expected)));
+        }
+    }
+
+    @Test
+    public void testPublishesWithoutResults() throws Exception {
+        TestSubscriber subscriber = new TestSubscriber();
+        client.searchPublisher("foobar").subscribe(subscriber);
+        subscriber.subscription.request(1);
+        subscriber.awaitTermination();
+        assertThat(subscriber.items, hasSize(0));
+        assertThat(server.getRequestCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void testFetchesPagesOnDemand() throws Exception {
+        TestSubscriber subscriber = new TestSubscriber();
+        client.searchPublisher("clinton", aPageable().withSize(5).build(), 3).subscribe(subscriber);
+        Thread.sleep(100);
+        assertThat(server.getRequestCount(), is(equalTo(0L)));
+
+        subscriber.subscription.request(3);
+        subscriber.awaitItems(3);
+        assertThat(server.getRequestCount(), is(equalTo(1L)));
+
+        subscriber.subscription.request(2);
+        subscriber.awaitItems(5);
+        assertThat(server.getRequestCount(), is(equalTo(1L)));
+
+        subscriber.subscription.request(6);
+        subscriber.awaitItems(11);
+        assertThat(server.getRequestCount(), is(equalTo(3L)));
+    }
+
+    @Test
+    public void testBoundsBufferedPages() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        TestSubscriber subscriber = new TestSubscriber() {
+            @Override
+            public void onNext(Quote item) {
+                super.onNext(item);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        client.searchPublisher("clinton", aPageable().withSize(5).build(), 2).subscribe(subscriber);
+        new Thread(() -> subscriber.subscription.request(Long.MAX_VALUE)).start();
+        subscriber.awaitItems(1);
+        Thread.sleep(200);
+        assertThat(server.getRequestCount(), is(lessThanOrEqualTo(2L)));
+        release.countDown();
+        subscriber.awaitTermination();
+        assertThat(subscriber.error, is(nullValue()));
+    }
+
+    @Test
+    public void testCancelStopsPublishing() throws Exception {
+        TestSubscriber subscriber = new TestSubscriber();
+        client.searchPublisher("clinton", aPageable().withSize(5).build(), 2).subscribe(subscriber);
+        subscriber.subscription.request(7);
+        subscriber.awaitItems(7);
+        subscriber.subscription.cancel();
+        long requestCount = server.getRequestCount();
+        subscriber.subscription.request(100);
+        Thread.sleep(100);
+        assertThat(subscriber.items, hasSize(7));
+        assertThat(subscriber.terminated.getCount(), is(equalTo(1L)));
+        assertThat(server.getRequestCount(), is(equalTo(requestCount)));
+    }
+
+    @Test
+    public void testSignalsErrors() throws Exception {
+        server.setErrorRate(1.0, 503);
+        TestSubscriber subscriber = new TestSubscriber();
+        client.searchPublisher("clinton").subscribe(subscriber);
+        subscriber.subscription.request(10);
+        subscriber.awaitTermination();
+        assertThat(subscriber.error, is(instanceOf(TronaldHttpException.class)));
+        assertThat(((TronaldHttpException) subscriber.error).getHttpStatus(), is(equalTo(503)));
+    }
+
+    @Test
+    public void testSignalsNonPositiveRequest() throws Exception {
+        TestSubscriber subscriber = new TestSubscriber();
+        client.searchPublisher("clinton").subscribe(subscriber);
+        subscriber.subscription.request(0);
+        subscriber.awaitTermination();
+        assertThat(subscriber.error, is(instanceOf(IllegalArgumentException.class)));
+        assertThat(server.getRequestCount(), is(equalTo(0L)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNoBufferedPages() {
+        client.searchPublisher("clinton", aPageable().build(), 0);
+    }
+
+    private static class TestSubscriber implements Flow.Subscriber<Quote> {
+
+        final List<Quote> items = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch terminated = new CountDownLatch(1);
+        volatile Flow.Subscription subscription;
+        volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Quote item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            terminated.countDown();
+        }
+
+        void awaitItems(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (items.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(items, hasSize(count));
+        }
+
+        void awaitTermination() throws InterruptedException {
+            assertThat(terminated.await(5, TimeUnit.SECONDS), is(true));
+        }
+    }
+}
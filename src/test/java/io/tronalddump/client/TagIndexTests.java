@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for {@link TagIndex}.
+ *
+ * @author Marcel Overdijk
+ */
+public class TagIndexTests {
+
+    private static final String FIRST = TronaldStubServer.TAGS.get(1);
+    private static final String SECOND = TronaldStubServer.TAGS.get(3);
+
+    private final List<Quote> quotes = TronaldStubServer.generateQuotes(500);
+    private final TagIndex index = new TagIndex(quotes);
+
+    @Test
+    public void testCardinalities() {
+        assertThat(index.size(), is(equalTo(quotes.size())));
+        assertThat(new HashSet<>(index.getTags()), is(equalTo(new HashSet<>(TronaldStubServer.TAGS))));
+        for (String tag : TronaldStubServer.TAGS) {
+            assertThat(index.getCardinality(tag), is(equalTo(withTags(Collections.singletonList(tag), true).size())));
+        }
+        assertThat(index.getCardinality("foo"), is(equalTo(0)));
+        assertThat(index.contains("foo"), is(false));
+    }
+
+    @Test
+    public void testAnyAndAllOfTags() {
+        List<String> tags = Arrays.asList(FIRST, SECOND);
+        List<Quote> all = index.getQuotesWithAllTags(tags);
+        List<Quote> any = index.getQuotesWithAnyTag(tags);
+        assertThat(all.size(), is(greaterThan(0)));
+        assertThat(all, is(equalTo(withTags(tags, true))));
+        assertThat(any, is(equalTo(withTags(tags, false))));
+        assertThat(index.getQuotesWithAllTags(Arrays.asList(FIRST, "foo")).isEmpty(), is(true));
+        assertThat(index.getQuotesWithAnyTag(Arrays.asList(FIRST, "foo")), is(equalTo(withTags(Collections.singletonList(FIRST), true))));
+    }
+
+    @Test
+    public void testRandomSelection() {
+        List<String> tags = Arrays.asList(FIRST, SECOND);
+        Set<String> selected = new HashSet<>();
+        for (int i = 0; i < 2000; i++) {
+            Quote quote = index.getRandomQuote(FIRST);
+            assertThat(quote.getTags(), hasItem(FIRST));
+            selected.add(quote.getId());
+            assertThat(index.getRandomQuoteWithAllTags(tags).getTags().containsAll(tags), is(true));
+            Quote any = index.getRandomQuoteWithAnyTag(tags);
+            assertThat(any.getTags().contains(FIRST) || any.getTags().contains(SECOND), is(true));
+        }
+        assertThat(selected.size(), is(equalTo(index.getCardinality(FIRST))));
+        assertThat(index.getRandomQuote("foo"), is(nullValue()));
+        assertThat(index.getRandomQuoteWithAllTags(Arrays.asList(FIRST, "foo")), is(nullValue()));
+        assertThat(new TagIndex(Collections.<Quote>emptyList()).getRandomQuote(), is(nullValue()));
+    }
+
+    @Test
+    public void testClientSelectsFromIndexAndFallsBackForUnknownTags() throws Exception {
+        TagIndex partial = new TagIndex(withTags(Collections.singletonList(FIRST), true));
+        String other = TronaldStubServer.TAGS.stream().filter(tag -> !partial.contains(tag)).findFirst().get();
+        TronaldStubServer server = new TronaldStubServer(500).start();
+        try {
+            TronaldClient client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withTagIndex(partial).build();
+            assertThat(client.getRandomQuote(FIRST).getTags(), hasItem(FIRST));
+            assertThat(client.getRandomQuote().getTags(), hasItem(FIRST));
+            assertThat(server.getRequestCount(), is(equalTo(0L)));
+            assertThat(client.getRandomQuote(other).getTags(), hasItem(other));
+            assertThat(server.getRequestCount(), is(equalTo(1L)));
+        } finally {
+            server.stop();
+        }
+    }
+
+    private List<Quote> withTags(List<String> tags, boolean all) {
+        return quotes.stream()
+                .filter(quote -> all ? quote.getTags().containsAll(tags) : tags.stream().anyMatch(quote.getTags()::contains))
+                .collect(Collectors.toList());
+    }
+}
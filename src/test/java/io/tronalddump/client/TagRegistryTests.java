@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link TagRegistry}.
+ *
+ * @author Marcel Overdijk
+ */
+public class TagRegistryTests {
+
+    private TronaldStubServer server;
+    private TronaldClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TronaldStubServer(50).start();
+        client = aTronaldClient().withBaseUrl(server.getBaseUrl()).build();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testLoadsOnCreation() {
+        try (TagRegistry registry = new TagRegistry(client)) {
+            registry.refresh().join();
+            assertThat(registry.isLoaded(), is(equalTo(true)));
+            assertThat(registry.contains("Barack Obama"), is(equalTo(true)));
+            assertThat(registry.contains("foo"), is(equalTo(false)));
+            assertThat(registry.contains(null), is(equalTo(false)));
+            assertThat(registry.getTags(), is(equalTo(client.getTags())));
+        }
+    }
+
+    @Test
+    public void testReadsDoNotWaitForRefresh() {
+        server.setLatency(300);
+        try (TagRegistry registry = new TagRegistry(client)) {
+            long start = System.nanoTime();
+            assertThat(registry.isLoaded(), is(equalTo(false)));
+            assertThat(registry.contains("Barack Obama"), is(equalTo(false)));
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), is(lessThan(300L)));
+            registry.refresh().join();
+            assertThat(registry.contains("Barack Obama"), is(equalTo(true)));
+        }
+    }
+
+    @Test
+    public void testCoalescesConcurrentRefreshes() {
+        server.setLatency(100);
+        try (TagRegistry registry = new TagRegistry(client)) {
+            CompletableFuture<?> first = registry.refresh();
+            assertThat(registry.refresh(), is(sameInstance(first)));
+            first.join();
+            assertThat(server.getRequestCount("/tags"), is(equalTo(1L)));
+        }
+    }
+
+    @Test
+    public void testKeepsTagsWhenRefreshFails() {
+        try (TagRegistry registry = new TagRegistry(client)) {
+            registry.refresh().join();
+            server.setErrorRate(1.0, 503);
+            try {
+                registry.refresh().join();
+                fail();
+            } catch (CompletionException e) {
+                assertThat(e.getCause() instanceof TronaldHttpException, is(equalTo(true)));
+            }
+            assertThat(registry.contains("Barack Obama"), is(equalTo(true)));
+        }
+    }
+
+    @Test
+    public void testRefreshesOnSchedule() throws Exception {
+        try (TagRegistry registry = new TagRegistry(client, 20, TimeUnit.MILLISECONDS)) {
+            Thread.sleep(300);
+            assertThat(server.getRequestCount("/tags"), is(greaterThan(2L)));
+            assertThat(registry.isLoaded(), is(equalTo(true)));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for {@link TimestampParser}.
+ *
+ * @author Marcel Overdijk
+ */
+public class TimestampParserTests {
+
+    @Test
+    public void testParse() {
+        TimestampParser parser = new TimestampParser(TimeZone.getTimeZone("UTC"));
+        assertThat(parser.parse("2013-05-08T00:00:00"), is(equalTo(1367971200000L)));
+        assertThat(parser.parse("1970-01-01T00:00:00"), is(equalTo(0L)));
+        assertThat(parser.parse("2016-02-29T23:59:59.123Z"), is(equalTo(1456790399000L)));
+    }
+
+    @Test
+    public void testParseInvalid() {
+        TimestampParser parser = TimestampParser.DEFAULT;
+        assertThat(parser.parse(""), is(equalTo(TimestampParser.INVALID)));
+        assertThat(parser.parse("2013-05-08"), is(equalTo(TimestampParser.INVALID)));
+        assertThat(parser.parse("2013-05-08 00:00:00"), is(equalTo(TimestampParser.INVALID)));
+        assertThat(parser.parse("2013-13-08T00:00:00"), is(equalTo(TimestampParser.INVALID)));
+        assertThat(parser.parse("2015-02-29T00:00:00"), is(equalTo(TimestampParser.INVALID)));
+        assertThat(parser.parse("2013-05-08T24:00:00"), is(equalTo(TimestampParser.INVALID)));
+        assertThat(parser.parse("2013-05-0xT00:00:00"), is(equalTo(TimestampParser.INVALID)));
+    }
+
+    @Test
+    public void testParseMatchesSimpleDateFormat() throws Exception {
+        for (String id : new String[] {"UTC", "America/New_York", "Europe/Amsterdam", "Asia/Kolkata", "Australia/Lord_Howe"}) {
+            TimeZone zone = TimeZone.getTimeZone(id);
+            TimestampParser parser = new TimestampParser(zone);
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+            format.setTimeZone(zone);
+            SimpleDateFormat utc = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+            utc.setTimeZone(TimeZone.getTimeZone("UTC"));
+            // every 15 minutes of local time over two years, including daylight saving transitions
+            for (long local = 1420070400000L; local < 1483228800000L; local += 900000L) {
+                String text = utc.format(new Date(local));
+                assertThat(id + " " + text, parser.parse(text), is(equalTo(format.parse(text).getTime())));
+            }
+        }
+    }
+
+    @Test
+    public void testParseConcurrently() throws Exception {
+        TimestampParser parser = new TimestampParser(TimeZone.getTimeZone("Europe/Amsterdam"));
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+        format.setTimeZone(TimeZone.getTimeZone("Europe/Amsterdam"));
+        List<String> texts = new ArrayList<>();
+        List<Long> expected = new ArrayList<>();
+        for (long millis = 1262304000000L; texts.size() < 1000; millis += 86399000L) {
+            texts.add(format.format(new Date(millis)));
+            expected.add(millis);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int round = 0; round < 100; round++) {
+                        for (int i = 0; i < texts.size(); i++) {
+                            if (parser.parse(texts.get(i)) != expected.get(i)) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertThat(future.get(), is(equalTo(true)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static io.tronalddump.client.TronaldClient.DATE_FORMAT;
+import static io.tronalddump.client.TronaldClient.TronaldClientBuilder.aTronaldClient;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link TronaldClient} against the {@link TronaldStubServer}.
+ *
+ * @author Marcel Overdijk
+ */
+public class TronaldClientStubTests {
+
+    private TronaldStubServer server;
+    private TronaldClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        this.server = new TronaldStubServer(100).start();
+        this.client = aTronaldClient().withBaseUrl(server.getBaseUrl() + "/").build();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testBaseUrl() {
+        assertThat(client.getBaseUrl(), is(equalTo(server.getBaseUrl())));
+        assertThat(new TronaldClient().getBaseUrl(), is(equalTo(TronaldClient.BASE_URL)));
+    }
+
+    @Test
+    public void testGetTags() {
+        List<String> tags = client.getTags();
+        assertThat(tags, hasItems("Hillary Clinton", "Barack Obama"));
+    }
+
+    @Test
+    public void testGetQuote() {
+        Quote quote = client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+        assertThat(quote, is(equalTo(server.getQuotes().get(0))));
+        assertThat(quote.getSourceUrl(), is(equalTo("https://twitter.com/realDonaldTrump/status/331907383771148288")));
+        assertThat(DATE_FORMAT.format(quote.getDate()), is(equalTo("2013-05-08T00:00:00")));
+        assertThat(quote.getTags(), hasItems("Sexual Assults", "Military"));
+    }
+
+    @Test
+    public void testGetRandomQuoteWithTag() {
+        Quote quote = client.getRandomQuote("Barack Obama");
+        assertThat(quote.getTags(), hasItem("Barack Obama"));
+    }
+
+    @Test
+    public void testGetRandomQuoteWithUnknownTag() {
+        try {
+            client.getRandomQuote("foo");
+            fail();
+        } catch (TronaldHttpException e) {
+            assertThat(e.getHttpStatus(), is(equalTo(404)));
+            assertThat(e.getMessage(), is(equalTo("Could not find a random quote.")));
+        }
+    }
+
+    @Test
+    public void testSearch() {
+        Page<Quote> page = client.search("clinton", 2, 5);
+        assertThat(page.getNumber(), is(equalTo(2)));
+        assertThat(page.getContent(), hasSize(equalTo(5)));
+        assertThat(page.getTotalElements(), is(greaterThanOrEqualTo(10L)));
+        for (Quote quote : page) {
+            assertThat(quote.getValue().contains("clinton"), is(equalTo(true)));
+        }
+    }
+
+    @Test
+    public void testInjectedError() {
+        server.setErrorRate(1.0, 503);
+        try {
+            client.getTags();
+            fail();
+        } catch (TronaldHttpException e) {
+            assertThat(e.getHttpStatus(), is(equalTo(503)));
+        }
+    }
+
+    @Test
+    public void testLatency() {
+        server.setLatency(50);
+        long start = System.nanoTime();
+        client.getRandomQuote();
+        assertThat((System.nanoTime() - start) / 1000000 >= 50, is(equalTo(true)));
+    }
+
+    @Test
+    public void testGetQuoteAsyncUnknownId() throws Exception {
+        try {
+            client.getQuoteAsync("foo").join();
+            fail();
+        } catch (CompletionException e) {
+            assertThat(e.getCause() instanceof TronaldHttpException, is(equalTo(true)));
+            assertThat(((TronaldHttpException) e.getCause()).getHttpStatus(), is(equalTo(404)));
+        }
+    }
+
+    @Test
+    public void testQuoteCache() {
+        TronaldClient client = aTronaldClient().withBaseUrl(server.getBaseUrl()).withQuoteCache(new QuoteCache(10)).build();
+        Quote quote = client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID);
+        assertThat(client.getQuote(TronaldStubServer.KNOWN_QUOTE_ID), is(equalTo(quote)));
+        assertThat(client.getQuoteAsync(TronaldStubServer.KNOWN_QUOTE_ID).join(), is(equalTo(quote)));
+        assertThat(server.getRequestCount("/quote/" + TronaldStubServer.KNOWN_QUOTE_ID), is(equalTo(1L)));
+        assertThat(client.getQuoteCache().getStats().getHitCount(), is(equalTo(2L)));
+    }
+
+    @Test
+    public void testQuoteCachePopulatedBySearch() {
+        TronaldClient client = aTronaldClient()
+                .withBaseUrl(server.getBaseUrl())
+                .withQuoteCache(new QuoteCache(100))
+                .withQuoteCachePopulatedBySearch(true)
+                .build();
+        Page<Quote> page = client.search("clinton", 5);
+        for (Quote quote : page) {
+            assertThat(client.getQuote(quote.getId()), is(equalTo(quote)));
+        }
+        assertThat(server.getRequestCount(), is(equalTo(1L)));
+    }
+}
@@ -20,6 +20,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import static io.tronalddump.client.TronaldClient.DATE_FORMAT;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -27,6 +28,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNull.notNullValue;
 import static org.junit.Assert.fail;
@@ -138,4 +140,33 @@ public class TronaldClientTests {
         assertThat(page.getTotalPages(), is(equalTo(1)));
         assertThat(page.getContent(), hasSize(equalTo(0)));
     }
+
+    @Test
+    public void testGetQuoteAsync() throws Exception {
+        String id = "wAgIgzV1S9OARKhfun3f0A";
+        Quote quote = client.getQuoteAsync(id).get();
+        assertThat(quote.getId(), is(equalTo(id)));
+        assertThat(quote, is(equalTo(client.getQuote(id))));
+    }
+
+    @Test
+    public void testGetRandomQuoteWithUnknownTagAsync() throws Exception {
+        try {
+            client.getRandomQuoteAsync("foo").get();
+            fail();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(TronaldHttpException.class)));
+            TronaldHttpException cause = (TronaldHttpException) e.getCause();
+            assertThat(cause.getHttpStatus(), is(equalTo(404)));
+            assertThat(cause.getMessage(), is(equalTo("Could not find a random quote.")));
+        }
+    }
+
+    @Test
+    public void testSearchAsync() throws Exception {
+        Page<Quote> page = client.searchAsync("clinton", 10).get();
+        assertThat(page.getNumber(), is(equalTo(1)));
+        assertThat(page.getSize(), is(equalTo(10)));
+        assertThat(page.getContent(), hasSize(equalTo(10)));
+    }
 }
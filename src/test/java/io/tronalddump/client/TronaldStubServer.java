@@ -0,0 +1,433 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process stub of {@code https://api.tronalddump.io} serving canned {@code /tags}, {@code /quote/{id}},
+ * {@code /random/quote} and {@code /search/quote} payloads, for testing and load testing the client without network
+ * access. Successful responses carry an {@code ETag} and are answered with {@code 304 Not Modified} when it matches
+ * the {@code If-None-Match} request header.
+ *
+ * <pre>
+ * TronaldStubServer server = new TronaldStubServer(1000).start();
+ * server.setLatency(20);
+ * server.setErrorRate(0.01, 503);
+ * TronaldClient client = aTronaldClient().withBaseUrl(server.getBaseUrl()).build();
+ * </pre>
+ *
+ * @author Marcel Overdijk
+ */
+public class TronaldStubServer {
+
+    static final String KNOWN_QUOTE_ID = "wAgIgzV1S9OARKhfun3f0A";
+
+    static final List<String> TAGS = Collections.unmodifiableList(Arrays.asList(
+            "Hillary Clinton", "Barack Obama", "Military", "Sexual Assults", "Women", "Money", "Jeb Bush",
+            "Ted Cruz", "Marco Rubio", "Bernie Sanders", "Muslims", "Immigration", "Apologies", "John McCain"));
+
+    private static final String[] WORDS = {
+            "clinton", "obama", "great", "again", "wall", "sad", "tremendous", "huge", "loser", "media",
+            "fake", "failing", "winning", "deal", "jobs", "china", "mexico", "crooked", "nasty", "believe"
+    };
+
+    private final List<Quote> quotes = new ArrayList<>();
+    private final Map<String, String> quoteJsonById = new HashMap<>();
+    private final Map<String, List<String>> quoteIdsByTag = new HashMap<>();
+    private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+    private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+
+    private volatile long latencyMillis;
+    private volatile double errorRate;
+    private volatile int errorStatus = 503;
+    private volatile boolean compression;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Creates a new {@code TronaldStubServer} with a corpus of the given number of generated quotes, including the
+     * quote with id {@link #KNOWN_QUOTE_ID}.
+     *
+     * @param size the number of quotes, must not be less than 1
+     */
+    public TronaldStubServer(int size) {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+        for (Quote quote : generateQuotes(size)) {
+            add(quote, dateFormat.format(quote.getDate()));
+        }
+    }
+
+    /**
+     * Generates the corpus of a {@code TronaldStubServer} of the given size, for tests needing quotes but no server.
+     * The quotes are the same on every call.
+     *
+     * @param size the number of quotes, must not be less than 1
+     * @return the quotes, the first one with id {@link #KNOWN_QUOTE_ID}
+     */
+    public static List<Quote> generateQuotes(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("'size' must not be less than 1");
+        }
+        List<Quote> quotes = new ArrayList<>(size);
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+        Quote known = new Quote();
+        known.setId(KNOWN_QUOTE_ID);
+        known.setValue("26,000 unreported sexual assults in the military-only 238 convictions. What did these geniuses expect when they put men & women together?");
+        known.setSourceUrl("https://twitter.com/realDonaldTrump/status/331907383771148288");
+        try {
+            known.setDate(dateFormat.parse("2013-05-08T00:00:00"));
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
+        }
+        known.addTag("Sexual Assults");
+        known.addTag("Military");
+        quotes.add(known);
+        for (int i = 1; i < size; i++) {
+            Quote quote = new Quote();
+            quote.setId(String.format("stub-%08d", i));
+            StringBuilder value = new StringBuilder();
+            for (int w = 0; w < 12 + i % 17; w++) {
+                if (w > 0) {
+                    value.append(' ');
+                }
+                value.append(WORDS[(i * 31 + w * 7 + w * w) % WORDS.length]);
+            }
+            quote.setValue(value.append('!').toString());
+            quote.setSourceUrl("https://twitter.com/realDonaldTrump/status/" + (700000000000000000L + i));
+            quote.setDate(new Date(1420070400000L + i * 3600000L));
+            quote.addTag(TAGS.get(i % TAGS.size()));
+            if (i % 3 == 0) {
+                quote.addTag(TAGS.get((i / 3) % TAGS.size()));
+            }
+            quotes.add(quote);
+        }
+        return quotes;
+    }
+
+    private void add(Quote quote, String appearedAt) {
+        quotes.add(quote);
+        JSONObject source = new JSONObject()
+                .put("url", quote.getSourceUrl())
+                .put("quote_source_id", "src-" + quote.getId());
+        JSONObject json = new JSONObject()
+                .put("appeared_at", appearedAt)
+                .put("created_at", "2016-11-20T01:34:36.478Z")
+                .put("quote_id", quote.getId())
+                .put("tags", new JSONArray(quote.getTags()))
+                .put("updated_at", "2016-11-20T01:34:36.478Z")
+                .put("value", quote.getValue())
+                .put("_embedded", new JSONObject()
+                        .put("author", new JSONArray().put(new JSONObject().put("name", "Donald Trump")))
+                        .put("source", new JSONArray().put(source)))
+                .put("_links", new JSONObject()
+                        .put("self", new JSONObject().put("href", "/quote/" + quote.getId())));
+        quoteJsonById.put(quote.getId(), json.toString());
+        for (String tag : quote.getTags()) {
+            List<String> ids = quoteIdsByTag.get(tag);
+            if (ids == null) {
+                ids = new ArrayList<>();
+                quoteIdsByTag.put(tag, ids);
+            }
+            ids.add(quote.getId());
+        }
+    }
+
+    /**
+     * Starts the server on a free local port.
+     *
+     * @return this server
+     * @throws IOException in case the server cannot be started
+     */
+    public TronaldStubServer start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        executor = Executors.newCachedThreadPool(new DaemonThreadFactory("tronald-stub-server"));
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return this;
+    }
+
+    /**
+     * Stops the server.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    /**
+     * Returns the base url to configure the client with.
+     *
+     * @return the base url
+     */
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the generated quotes.
+     *
+     * @return the quotes
+     */
+    public List<Quote> getQuotes() {
+        return Collections.unmodifiableList(quotes);
+    }
+
+    /**
+     * Sets the latency added to every response.
+     *
+     * @param latencyMillis the latency in milliseconds
+     */
+    public void setLatency(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Sets the fraction of requests answered with the given error status instead of their canned payload.
+     *
+     * @param errorRate the error rate, between 0 and 1
+     * @param errorStatus the http status of the injected errors
+     */
+    public void setErrorRate(double errorRate, int errorStatus) {
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+    }
+
+    /**
+     * Sets whether response bodies are gzip or deflate compressed, as accepted by the {@code Accept-Encoding}
+     * request header.
+     *
+     * @param compression whether to compress response bodies
+     */
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * Returns the total number of requests received.
+     *
+     * @return the number of requests
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Returns the number of requests received for the given path, like {@code /quote/wAgIgzV1S9OARKhfun3f0A}.
+     *
+     * @param path the path, without query string
+     * @return the number of requests
+     */
+    public long getRequestCount(String path) {
+        AtomicLong count = requestCounts.get(path);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Returns the maximum number of requests that were handled concurrently.
+     *
+     * @return the maximum number of concurrent requests
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests.get();
+    }
+
+    /**
+     * Resets the request counts.
+     */
+    public void resetRequestCounts() {
+        requestCount.set(0);
+        requestCounts.clear();
+        maxConcurrentRequests.set(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int concurrent = concurrentRequests.incrementAndGet();
+        maxConcurrentRequests.accumulateAndGet(concurrent, Math::max);
+        try {
+            String path = exchange.getRequestURI().getPath();
+            requestCount.incrementAndGet();
+            requestCounts.computeIfAbsent(path, k -> new AtomicLong()).incrementAndGet();
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                sendError(exchange, errorStatus, "Injected error.");
+                return;
+            }
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (path.equals("/tags")) {
+                JSONArray tags = new JSONArray(quoteIdsByTag.keySet());
+                send(exchange, 200, new JSONObject()
+                        .put("count", tags.length())
+                        .put("total", tags.length())
+                        .put("_embedded", tags).toString());
+            } else if (path.startsWith("/quote/")) {
+                String json = quoteJsonById.get(path.substring("/quote/".length()));
+                if (json != null) {
+                    send(exchange, 200, json);
+                } else {
+                    sendError(exchange, 404, "Could not find a quote.");
+                }
+            } else if (path.equals("/random/quote")) {
+                String tag = params.get("tag");
+                List<String> ids = tag != null ? quoteIdsByTag.get(tag) : null;
+                if (tag == null) {
+                    send(exchange, 200, quoteJsonById.get(quotes.get(ThreadLocalRandom.current().nextInt(quotes.size())).getId()));
+                } else if (ids != null) {
+                    send(exchange, 200, quoteJsonById.get(ids.get(ThreadLocalRandom.current().nextInt(ids.size()))));
+                } else {
+                    sendError(exchange, 404, "Could not find a random quote.");
+                }
+            } else if (path.equals("/search/quote")) {
+                sendSearch(exchange, params);
+            } else {
+                sendError(exchange, 404, "Not found.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            concurrentRequests.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private void sendSearch(HttpExchange exchange, Map<String, String> params) throws IOException {
+        String query = params.get("query");
+        if (query == null) {
+            sendError(exchange, 400, "Required String parameter 'query' is not present");
+            return;
+        }
+        int page = params.containsKey("page") ? Integer.parseInt(params.get("page")) : 1;
+        int size = params.containsKey("size") ? Integer.parseInt(params.get("size")) : 25;
+        String needle = query.toLowerCase(Locale.ROOT);
+        List<String> matches = new ArrayList<>();
+        for (Quote quote : quotes) {
+            if (quote.getValue().toLowerCase(Locale.ROOT).contains(needle)) {
+                matches.add(quote.getId());
+            }
+        }
+        int from = Math.min((page - 1) * size, matches.size());
+        int to = Math.min(from + size, matches.size());
+        StringBuilder sb = new StringBuilder()
+                .append("{\"count\":").append(to - from)
+                .append(",\"total\":").append(matches.size())
+                .append(",\"_embedded\":{\"quotes\":[");
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                sb.append(',');
+            }
+            sb.append(quoteJsonById.get(matches.get(i)));
+        }
+        sb.append("]}}");
+        send(exchange, 200, sb.toString());
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, new JSONObject()
+                .put("status", status)
+                .put("error", "Error")
+                .put("message", message)
+                .put("path", exchange.getRequestURI().getPath()).toString());
+    }
+
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/hal+json;charset=UTF-8");
+        if (status == 200) {
+            // like Spring's ShallowEtagHeaderFilter used by the real api
+            String etag = "\"0" + Integer.toHexString(Arrays.hashCode(bytes)) + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+        }
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (compression && acceptEncoding != null) {
+            if (acceptEncoding.contains("gzip")) {
+                bytes = compress(bytes, true);
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            } else if (acceptEncoding.contains("deflate")) {
+                bytes = compress(bytes, false);
+                exchange.getResponseHeaders().set("Content-Encoding", "deflate");
+            }
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] compress(byte[] bytes, boolean gzip) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = gzip ? new GZIPOutputStream(compressed) : new DeflaterOutputStream(compressed)) {
+            out.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                int idx = pair.indexOf('=');
+                if (idx > 0) {
+                    params.put(URLDecoder.decode(pair.substring(0, idx), "UTF-8"), URLDecoder.decode(pair.substring(idx + 1), "UTF-8"));
+                }
+            }
+        }
+        return params;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2015-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.tronalddump.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link UrlConnectionTransport}.
+ *
+ * @author Marcel Overdijk
+ */
+public class UrlConnectionTransportTests {
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private String url;
+    private String slowUrl;
+    private String stallingUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "{\"status\":200}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/slow", exchange -> {
+            sleep(2000);
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/stalling", exchange -> {
+            exchange.sendResponseHeaders(200, 1024);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(new byte[16]);
+                out.flush();
+                sleep(2000);
+                out.write(new byte[1024 - 16]);
+            } catch (IOException ignore) {
+                // the client went away
+            }
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + "/tags";
+        slowUrl = "http://localhost:" + server.getAddress().getPort() + "/slow";
+        stallingUrl = "http://localhost:" + server.getAddress().getPort() + "/stalling";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testReusesReleasedConnection() throws Exception {
+        UrlConnectionTransport transport = new UrlConnectionTransport();
+        for (int i = 0; i < 3; i++) {
+            try (HttpResponse response = transport.execute(new HttpRequest(url, Collections.emptyMap()))) {
+                assertThat(response.getStatus(), is(equalTo(200)));
+                assertThat(transport.getStats().getActive(), is(equalTo(1)));
+            }
+        }
+        ConnectionPoolStats stats = transport.getStats();
+        assertThat(stats.getActive(), is(equalTo(0)));
+        assertThat(stats.getIdle(), is(equalTo(1)));
+        assertThat(stats.getCreated(), is(equalTo(1L)));
+        assertThat(stats.getReused(), is(equalTo(2L)));
+    }
+
+    @Test
+    public void testDrainsUnreadBodyOnClose() throws Exception {
+        UrlConnectionTransport transport = new UrlConnectionTransport();
+        HttpResponse response = transport.execute(new HttpRequest(url, Collections.emptyMap()));
+        InputStream body = response.getBody();
+        body.read();
+        response.close();
+        assertThat(transport.getStats().getIdle(), is(equalTo(1)));
+    }
+
+    @Test
+    public void testBoundsConnectionsPerHost() throws Exception {
+        UrlConnectionTransport transport = new UrlConnectionTransport(1);
+        HttpResponse first = transport.execute(new HttpRequest(url, Collections.emptyMap()));
+        CompletableFuture<HttpResponse> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return transport.execute(new HttpRequest(url, Collections.emptyMap()));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        try {
+            second.get(200, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (TimeoutException expected) {
+        }
+        first.close();
+        second.get(5, TimeUnit.SECONDS).close();
+        assertThat(transport.getStats().getReused(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void testReadTimeout() throws Exception {
+        UrlConnectionTransport transport = new UrlConnectionTransport(5, 0, 100, TimeUnit.MILLISECONDS);
+        assertThat(transport.getReadTimeout(), is(equalTo(100L)));
+        long started = System.nanoTime();
+        try {
+            transport.execute(new HttpRequest(slowUrl, Collections.emptyMap()));
+            fail();
+        } catch (SocketTimeoutException expected) {
+        }
+        assertThat(System.nanoTime() - started, is(lessThan(TimeUnit.MILLISECONDS.toNanos(1500))));
+        assertThat(transport.getStats().getActive(), is(equalTo(0)));
+    }
+
+    @Test
+    public void testRequestTimeout() throws Exception {
+        UrlConnectionTransport transport = new UrlConnectionTransport();
+        long started = System.nanoTime();
+        try {
+            transport.execute(new HttpRequest(slowUrl, Collections.emptyMap(), 100));
+            fail();
+        } catch (SocketTimeoutException expected) {
+        }
+        assertThat(System.nanoTime() - started, is(lessThan(TimeUnit.MILLISECONDS.toNanos(1500))));
+        assertThat(transport.getStats().getActive(), is(equalTo(0)));
+    }
+
+    @Test
+    public void testRequestTimeoutWaitingForConnection() throws Exception {
+        UrlConnectionTransport transport = new UrlConnectionTransport(1);
+        HttpResponse response = transport.execute(new HttpRequest(url, Collections.emptyMap()));
+        try {
+            transport.execute(new HttpRequest(url, Collections.emptyMap(), 100));
+            fail();
+        } catch (SocketTimeoutException expected) {
+        } finally {
+            response.close();
+        }
+        assertThat(transport.getStats().getActive(), is(equalTo(0)));
+    }
+
+    @Test
+    public void testAbortReleasesConnection() throws Exception {
+        UrlConnectionTransport transport = new UrlConnectionTransport();
+        HttpResponse response = transport.execute(new HttpRequest(stallingUrl, Collections.emptyMap()));
+        InputStream body = response.getBody();
+        assertThat(body.read(new byte[16]), is(equalTo(16)));
+        long started = System.nanoTime();
+        response.abort();
+        assertThat(transport.getStats().getActive(), is(equalTo(0)));
+        try {
+            body.read();
+            fail();
+        } catch (IOException expected) {
+        }
+        assertThat(System.nanoTime() - started, is(lessThan(TimeUnit.MILLISECONDS.toNanos(1500))));
+        response.close();
+        assertThat(transport.getStats().getActive(), is(equalTo(0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPreventsMaxConnectionsPerHostIsLessThanOne() {
+        new UrlConnectionTransport(0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}